@@ -2,6 +2,7 @@ package pl.put.poznan.buildingInfo.app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
 * Glowna klasa aplikacji BuildingInfo.
@@ -10,7 +11,8 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 * i uruchomienie calej aplikacji, w tym zaladowanie konfiguracji oraz komponentow
 * w zadanum pakiecie.
 **/
-@SpringBootApplication(scanBasePackages = {"pl.put.poznan.buildingInfo.rest"})
+@EnableScheduling
+@SpringBootApplication(scanBasePackages = {"pl.put.poznan.buildingInfo.rest", "pl.put.poznan.buildingInfo.repository", "pl.put.poznan.buildingInfo.storage"})
 public class BuildingInfoApplication {
 
     /**
@@ -1,7 +1,9 @@
 package pl.put.poznan.buildingInfo.logic.locations;
 
 import pl.put.poznan.buildingInfo.logic.visitors.Visitor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -18,6 +20,16 @@ public class Building extends Location {
 
     public List<Level> levelsInBuilding;
 
+    /**
+     * Sumy parametrow pomieszczen, tworzone przy pierwszym odczycie zamrozonej lokalizacji.
+     */
+    private volatile LocationTotals totals;
+
+    /**
+     * Pomieszczenia posortowane wedlug zuzycia energii, tworzone przy pierwszym odczycie zamrozonej lokalizacji.
+     */
+    private volatile EnergyDensityIndex energyDensityIndex;
+
     /**
      * Konstruktor klasy Building
      * @param id id
@@ -42,6 +54,7 @@ public class Building extends Location {
      */
     @Override
     public void add(Location location) {
+        checkMutable();
         if (location instanceof Level) {
             levelsInBuilding.add((Level) location);
         } else {
@@ -55,6 +68,7 @@ public class Building extends Location {
      */
     @Override
     public void remove(Location location) {
+        checkMutable();
         if (location instanceof Level) {
             levelsInBuilding.remove((Level) location);
         } else {
@@ -83,6 +97,7 @@ public class Building extends Location {
      * @param name nazwa
      */
     public void setName(String name) {
+        checkMutable();
         this.name = name;
     }
 
@@ -91,7 +106,6 @@ public class Building extends Location {
      * @return lista obiektow klasy Level, ktore sa podlokacjami budynku.
      */
     public List<Level> getLevelsInBuilding() {
-        System.out.println("Levels in building: " + levelsInBuilding);
         return levelsInBuilding;
     }
 
@@ -101,9 +115,68 @@ public class Building extends Location {
      * @param levelsInBuilding pełna lista poziomow w budynku
      */
     public void setLevelsInBuilding(List<Level> levelsInBuilding) {
+        checkMutable();
         this.levelsInBuilding = levelsInBuilding;
     }
 
+    /**
+     * Zamraza budynek wraz ze wszystkimi poziomami i pomieszczeniami.
+     */
+    @Override
+    public void freeze() {
+        if (isFrozen()) {
+            return;
+        }
+        for (Level level : levelsInBuilding) {
+            level.freeze();
+        }
+        this.levelsInBuilding = Collections.unmodifiableList(new ArrayList<>(levelsInBuilding));
+        super.freeze();
+    }
+
+    /**
+     * Zwraca sumy parametrow pomieszczen.
+     *
+     * Sumy budynku sa liczone z sum jego poziomow, wiec po zmianie jednego pomieszczenia
+     * przeliczane sa jedynie sumy zmienionego poziomu, a sumy pozostalych poziomow sa
+     * wspoldzielone z poprzednia wersja budynku.
+     *
+     * @return sumy lub {@code null}, jesli lokalizacja nie jest zamrozona
+     */
+    @JsonIgnore
+    public LocationTotals getTotals() {
+        if (!isFrozen()) {
+            return null;
+        }
+        LocationTotals result = totals;
+        if (result == null) {
+            result = LocationTotals.ofLevels(levelsInBuilding);
+            totals = result;
+        }
+        return result;
+    }
+
+    /**
+     * Zwraca indeks pomieszczen posortowanych wedlug zuzycia energii.
+     *
+     * Indeks budynku jest tworzony przez scalenie indeksow jego poziomow, wiec po zmianie jednego
+     * pomieszczenia ponownie sortowane sa jedynie pomieszczenia zmienionego poziomu.
+     *
+     * @return indeks lub {@code null}, jesli lokalizacja nie jest zamrozona
+     */
+    @JsonIgnore
+    public EnergyDensityIndex getEnergyDensityIndex() {
+        if (!isFrozen()) {
+            return null;
+        }
+        EnergyDensityIndex result = energyDensityIndex;
+        if (result == null) {
+            result = EnergyDensityIndex.ofLevels(levelsInBuilding);
+            energyDensityIndex = result;
+        }
+        return result;
+    }
+
 /**
      * Funkcja pozwala na zaakceptowanie wizytatora odwiedzajacego klas
      * podlokacji w budynku.
@@ -0,0 +1,337 @@
+package pl.put.poznan.buildingInfo.logic.locations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Niezmienny indeks pomieszczen zamrozonego poziomu lub budynku, posortowanych wedlug zuzycia
+ * energii (stosunku ogrzewania do kubatury), do wyszukiwania pomieszczen przekraczajacych limit.
+ *
+ * Indeks poziomu jest tworzony przy pierwszym odczycie przez posortowanie jego pomieszczen,
+ * a indeks budynku przez scalenie indeksow poziomow. Modyfikacja pomieszczenia tworzy nowa
+ * wersje poziomu i budynku, wiec ponownie sortowane sa tylko pomieszczenia zmienionego poziomu,
+ * a indeksy pozostalych poziomow sa wspoldzielone z poprzednia wersja budynku.
+ *
+ * Wyszukiwanie pomieszczen przekraczajacych limit to wyszukiwanie binarne pierwszego pasujacego
+ * pomieszczenia i przejscie tylko po pasujacych pomieszczeniach. Obiekty {@link Room} sa pobierane
+ * z poziomow dopiero dla zwracanych pomieszczen, wiec indeks poziomu przechowywanego poza sterta
+ * nie tworzy obiektow dla wszystkich pomieszczen. Pomieszczenia z nieokreslonym zuzyciem energii
+ * (NaN) nigdy nie przekraczaja limitu i nie sa indeksowane.
+ */
+public final class EnergyDensityIndex {
+
+    /**
+     * Kolejnosc zwracanych pomieszczen.
+     */
+    public enum Order {
+        /**
+         * Kolejnosc pomieszczen w lokalizacji, jak przy przechodzeniu przez odwiedzajacego.
+         */
+        LOCATION,
+        /**
+         * Rosnaco wedlug zuzycia energii.
+         */
+        ASCENDING,
+        /**
+         * Malejaco wedlug zuzycia energii.
+         */
+        DESCENDING
+    }
+
+    private final List<Level> levels;
+
+    /**
+     * Zuzycie energii pomieszczen, posortowane rosnaco.
+     */
+    private final double[] densities;
+
+    /**
+     * Pozycje pomieszczen w kolejnosci {@link #densities}: indeks poziomu w starszych 32 bitach
+     * i indeks pomieszczenia na poziomie w mlodszych.
+     */
+    private final long[] positions;
+
+    private EnergyDensityIndex(List<Level> levels, double[] densities, long[] positions) {
+        this.levels = levels;
+        this.densities = densities;
+        this.positions = positions;
+    }
+
+    /**
+     * Sortuje pomieszczenia poziomu.
+     *
+     * @param level poziom
+     * @return indeks pomieszczen poziomu
+     */
+    static EnergyDensityIndex ofLevel(Level level) {
+        double[] values;
+        if (level.isOffHeap()) {
+            RoomColumns columns = level.getRoomColumns();
+            int start = columns.levelStart(0);
+            values = new double[columns.levelEnd(0) - start];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = columns.heating(start + i) / columns.cube(start + i);
+            }
+        } else {
+            List<Room> rooms = level.getRoomsOnLevel();
+            values = new double[rooms.size()];
+            for (int i = 0; i < values.length; i++) {
+                Room room = rooms.get(i);
+                values[i] = room.getHeating() / room.getCube();
+            }
+        }
+        int count = 0;
+        int[] order = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (!Double.isNaN(values[i])) {
+                order[count++] = i;
+            }
+        }
+        order = sort(Arrays.copyOf(order, count), values);
+        double[] densities = new double[count];
+        long[] positions = new long[count];
+        for (int i = 0; i < count; i++) {
+            densities[i] = values[order[i]];
+            positions[i] = order[i];
+        }
+        return new EnergyDensityIndex(Collections.singletonList(level), densities, positions);
+    }
+
+    /**
+     * Scala indeksy poziomow budynku.
+     *
+     * @param levels poziomy budynku
+     * @return indeks pomieszczen budynku
+     */
+    static EnergyDensityIndex ofLevels(List<Level> levels) {
+        List<EnergyDensityIndex> parts = new ArrayList<>(levels.size());
+        for (int l = 0; l < levels.size(); l++) {
+            EnergyDensityIndex level = levels.get(l).getEnergyDensityIndex();
+            long[] positions = new long[level.positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = ((long) l << 32) | level.positions[i];
+            }
+            parts.add(new EnergyDensityIndex(levels, level.densities, positions));
+        }
+        if (parts.isEmpty()) {
+            return new EnergyDensityIndex(levels, new double[0], new long[0]);
+        }
+        while (parts.size() > 1) {
+            List<EnergyDensityIndex> merged = new ArrayList<>((parts.size() + 1) / 2);
+            for (int i = 0; i + 1 < parts.size(); i += 2) {
+                merged.add(merge(levels, parts.get(i), parts.get(i + 1)));
+            }
+            if (parts.size() % 2 == 1) {
+                merged.add(parts.get(parts.size() - 1));
+            }
+            parts = merged;
+        }
+        return parts.get(0);
+    }
+
+    /**
+     * @return liczba zindeksowanych pomieszczen
+     */
+    public int size() {
+        return densities.length;
+    }
+
+    /**
+     * Wyszukuje pomieszczenia, ktorych zuzycie energii przekracza limit.
+     *
+     * @param energyLimit limit zuzycia energii
+     * @param order kolejnosc zwracanych pomieszczen
+     * @param maxRooms najwieksza liczba zwracanych pomieszczen
+     * @return pomieszczenia przekraczajace limit
+     */
+    public List<Room> findExceeding(double energyLimit, Order order, int maxRooms) {
+        return findExceeding(Collections.singletonList(this), energyLimit, order, maxRooms);
+    }
+
+    /**
+     * Wyszukuje pomieszczenia przekraczajace limit w wielu lokalizacjach, np. we wszystkich budynkach.
+     *
+     * Pasujace pomieszczenia kazdej lokalizacji sa wyszukiwane binarnie w jej indeksie, a dla kolejnosci
+     * wedlug zuzycia energii scalane przez kolejke priorytetowa, do osiagniecia {@code maxRooms}.
+     * W kolejnosci {@link Order#LOCATION} pomieszczenia kolejnych lokalizacji sa zwracane jedne po drugich.
+     *
+     * @param indexes indeksy lokalizacji
+     * @param energyLimit limit zuzycia energii
+     * @param order kolejnosc zwracanych pomieszczen
+     * @param maxRooms najwieksza liczba zwracanych pomieszczen
+     * @return pomieszczenia przekraczajace limit
+     */
+    public static List<Room> findExceeding(List<EnergyDensityIndex> indexes, double energyLimit, Order order, int maxRooms) {
+        List<Room> rooms = new ArrayList<>();
+        if (order == Order.LOCATION) {
+            for (EnergyDensityIndex index : indexes) {
+                if (rooms.size() >= maxRooms) {
+                    break;
+                }
+                index.addInLocationOrder(energyLimit, maxRooms - rooms.size(), rooms);
+            }
+            return rooms;
+        }
+        boolean descending = order == Order.DESCENDING;
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, indexes.size()),
+                descending ? (a, b) -> Double.compare(b.density(), a.density()) : (a, b) -> Double.compare(a.density(), b.density()));
+        for (EnergyDensityIndex index : indexes) {
+            int first = index.firstExceeding(energyLimit);
+            if (first < index.densities.length) {
+                queue.add(descending ? new Cursor(index, index.densities.length - 1, first - 1, -1)
+                        : new Cursor(index, first, index.densities.length, 1));
+            }
+        }
+        while (rooms.size() < maxRooms && !queue.isEmpty()) {
+            Cursor cursor = queue.poll();
+            rooms.add(cursor.index.room(cursor.index.positions[cursor.next]));
+            cursor.next += cursor.step;
+            if (cursor.next != cursor.end) {
+                queue.add(cursor);
+            }
+        }
+        return rooms;
+    }
+
+    /**
+     * Dodaje pasujace pomieszczenia w kolejnosci lokalizacji. Jesli pasujacych pomieszczen jest wiecej
+     * niz {@code maxRooms}, pierwsze {@code maxRooms} pozycji jest wybieranych kopcem o tym rozmiarze,
+     * wiec sortowane sa tylko zwracane pozycje.
+     */
+    private void addInLocationOrder(double energyLimit, int maxRooms, List<Room> rooms) {
+        int first = firstExceeding(energyLimit);
+        long[] matching = positions.length - first <= maxRooms
+                ? Arrays.copyOfRange(positions, first, positions.length)
+                : smallest(positions, first, maxRooms);
+        Arrays.sort(matching);
+        for (long position : matching) {
+            rooms.add(room(position));
+        }
+    }
+
+    /**
+     * Wybiera {@code count} najmniejszych pozycji z {@code positions[from..]} kopcem maksymalnym.
+     */
+    private static long[] smallest(long[] positions, int from, int count) {
+        long[] heap = Arrays.copyOfRange(positions, from, from + count);
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i);
+        }
+        for (int i = from + count; i < positions.length; i++) {
+            if (positions[i] < heap[0]) {
+                heap[0] = positions[i];
+                siftDown(heap, 0);
+            }
+        }
+        return heap;
+    }
+
+    private static void siftDown(long[] heap, int i) {
+        long value = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heap.length) {
+                break;
+            }
+            if (child + 1 < heap.length && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= value) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    private Room room(long position) {
+        return levels.get((int) (position >>> 32)).getRoomsOnLevel().get((int) position);
+    }
+
+    /**
+     * @return indeks pierwszego pomieszczenia, ktorego zuzycie energii przekracza limit
+     */
+    private int firstExceeding(double energyLimit) {
+        if (Double.isNaN(energyLimit)) {
+            return densities.length;
+        }
+        int low = 0;
+        int high = densities.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (densities[mid] > energyLimit) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static EnergyDensityIndex merge(List<Level> levels, EnergyDensityIndex left, EnergyDensityIndex right) {
+        int size = left.densities.length + right.densities.length;
+        double[] densities = new double[size];
+        long[] positions = new long[size];
+        int l = 0;
+        int r = 0;
+        for (int i = 0; i < size; i++) {
+            if (r == right.densities.length || (l < left.densities.length && left.densities[l] <= right.densities[r])) {
+                densities[i] = left.densities[l];
+                positions[i] = left.positions[l++];
+            } else {
+                densities[i] = right.densities[r];
+                positions[i] = right.positions[r++];
+            }
+        }
+        return new EnergyDensityIndex(levels, densities, positions);
+    }
+
+    /**
+     * Stabilne sortowanie przez scalanie indeksow pomieszczen wedlug ich zuzycia energii.
+     */
+    private static int[] sort(int[] order, double[] values) {
+        int[] source = order;
+        int[] target = new int[order.length];
+        for (int width = 1; width < source.length; width *= 2) {
+            for (int start = 0; start < source.length; start += 2 * width) {
+                int middle = Math.min(start + width, source.length);
+                int end = Math.min(start + 2 * width, source.length);
+                int l = start;
+                int r = middle;
+                for (int i = start; i < end; i++) {
+                    if (r == end || (l < middle && values[source[l]] <= values[source[r]])) {
+                        target[i] = source[l++];
+                    } else {
+                        target[i] = source[r++];
+                    }
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        return source;
+    }
+
+    private static final class Cursor {
+        final EnergyDensityIndex index;
+        final int end;
+        final int step;
+        int next;
+
+        Cursor(EnergyDensityIndex index, int next, int end, int step) {
+            this.index = index;
+            this.next = next;
+            this.end = end;
+            this.step = step;
+        }
+
+        double density() {
+            return index.densities[next];
+        }
+    }
+}
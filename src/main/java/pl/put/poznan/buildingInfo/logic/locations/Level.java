@@ -1,8 +1,11 @@
 package pl.put.poznan.buildingInfo.logic.locations;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import pl.put.poznan.buildingInfo.logic.visitors.Visitor;
 /**
  * Klasa reprezentujaca poziom (pietro) w hierarchii lokalizacji.
@@ -19,6 +22,16 @@ public class Level extends Location {
      */
     private List<Room> roomsOnLevel;
 
+    /**
+     * Sumy parametrow pomieszczen, tworzone przy pierwszym odczycie zamrozonej lokalizacji.
+     */
+    private volatile LocationTotals totals;
+
+    /**
+     * Pomieszczenia posortowane wedlug zuzycia energii, tworzone przy pierwszym odczycie zamrozonej lokalizacji.
+     */
+    private volatile EnergyDensityIndex energyDensityIndex;
+
     /**
      * Konstruktor klasy Level.
      *
@@ -47,6 +60,7 @@ public class Level extends Location {
      */
     @Override
     public void add(Location location) {
+        checkMutable();
         if (location instanceof Room) {
             roomsOnLevel.add((Room) location);
         } else {
@@ -62,6 +76,7 @@ public class Level extends Location {
      */
     @Override
     public void remove(Location location) {
+        checkMutable();
         if (location instanceof Room) {
             roomsOnLevel.remove((Room) location);
         } else {
@@ -92,6 +107,7 @@ public class Level extends Location {
      * @param name nazwa
      */
     public void setName(String name) {
+        checkMutable();
         this.name = name;
     }
 
@@ -110,9 +126,89 @@ public class Level extends Location {
      * @param roomsOnLevel lista pokojow, ktora ma zostac przypisana do poziomu
      */
     public void setRoomsOnLevel(List<Room> roomsOnLevel) {
+        checkMutable();
         this.roomsOnLevel = roomsOnLevel;
     }
 
+    /**
+     * Zamraza poziom wraz ze wszystkimi pomieszczeniami.
+     */
+    @Override
+    public void freeze() {
+        if (isFrozen()) {
+            return;
+        }
+        for (Room room : roomsOnLevel) {
+            room.freeze();
+        }
+        this.roomsOnLevel = Collections.unmodifiableList(new ArrayList<>(roomsOnLevel));
+        super.freeze();
+    }
+
+    /**
+     * Czy pomieszczenia poziomu sa przechowywane poza sterta, np. w pliku odwzorowanym w pamieci.
+     *
+     * @return {@code true}, jesli poziom nie przechowuje obiektow {@link Room} na stercie
+     */
+    @JsonIgnore
+    public boolean isOffHeap() {
+        return false;
+    }
+
+    /**
+     * Zwraca kolumnowa reprezentacje pomieszczen poziomu przechowywanego poza sterta.
+     *
+     * @return kolumny pomieszczen lub {@code null} dla poziomu przechowywanego na stercie
+     */
+    @JsonIgnore
+    public RoomColumns getRoomColumns() {
+        return null;
+    }
+
+    /**
+     * Zwraca sumy parametrow pomieszczen.
+     *
+     * Sumy poziomu sa liczone jednym przejsciem po pomieszczeniach przy pierwszym wywolaniu,
+     * a poziom niezmieniony przez modyfikacje budynku jest wspoldzielony przez kolejne
+     * wersje budynku razem z sumami.
+     *
+     * @return sumy lub {@code null}, jesli lokalizacja nie jest zamrozona
+     */
+    @JsonIgnore
+    public LocationTotals getTotals() {
+        if (!isFrozen()) {
+            return null;
+        }
+        LocationTotals result = totals;
+        if (result == null) {
+            result = isOffHeap() ? LocationTotals.ofColumns(getRoomColumns()) : LocationTotals.ofRooms(roomsOnLevel);
+            totals = result;
+        }
+        return result;
+    }
+
+    /**
+     * Zwraca indeks pomieszczen posortowanych wedlug zuzycia energii.
+     *
+     * Indeks poziomu jest tworzony przy pierwszym wywolaniu przez posortowanie pomieszczen,
+     * a poziom niezmieniony przez modyfikacje budynku jest wspoldzielony przez kolejne wersje
+     * budynku razem z indeksem.
+     *
+     * @return indeks lub {@code null}, jesli lokalizacja nie jest zamrozona
+     */
+    @JsonIgnore
+    public EnergyDensityIndex getEnergyDensityIndex() {
+        if (!isFrozen()) {
+            return null;
+        }
+        EnergyDensityIndex result = energyDensityIndex;
+        if (result == null) {
+            result = EnergyDensityIndex.ofLevel(this);
+            energyDensityIndex = result;
+        }
+        return result;
+    }
+
     /**
      * Funkcja pozwala na zaakceptowanie wizytatora odwiedzajacego klas
      * podlokacji w budynku.
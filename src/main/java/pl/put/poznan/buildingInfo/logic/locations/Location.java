@@ -1,5 +1,8 @@
 package pl.put.poznan.buildingInfo.logic.locations;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -20,6 +23,21 @@ public abstract class Location implements Visitable {
      */
     protected String name;
 
+    /**
+     * Czy lokalizacja zostala zamrozona jako niezmienna migawka.
+     */
+    private boolean frozen;
+
+    /**
+     * Licznik wersji nadawanych zamrazanym lokalizacjom.
+     */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /**
+     * Wersja zamrozonej lokalizacji; 0 dla lokalizacji, ktora mozna modyfikowac.
+     */
+    private long version;
+
     /**
      * Konstruktor klasy Location.
      * @param id unikalne id
@@ -50,5 +68,61 @@ public abstract class Location implements Visitable {
      */
     public abstract void remove(Location location);
 
+    /**
+     * Zamraza lokalizacje wraz z lokalizacjami podrzednymi.
+     *
+     * Zamrozona lokalizacja jest niezmienna migawka: kazda proba jej modyfikacji
+     * konczy sie wyjatkiem, wiec moze byc bezpiecznie odczytywana przez wiele watkow
+     * bez blokad. Nowa wersje lokalizacji tworzy sie przez jej skopiowanie.
+     *
+     * Zamrazana lokalizacja otrzymuje nowy, unikalny numer wersji. Modyfikacja pomieszczenia
+     * tworzy nowe kopie pomieszczenia, jego poziomu i budynku, wiec nowa wersje otrzymuja
+     * zmieniona lokalizacja i jej przodkowie, a niezmienione lokalizacje zachowuja swoje wersje.
+     */
+    public void freeze() {
+        if (!frozen) {
+            freeze(VERSIONS.incrementAndGet());
+        }
+    }
+
+    /**
+     * Zamraza lokalizacje z podanym numerem wersji, bez zamrazania lokalizacji podrzednych.
+     *
+     * @param version numer wersji
+     */
+    protected void freeze(long version) {
+        if (!frozen) {
+            this.version = version;
+            this.frozen = true;
+        }
+    }
+
+    /**
+     * @return wersja zamrozonej lokalizacji lub 0, jesli lokalizacja nie jest zamrozona
+     */
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return {@code true}, jesli lokalizacja jest niezmienna migawka
+     */
+    @JsonIgnore
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Sprawdza, czy lokalizacja moze byc modyfikowana.
+     *
+     * @throws IllegalStateException jesli lokalizacja jest zamrozona
+     */
+    protected void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("Location with ID: " + id + " is an immutable snapshot and cannot be modified.");
+        }
+    }
+
 
 }
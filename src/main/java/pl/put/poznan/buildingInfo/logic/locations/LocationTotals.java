@@ -0,0 +1,125 @@
+package pl.put.poznan.buildingInfo.logic.locations;
+
+import java.util.List;
+
+/**
+ * Niezmienne sumy parametrow pomieszczen zamrozonego poziomu lub budynku: powierzchnia,
+ * kubatura, suma mocy oswietlenia na jednostke powierzchni i suma zuzycia energii
+ * (ogrzewania na jednostke kubatury).
+ *
+ * Sumy poziomu sa liczone jednym przejsciem po jego pomieszczeniach, a sumy budynku
+ * z sum jego poziomow, w tej samej kolejnosci co w odwiedzajacych, wiec wyniki sa
+ * identyczne z obliczanymi przez przejscie po obiektach.
+ */
+public final class LocationTotals {
+
+    private final double area;
+    private final double cube;
+    private final double lightPower;
+    private final double energy;
+
+    LocationTotals(double area, double cube, double lightPower, double energy) {
+        this.area = area;
+        this.cube = cube;
+        this.lightPower = lightPower;
+        this.energy = energy;
+    }
+
+    /**
+     * Sumuje parametry listy pomieszczen.
+     *
+     * @param rooms pomieszczenia poziomu
+     * @return sumy pomieszczen
+     */
+    static LocationTotals ofRooms(List<Room> rooms) {
+        double area = 0;
+        double cube = 0;
+        double lightPower = 0;
+        double energy = 0;
+        for (Room room : rooms) {
+            area += room.getArea();
+            cube += room.getCube();
+            lightPower += room.getLight() / room.getArea();
+            energy += room.getHeating() / room.getCube();
+        }
+        return new LocationTotals(area, cube, lightPower, energy);
+    }
+
+    /**
+     * Sumuje parametry pomieszczen zapisanych w kolumnach.
+     *
+     * @param columns kolumny pomieszczen
+     * @return sumy pomieszczen
+     */
+    static LocationTotals ofColumns(RoomColumns columns) {
+        double area = 0;
+        double cube = 0;
+        double lightPower = 0;
+        double energy = 0;
+        for (int l = 0; l < columns.levelCount(); l++) {
+            double levelArea = 0;
+            double levelCube = 0;
+            double levelLightPower = 0;
+            double levelEnergy = 0;
+            for (int i = columns.levelStart(l), end = columns.levelEnd(l); i < end; i++) {
+                double roomArea = columns.area(i);
+                double roomCube = columns.cube(i);
+                levelArea += roomArea;
+                levelCube += roomCube;
+                levelLightPower += columns.light(i) / roomArea;
+                levelEnergy += columns.heating(i) / roomCube;
+            }
+            area += levelArea;
+            cube += levelCube;
+            lightPower += levelLightPower;
+            energy += levelEnergy;
+        }
+        return new LocationTotals(area, cube, lightPower, energy);
+    }
+
+    /**
+     * Sumuje sumy poziomow budynku.
+     *
+     * @param levels zamrozone poziomy
+     * @return sumy budynku lub {@code null}, jesli ktorys z poziomow nie udostepnia sum
+     */
+    static LocationTotals ofLevels(List<Level> levels) {
+        double area = 0;
+        double cube = 0;
+        double lightPower = 0;
+        double energy = 0;
+        for (Level level : levels) {
+            LocationTotals totals = level.getTotals();
+            if (totals == null) {
+                return null;
+            }
+            area += totals.area;
+            cube += totals.cube;
+            lightPower += totals.lightPower;
+            energy += totals.energy;
+        }
+        return new LocationTotals(area, cube, lightPower, energy);
+    }
+
+    public double getArea() {
+        return area;
+    }
+
+    public double getCube() {
+        return cube;
+    }
+
+    /**
+     * @return suma stosunkow mocy oswietlenia do powierzchni pomieszczen
+     */
+    public double getLightPower() {
+        return lightPower;
+    }
+
+    /**
+     * @return suma stosunkow ogrzewania do kubatury pomieszczen
+     */
+    public double getEnergy() {
+        return energy;
+    }
+}
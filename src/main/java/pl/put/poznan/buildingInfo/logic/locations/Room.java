@@ -101,6 +101,7 @@ public class Room extends Location {
      * @param heating ogrzewanie
      */
     public void setHeating(double heating) {
+        checkMutable();
         this.heating = heating;
     }
 
@@ -117,6 +118,7 @@ public class Room extends Location {
      * @param light oswietlenie
      */
     public void setLight(double light) {
+        checkMutable();
         this.light = light;
     }
 
@@ -137,22 +139,40 @@ public class Room extends Location {
      * Pozwala na ustawienie nazwy pokoju.
      * @param name nazwa
      */
-    public void setName(String name) {this.name = name;}
+    public void setName(String name) {
+        checkMutable();
+        this.name = name;
+    }
 
     /**
      * Pozwala na ustawienie powierzchni pokoju.
      * @param area powierzchnia
      */
-    public void setArea(double area) {this.area = area;}
+    public void setArea(double area) {
+        checkMutable();
+        this.area = area;
+    }
 
     /**
      * Pozwala na ustawienie kubatury pokoju.
      * @param cube kubatura
      */
     public void setCube(double cube) {
+        checkMutable();
         this.cube = cube;
     }
 
+    /**
+     * Zamraza pomieszczenie z podanym numerem wersji, np. pomieszczenie odczytywane z niezmiennego
+     * pliku, ktore przy kazdym odczycie powinno miec wersje swojego poziomu.
+     *
+     * @param version numer wersji
+     */
+    @Override
+    public void freeze(long version) {
+        super.freeze(version);
+    }
+
     /**
      * Funkcja pozwala na zaakceptowanie wizytatora odwiedzajacego klas
      * podlokacji w budynku.
@@ -0,0 +1,55 @@
+package pl.put.poznan.buildingInfo.logic.locations;
+
+/**
+ * Kolumnowa (struct-of-arrays) reprezentacja pomieszczen poziomu lub budynku przechowywanego poza sterta.
+ *
+ * Parametry wszystkich pomieszczen (powierzchnia, kubatura, ogrzewanie, oswietlenie) sa
+ * przechowywane w ciaglych kolumnach, a pomieszczenia kolejnych poziomow zajmuja kolejne
+ * przedzialy kolumn opisane przez {@link #levelStart(int)} i {@link #levelEnd(int)}. Dzieki
+ * temu odwiedzajacy sumuja parametry w prostych petlach po typach prymitywnych, zamiast
+ * przechodzic po listach obiektow {@link Room}.
+ *
+ * Kolumny sa odczytywane bezposrednio z pamieci poza sterta, np. z pliku odwzorowanego w pamieci,
+ * wiec sumy ({@link LocationTotals}) i indeks zuzycia energii ({@link EnergyDensityIndex}) poziomu
+ * nie tworza obiektow {@link Room}. Poziomy przechowywane na stercie nie maja kolumn.
+ */
+public abstract class RoomColumns {
+
+    /**
+     * @return liczba poziomow
+     */
+    public abstract int levelCount();
+
+    /**
+     * @return liczba pomieszczen
+     */
+    public abstract int roomCount();
+
+    /**
+     * @param level indeks poziomu
+     * @return identyfikator poziomu
+     */
+    public abstract int levelId(int level);
+
+    /**
+     * @param level indeks poziomu
+     * @return indeks pierwszego pomieszczenia poziomu
+     */
+    public abstract int levelStart(int level);
+
+    /**
+     * @param level indeks poziomu
+     * @return indeks za ostatnim pomieszczeniem poziomu
+     */
+    public abstract int levelEnd(int level);
+
+    public abstract int roomId(int room);
+
+    public abstract double area(int room);
+
+    public abstract double cube(int room);
+
+    public abstract double heating(int room);
+
+    public abstract double light(int room);
+}
@@ -3,6 +3,7 @@ package pl.put.poznan.buildingInfo.logic.visitors;
 import pl.put.poznan.buildingInfo.logic.locations.Building;
 import pl.put.poznan.buildingInfo.logic.locations.Level;
 import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.locations.LocationTotals;
 
 /**
  * Klasa obliczajaca laczna powierzchnie dla pomieszczen, poziomow i budynkow.
@@ -10,6 +11,8 @@ import pl.put.poznan.buildingInfo.logic.locations.Room;
  * Implementacja wzorca odwiedzajacego (Visitor), pozwalajaca na rekurencyjne 
  * sumowanie powierzchni dla calej struktury budynku.
  * 
+ * Dla zamrozonych poziomow i budynkow zwracana jest suma przechowywana w lokalizacji
+ * ({@link LocationTotals}), bez przechodzenia po obiektach {@link Room}.
  */
 public class AreaVisitor implements Visitor {
 
@@ -20,6 +23,10 @@ public class AreaVisitor implements Visitor {
 
     @Override
     public double visit(Level level) {
+        LocationTotals totals = level.getTotals();
+        if (totals != null) {
+            return totals.getArea();
+        }
         double area = 0;
         for (Room room : level.getRoomsOnLevel()) {
             area += visit(room);
@@ -29,6 +36,10 @@ public class AreaVisitor implements Visitor {
 
     @Override
     public double visit(Building building) {
+        LocationTotals totals = building.getTotals();
+        if (totals != null) {
+            return totals.getArea();
+        }
         double area = 0;
         for (Level level : building.getLevelsInBuilding()) {
             area += visit(level);
@@ -3,6 +3,7 @@ package pl.put.poznan.buildingInfo.logic.visitors;
 import pl.put.poznan.buildingInfo.logic.locations.Building;
 import pl.put.poznan.buildingInfo.logic.locations.Level;
 import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.locations.LocationTotals;
 
 /**
  * Klasa obliczajaca laczne zuzycie energii dla pomieszczen, poziomow i
@@ -12,6 +13,8 @@ import pl.put.poznan.buildingInfo.logic.locations.Room;
  * pomieszczen.
  * Implementacja wzorca odwiedzajacego (Visitor).
  * 
+ * Dla zamrozonych poziomow i budynkow zwracana jest suma przechowywana w lokalizacji
+ * ({@link LocationTotals}), bez przechodzenia po obiektach {@link Room}.
  */
 public class EnergyVisitor implements Visitor {
     @Override
@@ -21,6 +24,10 @@ public class EnergyVisitor implements Visitor {
 
     @Override
     public double visit(Level level) {
+        LocationTotals totals = level.getTotals();
+        if (totals != null) {
+            return totals.getEnergy();
+        }
         double energy = 0;
         for (Room room : level.getRoomsOnLevel()) {
             energy += visit(room);
@@ -30,6 +37,10 @@ public class EnergyVisitor implements Visitor {
 
     @Override
     public double visit(Building building) {
+        LocationTotals totals = building.getTotals();
+        if (totals != null) {
+            return totals.getEnergy();
+        }
         double energy = 0;
         for (Level level : building.getLevelsInBuilding()) {
             energy += visit(level);
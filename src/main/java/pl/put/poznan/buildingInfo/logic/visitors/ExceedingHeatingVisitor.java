@@ -64,4 +64,13 @@ public class ExceedingHeatingVisitor implements Visitor {
     public List<Room> getRoomsExceedingLimit() {
         return roomsExceedingHeating;
     }
+
+    /**
+     * Dolacza pomieszczenia znalezione przez innego odwiedzajacego, np. przy obliczeniach rownoleglych.
+     *
+     * @param other odwiedzajacy, ktorego pomieszczenia zostana dolaczone na koncu listy
+     */
+    public void merge(ExceedingHeatingVisitor other) {
+        roomsExceedingHeating.addAll(other.roomsExceedingHeating);
+    }
 }
@@ -3,6 +3,7 @@ package pl.put.poznan.buildingInfo.logic.visitors;
 import pl.put.poznan.buildingInfo.logic.locations.Building;
 import pl.put.poznan.buildingInfo.logic.locations.Level;
 import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.locations.LocationTotals;
 
 /**
  * Klasa obliczajaca stosunek mocy oswietlenia do powierzchni pomieszczen, poziomow i budynkow.
@@ -10,6 +11,8 @@ import pl.put.poznan.buildingInfo.logic.locations.Room;
  * Implementacja wzorca odwiedzajacego (Visitor), ktora pozwala na rekurencyjne 
  * sumowanie wspolczynnika oswietlenia dla calej struktury budynku.
  * 
+ * Dla zamrozonych poziomow i budynkow zwracana jest suma przechowywana w lokalizacji
+ * ({@link LocationTotals}), bez przechodzenia po obiektach {@link Room}.
  */
 public class LightVisitor implements Visitor {
     @Override
@@ -19,6 +22,10 @@ public class LightVisitor implements Visitor {
 
     @Override
     public double visit(Level level) {
+        LocationTotals totals = level.getTotals();
+        if (totals != null) {
+            return totals.getLightPower();
+        }
         double lightPower = 0;
         for(Room room : level.getRoomsOnLevel()) {
             lightPower += visit(room);
@@ -28,6 +35,10 @@ public class LightVisitor implements Visitor {
 
     @Override
     public double visit(Building building) {
+        LocationTotals totals = building.getTotals();
+        if (totals != null) {
+            return totals.getLightPower();
+        }
         double lightPower = 0;
         for(Level level : building.getLevelsInBuilding()) {
             lightPower += visit(level);
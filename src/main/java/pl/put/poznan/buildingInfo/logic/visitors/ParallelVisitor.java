@@ -0,0 +1,172 @@
+package pl.put.poznan.buildingInfo.logic.visitors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+
+/**
+ * Odwiedzajacy wykonujacy obliczenia innego odwiedzajacego rownolegle w puli {@link ForkJoinPool}.
+ *
+ * Budynek, ktory ma wiecej pomieszczen niz zadany prog, jest dzielony na zadania po jednym
+ * na poziom, a poziom, ktory nie jest zamrozony i ma wiecej pomieszczen niz prog, jest
+ * dodatkowo dzielony na fragmenty listy pomieszczen. Kazde zadanie korzysta z nowej instancji
+ * odwiedzajacego, a wyniki sa sumowane, a stan odwiedzajacych laczony, w kolejnosci poziomow
+ * i pomieszczen.
+ *
+ * Wynik dla budynku jest sumowany w tej samej kolejnosci co w odwiedzajacych sekwencyjnych, wiec
+ * jest z nimi identyczny. Jedynie dla poziomu dzielonego na fragmenty wynik moze roznic sie
+ * od sekwencyjnego bledem zaokraglenia. Zamrozone poziomy nie sa dzielone, poniewaz ich sumy
+ * ({@link pl.put.poznan.buildingInfo.logic.locations.LocationTotals}) sa liczone jednym przejsciem
+ * i wspoldzielone przez kolejne obliczenia.
+ *
+ * Lokalizacje mniejsze niz prog sa odwiedzane sekwencyjnie przez odwiedzajacego docelowego.
+ *
+ * @param <V> typ odwiedzajacego wykonujacego obliczenia
+ */
+public class ParallelVisitor<V extends Visitor> implements Visitor {
+
+    private final V target;
+    private final Supplier<V> factory;
+    private final BiConsumer<V, V> merger;
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param target odwiedzajacy, do ktorego dolaczany jest stan odwiedzajacych poszczegolnych zadan
+     * @param factory tworzy odwiedzajacych dla poszczegolnych zadan, z tymi samymi parametrami co {@code target}
+     * @param merger dolacza stan drugiego odwiedzajacego do pierwszego
+     * @param threshold liczba pomieszczen, powyzej ktorej lokalizacja jest dzielona na zadania
+     * @param pool pula wykonujaca zadania
+     */
+    public ParallelVisitor(V target, Supplier<V> factory, BiConsumer<V, V> merger, int threshold, ForkJoinPool pool) {
+        this.target = target;
+        this.factory = factory;
+        this.merger = merger;
+        this.threshold = Math.max(threshold, 1);
+        this.pool = pool;
+    }
+
+    @Override
+    public double visit(Room room) {
+        return target.visit(room);
+    }
+
+    @Override
+    public double visit(Level level) {
+        if (level.isFrozen() || level.getRoomsOnLevel().size() <= threshold) {
+            return target.visit(level);
+        }
+        return merge(pool.invoke(new RoomsTask(level.getRoomsOnLevel(), 0, level.getRoomsOnLevel().size())));
+    }
+
+    @Override
+    public double visit(Building building) {
+        List<Level> levels = building.getLevelsInBuilding();
+        long rooms = 0;
+        for (Level level : levels) {
+            rooms += level.getRoomsOnLevel().size();
+        }
+        if (rooms <= threshold) {
+            return target.visit(building);
+        }
+        return merge(pool.invoke(new BuildingTask(levels)));
+    }
+
+    private double merge(Partial partial) {
+        merger.accept(target, partial.visitor);
+        return partial.value;
+    }
+
+    /**
+     * Wynik zadania: wartosc oraz odwiedzajacy ze stanem zgromadzonym przez zadanie.
+     */
+    private final class Partial {
+        private final V visitor;
+        private double value;
+
+        Partial(V visitor, double value) {
+            this.visitor = visitor;
+            this.value = value;
+        }
+
+        void add(Partial other) {
+            merger.accept(visitor, other.visitor);
+            value += other.value;
+        }
+    }
+
+    private final class BuildingTask extends RecursiveTask<Partial> {
+        private final List<Level> levels;
+
+        BuildingTask(List<Level> levels) {
+            this.levels = levels;
+        }
+
+        @Override
+        protected Partial compute() {
+            List<RecursiveTask<Partial>> tasks = new ArrayList<>(levels.size());
+            for (Level level : levels) {
+                List<Room> rooms = level.getRoomsOnLevel();
+                tasks.add(!level.isFrozen() && rooms.size() > threshold
+                        ? new RoomsTask(rooms, 0, rooms.size()) : new LevelTask(level));
+            }
+            invokeAll(tasks);
+            Partial result = new Partial(factory.get(), 0);
+            for (RecursiveTask<Partial> task : tasks) {
+                result.add(task.join());
+            }
+            return result;
+        }
+    }
+
+    private final class LevelTask extends RecursiveTask<Partial> {
+        private final Level level;
+
+        LevelTask(Level level) {
+            this.level = level;
+        }
+
+        @Override
+        protected Partial compute() {
+            V visitor = factory.get();
+            return new Partial(visitor, visitor.visit(level));
+        }
+    }
+
+    private final class RoomsTask extends RecursiveTask<Partial> {
+        private final List<Room> rooms;
+        private final int from;
+        private final int to;
+
+        RoomsTask(List<Room> rooms, int from, int to) {
+            this.rooms = rooms;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= threshold) {
+                V visitor = factory.get();
+                double value = 0;
+                for (int i = from; i < to; i++) {
+                    value += visitor.visit(rooms.get(i));
+                }
+                return new Partial(visitor, value);
+            }
+            int middle = (from + to) >>> 1;
+            RoomsTask right = new RoomsTask(rooms, middle, to);
+            right.fork();
+            Partial result = new RoomsTask(rooms, from, middle).compute();
+            result.add(right.join());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package pl.put.poznan.buildingInfo.logic.visitors;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.LocationTotals;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+
+/**
+ * Klasa obliczajaca w jednym przejsciu wszystkie parametry lokalizacji: powierzchnie, kubature,
+ * moc oswietlenia, zuzycie energii oraz koszty oswietlenia i energii.
+ *
+ * Parametry sa sumowane w zmiennych typow prymitywnych, w tej samej kolejnosci co w
+ * {@link AreaVisitor}, {@link CubeVisitor}, {@link LightVisitor} i {@link EnergyVisitor},
+ * wiec wyniki sa identyczne z wynikami tych odwiedzajacych. Dla zamrozonych poziomow
+ * i budynkow wykorzystywane sa sumy przechowywane w lokalizacji ({@link LocationTotals}).
+ *
+ * Instancja odwiedzajacego sluzy do podsumowania jednej lokalizacji.
+ */
+public class SummaryVisitor implements Visitor {
+
+    private final double lightCost;
+    private final double energyCost;
+
+    private double area;
+    private double cube;
+    private double lightPower;
+    private double energy;
+
+    /**
+     * @param lightCost koszt oswietlenia na jednostke
+     * @param energyCost koszt energii na jednostke
+     */
+    public SummaryVisitor(double lightCost, double energyCost) {
+        this.lightCost = lightCost;
+        this.energyCost = energyCost;
+    }
+
+    /**
+     * Dodaje parametry pomieszczenia do podsumowania.
+     *
+     * @return powierzchnia pomieszczenia
+     */
+    @Override
+    public double visit(Room room) {
+        area += room.getArea();
+        cube += room.getCube();
+        lightPower += room.getLight() / room.getArea();
+        energy += room.getHeating() / room.getCube();
+        return room.getArea();
+    }
+
+    /**
+     * Dodaje parametry wszystkich pomieszczen poziomu do podsumowania.
+     *
+     * @return powierzchnia poziomu
+     */
+    @Override
+    public double visit(Level level) {
+        LocationTotals totals = level.getTotals();
+        double levelArea = 0;
+        double levelCube = 0;
+        double levelLightPower = 0;
+        double levelEnergy = 0;
+        if (totals != null) {
+            levelArea = totals.getArea();
+            levelCube = totals.getCube();
+            levelLightPower = totals.getLightPower();
+            levelEnergy = totals.getEnergy();
+        } else {
+            for (Room room : level.getRoomsOnLevel()) {
+                levelArea += room.getArea();
+                levelCube += room.getCube();
+                levelLightPower += room.getLight() / room.getArea();
+                levelEnergy += room.getHeating() / room.getCube();
+            }
+        }
+        area += levelArea;
+        cube += levelCube;
+        lightPower += levelLightPower;
+        energy += levelEnergy;
+        return levelArea;
+    }
+
+    /**
+     * Dodaje parametry wszystkich poziomow budynku do podsumowania.
+     *
+     * @return powierzchnia budynku
+     */
+    @Override
+    public double visit(Building building) {
+        LocationTotals totals = building.getTotals();
+        if (totals != null) {
+            area += totals.getArea();
+            cube += totals.getCube();
+            lightPower += totals.getLightPower();
+            energy += totals.getEnergy();
+            return totals.getArea();
+        }
+        double buildingArea = 0;
+        for (Level level : building.getLevelsInBuilding()) {
+            buildingArea += visit(level);
+        }
+        return buildingArea;
+    }
+
+    /**
+     * Dolacza parametry podsumowane przez innego odwiedzajacego, np. przy obliczeniach rownoleglych.
+     *
+     * @param other odwiedzajacy, ktorego sumy zostana dodane do podsumowania
+     */
+    public void merge(SummaryVisitor other) {
+        area += other.area;
+        cube += other.cube;
+        lightPower += other.lightPower;
+        energy += other.energy;
+    }
+
+    public double getArea() {
+        return area;
+    }
+
+    public double getCube() {
+        return cube;
+    }
+
+    public double getLightPower() {
+        return lightPower;
+    }
+
+    public double getEnergy() {
+        return energy;
+    }
+
+    public double getLightCost() {
+        return lightPower * lightCost;
+    }
+
+    public double getEnergyCost() {
+        return energy * energyCost;
+    }
+}
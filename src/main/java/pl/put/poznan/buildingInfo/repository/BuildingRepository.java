@@ -0,0 +1,948 @@
+package pl.put.poznan.buildingInfo.repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.locations.RoomColumns;
+import pl.put.poznan.buildingInfo.storage.MappedBuilding;
+import pl.put.poznan.buildingInfo.storage.MappedLevel;
+import pl.put.poznan.buildingInfo.storage.WalRecord;
+import pl.put.poznan.buildingInfo.storage.WalRecord.Operation;
+import pl.put.poznan.buildingInfo.storage.WriteAheadLog;
+
+/**
+ * Repozytorium przechowujace wszystkie budynki wraz z ich poziomami i pomieszczeniami.
+ *
+ * Kazdy budynek jest przechowywany jako niezmienna {@link BuildingSnapshot}. Modyfikacja
+ * budynku tworzy nowa migawke, kopiujac jedynie zmieniona sciezke lokalizacji, i publikuje
+ * ja atomowo w indeksie {@link IntObjectMap}. Czytelnicy nie uzywaja blokad i zawsze widza
+ * spojna wersje budynku, a pisarze nigdy ich nie blokuja.
+ *
+ * Repozytorium utrzymuje rowniez globalne indeksy poziomow i pomieszczen calego portfela
+ * budynkow, odwzorowujace identyfikator na {@link LocationPath}. Identyfikatory poziomow
+ * i pomieszczen sa unikalne w obrebie wszystkich budynkow, wiec wyszukanie dowolnej
+ * lokalizacji odbywa sie w czasie stalym.
+ *
+ * Pomieszczenia budynkow przechowywanych poza sterta ({@link MappedBuilding}) nie sa
+ * umieszczane w globalnym indeksie pomieszczen; sa wyszukiwane w posortowanych indeksach
+ * plikow i weryfikowane wzgledem biezacej migawki budynku.
+ *
+ * Zapisy dotyczace jednego budynku sa serializowane przez blokade z puli blokad wybieranej
+ * na podstawie identyfikatora budynku, wiec zapisy do roznych budynkow moga przebiegac rownolegle.
+ * Nowa migawka jest publikowana dopiero po utrwaleniu modyfikacji w dzienniku zapisow, wiec
+ * czytelnicy nigdy nie widza zmian, ktore moglyby zostac utracone po restarcie.
+ */
+@Repository
+public class BuildingRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(BuildingRepository.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * Oczekiwana wersja lokalizacji, ktora nie ogranicza modyfikacji.
+     */
+    public static final long ANY_VERSION = 0;
+
+    private final List<Integer> buildingOrder = new CopyOnWriteArrayList<>();
+    private final IntObjectMap<BuildingSnapshot> snapshots = new IntObjectMap<>();
+    private final IntObjectMap<LocationPath> levelPaths = new IntObjectMap<>();
+    private final IntObjectMap<LocationPath> roomPaths = new IntObjectMap<>();
+    private final IntObjectMap<MappedBuilding> offHeapBuildings = new IntObjectMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final AtomicLong modifications = new AtomicLong();
+
+    private final WriteAheadLog log;
+
+    @Autowired
+    public BuildingRepository(WriteAheadLog log) {
+        this.log = log;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Zwraca liste biezacych wersji wszystkich budynkow w kolejnosci ich dodania.
+     *
+     * @return lista budynkow
+     */
+    public List<Building> findAll() {
+        List<Building> buildings = new ArrayList<>(buildingOrder.size());
+        for (int buildingId : buildingOrder) {
+            BuildingSnapshot snapshot = snapshots.get(buildingId);
+            if (snapshot != null) {
+                buildings.add(snapshot.getBuilding());
+            }
+        }
+        return buildings;
+    }
+
+    /**
+     * Zwraca identyfikatory wszystkich budynkow w kolejnosci ich dodania, bez tworzenia listy budynkow.
+     *
+     * @return niemodyfikowalny widok listy identyfikatorow
+     */
+    public List<Integer> findAllIds() {
+        return Collections.unmodifiableList(buildingOrder);
+    }
+
+    /**
+     * @return liczba budynkow w repozytorium
+     */
+    public int count() {
+        return snapshots.size();
+    }
+
+    /**
+     * Zwraca biezaca migawke budynku.
+     *
+     * @param buildingId identyfikator budynku
+     * @return migawka lub {@code null}, jesli budynek nie istnieje
+     */
+    public BuildingSnapshot findSnapshot(int buildingId) {
+        return snapshots.get(buildingId);
+    }
+
+    /**
+     * Wyszukuje budynek po identyfikatorze.
+     *
+     * @param buildingId identyfikator budynku
+     * @return biezaca wersja budynku lub {@code null}, jesli nie istnieje
+     */
+    public Building findBuilding(int buildingId) {
+        BuildingSnapshot snapshot = snapshots.get(buildingId);
+        return snapshot == null ? null : snapshot.getBuilding();
+    }
+
+    /**
+     * Zwraca sciezke poziomu w calym portfelu budynkow.
+     *
+     * @param levelId identyfikator poziomu
+     * @return sciezka lub {@code null}, jesli poziom nie istnieje
+     */
+    public LocationPath findLevelPath(int levelId) {
+        return levelPaths.get(levelId);
+    }
+
+    /**
+     * Zwraca sciezke pomieszczenia w calym portfelu budynkow.
+     *
+     * @param roomId identyfikator pomieszczenia
+     * @return sciezka lub {@code null}, jesli pomieszczenie nie istnieje
+     */
+    public LocationPath findRoomPath(int roomId) {
+        LocationPath path = roomPaths.get(roomId);
+        return path != null || offHeapBuildings.isEmpty() ? path : findOffHeapRoomPath(roomId);
+    }
+
+    private LocationPath findOffHeapRoomPath(int roomId) {
+        for (MappedBuilding building : offHeapBuildings.values()) {
+            Level level = building.findLevelOfRoom(roomId);
+            if (level != null && findRoom(building.getId(), level.getId(), roomId) != null) {
+                return LocationPath.ofRoom(building.getId(), level.getId(), roomId);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wyszukuje poziom po identyfikatorze w calym portfelu budynkow.
+     *
+     * @param levelId identyfikator poziomu
+     * @return poziom lub {@code null}, jesli nie istnieje
+     */
+    public Level findLevel(int levelId) {
+        LocationPath path = levelPaths.get(levelId);
+        return path == null ? null : findLevel(path.getBuildingId(), levelId);
+    }
+
+    /**
+     * Wyszukuje poziom w budynku.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @return poziom lub {@code null}, jesli poziom nie istnieje w podanym budynku
+     */
+    public Level findLevel(int buildingId, int levelId) {
+        BuildingSnapshot snapshot = snapshots.get(buildingId);
+        return snapshot == null ? null : snapshot.findLevel(levelId);
+    }
+
+    /**
+     * Wyszukuje pomieszczenie po identyfikatorze w calym portfelu budynkow.
+     *
+     * @param roomId identyfikator pomieszczenia
+     * @return pomieszczenie lub {@code null}, jesli nie istnieje
+     */
+    public Room findRoom(int roomId) {
+        LocationPath path = findRoomPath(roomId);
+        return path == null ? null : findRoom(path.getBuildingId(), path.getLevelId(), roomId);
+    }
+
+    /**
+     * Wyszukuje pomieszczenie na poziomie budynku.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @param roomId identyfikator pomieszczenia
+     * @return pomieszczenie lub {@code null}, jesli nie istnieje na podanym poziomie budynku
+     */
+    public Room findRoom(int buildingId, int levelId, int roomId) {
+        BuildingSnapshot snapshot = snapshots.get(buildingId);
+        return snapshot == null ? null : snapshot.findRoom(levelId, roomId);
+    }
+
+    /**
+     * Dodaje budynek wraz z jego poziomami i pomieszczeniami. Budynek zostaje zamrozony.
+     *
+     * @param building dodawany budynek
+     * @return {@code false}, jesli budynek o tym identyfikatorze juz istnieje
+     * @throws IllegalArgumentException jesli budynek zawiera identyfikatory poziomow lub pomieszczen, ktore juz istnieja
+     */
+    public boolean addBuilding(Building building) {
+        int buildingId = building.getId();
+        return write(buildingId, () -> {
+            if (snapshots.containsKey(buildingId)) {
+                return false;
+            }
+            BuildingSnapshot snapshot = BuildingSnapshot.of(building);
+            MappedBuilding offHeap = building instanceof MappedBuilding ? (MappedBuilding) building : null;
+            for (Level level : building.getLevelsInBuilding()) {
+                if (level instanceof MappedLevel) {
+                    offHeap = ((MappedLevel) level).owner();
+                }
+            }
+            MappedBuilding mapped = offHeap;
+            IndexUpdate update = new IndexUpdate(buildingId);
+            update.claimLevels(building.getLevelsInBuilding());
+            commit(update, WalRecord.of(Operation.ADD_BUILDING, buildingId, 0, 0, building), () -> {
+                if (mapped != null) {
+                    offHeapBuildings.put(buildingId, mapped);
+                }
+                publish(buildingId, snapshot);
+                buildingOrder.add(buildingId);
+            });
+            return true;
+        });
+    }
+
+    /**
+     * Dodaje poziom do budynku. Poziom zostaje zamrozony.
+     *
+     * @param buildingId identyfikator budynku
+     * @param level dodawany poziom
+     * @return {@code false}, jesli poziom o tym identyfikatorze juz istnieje
+     * @throws IllegalArgumentException jesli budynek nie istnieje lub poziom zawiera istniejace pomieszczenia
+     */
+    public boolean addLevel(int buildingId, Level level) {
+        return write(buildingId, () -> {
+            BuildingSnapshot snapshot = requireSnapshot(buildingId);
+            if (levelPaths.containsKey(level.getId())) {
+                return false;
+            }
+            BuildingSnapshot next = snapshot.withLevelAdded(level);
+            IndexUpdate update = new IndexUpdate(buildingId);
+            update.claimLevel(level);
+            commit(buildingId, next, update, WalRecord.of(Operation.ADD_LEVEL, buildingId, level.getId(), 0, level));
+            return true;
+        });
+    }
+
+    /**
+     * Dodaje pomieszczenie do poziomu. Pomieszczenie zostaje zamrozone.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @param room dodawane pomieszczenie
+     * @return {@code false}, jesli pomieszczenie o tym identyfikatorze juz istnieje
+     * @throws IllegalArgumentException jesli budynek lub poziom nie istnieje
+     */
+    public boolean addRoom(int buildingId, int levelId, Room room) {
+        return write(buildingId, () -> {
+            BuildingSnapshot snapshot = requireLevel(buildingId, levelId);
+            if (findRoomPath(room.getId()) != null) {
+                return false;
+            }
+            BuildingSnapshot next = snapshot.withRoomAdded(levelId, room);
+            IndexUpdate update = new IndexUpdate(buildingId);
+            update.claimRoom(levelId, room);
+            commit(buildingId, next, update, WalRecord.of(Operation.ADD_ROOM, buildingId, levelId, room.getId(), room));
+            return true;
+        });
+    }
+
+    /**
+     * Dodaje wiele pomieszczen do poziomow budynku pod jedna blokada. Pomieszczenia zostaja zamrozone.
+     *
+     * Pomieszczenia na nieistniejacych poziomach oraz pomieszczenia o identyfikatorach, ktore juz
+     * istnieja lub powtarzaja sie w dodawanej grupie, sa odrzucane, a pozostale dodawane. Kazdy
+     * poziom jest kopiowany jeden raz dla calej grupy, a wpisy dziennika zapisow calej grupy sa
+     * dopisywane i utrwalane razem. Jesli grupa nie moze zostac dodana, zadne pomieszczenie
+     * nie zostaje dodane, a zajete identyfikatory sa zwalniane.
+     *
+     * @param buildingId identyfikator budynku
+     * @param roomsByLevel dodawane pomieszczenia pogrupowane wedlug identyfikatorow poziomow
+     * @return odrzucone pomieszczenia wraz z przyczynami odrzucenia
+     * @throws IllegalArgumentException jesli budynek nie istnieje
+     */
+    public List<RejectedRoom> addRooms(int buildingId, Map<Integer, List<Room>> roomsByLevel) {
+        return write(buildingId, () -> {
+            BuildingSnapshot snapshot = requireSnapshot(buildingId);
+            List<RejectedRoom> rejected = new ArrayList<>();
+            List<WalRecord> records = new ArrayList<>();
+            IndexUpdate update = new IndexUpdate(buildingId);
+            try {
+                Map<Integer, List<Room>> acceptedByLevel = new LinkedHashMap<>();
+                for (Map.Entry<Integer, List<Room>> entry : roomsByLevel.entrySet()) {
+                    int levelId = entry.getKey();
+                    if (snapshot.findLevel(levelId) == null) {
+                        for (Room room : entry.getValue()) {
+                            rejected.add(new RejectedRoom(room, "level with ID: " + levelId + " not found in building " + buildingId));
+                        }
+                        continue;
+                    }
+                    List<Room> accepted = new ArrayList<>(entry.getValue().size());
+                    for (Room room : entry.getValue()) {
+                        if (update.tryClaimRoom(levelId, room)) {
+                            accepted.add(room);
+                        } else {
+                            rejected.add(new RejectedRoom(room, "room ID already exists"));
+                        }
+                    }
+                    if (!accepted.isEmpty()) {
+                        acceptedByLevel.put(levelId, accepted);
+                    }
+                }
+                for (Map.Entry<Integer, List<Room>> entry : acceptedByLevel.entrySet()) {
+                    int levelId = entry.getKey();
+                    snapshot = snapshot.withRoomsAdded(levelId, entry.getValue());
+                    for (Room room : entry.getValue()) {
+                        records.add(WalRecord.of(Operation.ADD_ROOM, buildingId, levelId, room.getId(), room));
+                    }
+                }
+            } catch (RuntimeException e) {
+                update.rollback();
+                throw e;
+            }
+            if (records.isEmpty()) {
+                return rejected;
+            }
+            BuildingSnapshot next = snapshot;
+            commit(update, records, () -> publish(buildingId, next));
+            return rejected;
+        });
+    }
+
+    /**
+     * Pomieszczenie odrzucone przez {@link #addRooms(int, Map)}.
+     */
+    public static final class RejectedRoom {
+        private final Room room;
+        private final String reason;
+
+        RejectedRoom(Room room, String reason) {
+            this.room = room;
+            this.reason = reason;
+        }
+
+        public Room getRoom() {
+            return room;
+        }
+
+        /**
+         * @return przyczyna odrzucenia, np. brak poziomu lub zajety identyfikator pomieszczenia
+         */
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    /**
+     * Tworzy nowa wersje budynku z nowa nazwa i lista poziomow.
+     *
+     * @param buildingId identyfikator budynku
+     * @param updated zaktualizowane dane budynku
+     * @return nowa wersja budynku
+     * @throws IllegalArgumentException jesli budynek nie istnieje lub lista poziomow zawiera zajete identyfikatory
+     */
+    public Building updateBuilding(int buildingId, Building updated) {
+        return updateBuilding(buildingId, updated, ANY_VERSION);
+    }
+
+    /**
+     * Tworzy nowa wersje budynku z nowa nazwa i lista poziomow, jesli budynek ma oczekiwana wersje.
+     *
+     * @param buildingId identyfikator budynku
+     * @param updated zaktualizowane dane budynku
+     * @param expectedVersion oczekiwana wersja budynku lub {@link #ANY_VERSION}
+     * @return nowa wersja budynku
+     * @throws IllegalArgumentException jesli budynek nie istnieje lub lista poziomow zawiera zajete identyfikatory
+     * @throws VersionConflictException jesli budynek ma inna wersje niz oczekiwana
+     */
+    public Building updateBuilding(int buildingId, Building updated, long expectedVersion) {
+        return write(buildingId, () -> {
+            BuildingSnapshot snapshot = requireSnapshot(buildingId);
+            checkVersion(buildingId, snapshot.getBuilding().getVersion(), expectedVersion);
+            BuildingSnapshot next = snapshot.withContent(updated.getName(), updated.getLevelsInBuilding());
+            IndexUpdate update = new IndexUpdate(buildingId);
+            update.releasingLevels(snapshot.getBuilding().getLevelsInBuilding());
+            update.claimLevels(next.getBuilding().getLevelsInBuilding());
+            commit(buildingId, next, update, WalRecord.of(Operation.UPDATE_BUILDING, buildingId, 0, 0, next.getBuilding()));
+            return next.getBuilding();
+        });
+    }
+
+    /**
+     * Tworzy nowa wersje poziomu z nowa nazwa i lista pomieszczen.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @param updated zaktualizowane dane poziomu
+     * @return nowa wersja poziomu
+     * @throws IllegalArgumentException jesli poziom nie istnieje lub lista pomieszczen zawiera zajete identyfikatory
+     */
+    public Level updateLevel(int buildingId, int levelId, Level updated) {
+        return updateLevel(buildingId, levelId, updated, ANY_VERSION);
+    }
+
+    /**
+     * Tworzy nowa wersje poziomu z nowa nazwa i lista pomieszczen, jesli poziom ma oczekiwana wersje.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @param updated zaktualizowane dane poziomu
+     * @param expectedVersion oczekiwana wersja poziomu lub {@link #ANY_VERSION}
+     * @return nowa wersja poziomu
+     * @throws IllegalArgumentException jesli poziom nie istnieje lub lista pomieszczen zawiera zajete identyfikatory
+     * @throws VersionConflictException jesli poziom ma inna wersje niz oczekiwana
+     */
+    public Level updateLevel(int buildingId, int levelId, Level updated, long expectedVersion) {
+        return write(buildingId, () -> {
+            BuildingSnapshot snapshot = requireLevel(buildingId, levelId);
+            checkVersion(levelId, snapshot.findLevel(levelId).getVersion(), expectedVersion);
+            Level level = new Level(levelId, updated.getName());
+            level.setRoomsOnLevel(new ArrayList<>(updated.getRoomsOnLevel()));
+            BuildingSnapshot next = snapshot.withLevelReplaced(level);
+            IndexUpdate update = new IndexUpdate(buildingId);
+            update.releasingRooms(snapshot.findLevel(levelId));
+            update.claimRooms(levelId, level.getRoomsOnLevel());
+            commit(buildingId, next, update, WalRecord.of(Operation.UPDATE_LEVEL, buildingId, levelId, 0, level));
+            return level;
+        });
+    }
+
+    /**
+     * Tworzy nowa wersje pomieszczenia z nowa nazwa, powierzchnia i kubatura.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @param roomId identyfikator pomieszczenia
+     * @param updated zaktualizowane dane pomieszczenia
+     * @return nowa wersja pomieszczenia
+     * @throws IllegalArgumentException jesli pomieszczenie nie istnieje
+     */
+    public Room updateRoom(int buildingId, int levelId, int roomId, Room updated) {
+        return updateRoom(buildingId, levelId, roomId, updated, ANY_VERSION);
+    }
+
+    /**
+     * Tworzy nowa wersje pomieszczenia z nowa nazwa, powierzchnia i kubatura, jesli pomieszczenie
+     * ma oczekiwana wersje.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @param roomId identyfikator pomieszczenia
+     * @param updated zaktualizowane dane pomieszczenia
+     * @param expectedVersion oczekiwana wersja pomieszczenia lub {@link #ANY_VERSION}
+     * @return nowa wersja pomieszczenia
+     * @throws IllegalArgumentException jesli pomieszczenie nie istnieje
+     * @throws VersionConflictException jesli pomieszczenie ma inna wersje niz oczekiwana
+     */
+    public Room updateRoom(int buildingId, int levelId, int roomId, Room updated, long expectedVersion) {
+        return write(buildingId, () -> {
+            BuildingSnapshot snapshot = requireSnapshot(buildingId);
+            Room room = snapshot.findRoom(levelId, roomId);
+            if (room == null) {
+                throw new IllegalArgumentException("Room with ID: " + roomId + " not found");
+            }
+            checkVersion(roomId, room.getVersion(), expectedVersion);
+            Room replacement = new Room(roomId, updated.getName(), updated.getArea(), updated.getCube(),
+                    room.getHeating(), room.getLight());
+            commit(buildingId, snapshot.withRoomReplaced(levelId, replacement), new IndexUpdate(buildingId),
+                    WalRecord.of(Operation.UPDATE_ROOM, buildingId, levelId, roomId, replacement));
+            return replacement;
+        });
+    }
+
+    /**
+     * Usuwa budynek.
+     *
+     * @param buildingId identyfikator budynku
+     * @return ostatnia wersja usunietego budynku lub {@code null}, jesli nie istnial
+     */
+    public Building removeBuilding(int buildingId) {
+        return write(buildingId, () -> {
+            BuildingSnapshot snapshot = snapshots.get(buildingId);
+            if (snapshot == null) {
+                return null;
+            }
+            IndexUpdate update = new IndexUpdate(buildingId);
+            update.releasingLevels(snapshot.getBuilding().getLevelsInBuilding());
+            commit(update, WalRecord.of(Operation.REMOVE_BUILDING, buildingId, 0, 0, null), () -> {
+                snapshots.remove(buildingId);
+                buildingOrder.remove(Integer.valueOf(buildingId));
+                offHeapBuildings.remove(buildingId);
+            });
+            return snapshot.getBuilding();
+        });
+    }
+
+    /**
+     * Usuwa poziom z budynku.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @return usuniety poziom lub {@code null}, jesli nie istnial
+     */
+    public Level removeLevel(int buildingId, int levelId) {
+        return write(buildingId, () -> {
+            BuildingSnapshot snapshot = snapshots.get(buildingId);
+            Level level = snapshot == null ? null : snapshot.findLevel(levelId);
+            if (level == null) {
+                return null;
+            }
+            IndexUpdate update = new IndexUpdate(buildingId);
+            update.releasingLevels(Collections.singletonList(level));
+            commit(buildingId, snapshot.withLevelRemoved(levelId), update,
+                    WalRecord.of(Operation.REMOVE_LEVEL, buildingId, levelId, 0, null));
+            return level;
+        });
+    }
+
+    /**
+     * Usuwa pomieszczenie z poziomu.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @param roomId identyfikator pomieszczenia
+     * @return usuniete pomieszczenie lub {@code null}, jesli nie istnialo
+     */
+    public Room removeRoom(int buildingId, int levelId, int roomId) {
+        return write(buildingId, () -> {
+            BuildingSnapshot snapshot = snapshots.get(buildingId);
+            Room room = snapshot == null ? null : snapshot.findRoom(levelId, roomId);
+            if (room == null) {
+                return null;
+            }
+            IndexUpdate update = new IndexUpdate(buildingId);
+            update.releasingRoom(roomId);
+            commit(buildingId, snapshot.withRoomRemoved(levelId, roomId), update,
+                    WalRecord.of(Operation.REMOVE_ROOM, buildingId, levelId, roomId, null));
+            return room;
+        });
+    }
+
+    /**
+     * Odtwarza modyfikacje zapisane w dzienniku {@link WriteAheadLog} i rozpoczyna zapisywanie
+     * w nim kolejnych modyfikacji. Powinna zostac wywolana po zaladowaniu danych poczatkowych
+     * lub migawki.
+     *
+     * Kolejne wpisy dodajace pomieszczenia do tego samego budynku, np. zapisane przez import
+     * ({@link #addRooms(int, Map)}), sa stosowane razem, wiec kazdy poziom jest kopiowany
+     * raz dla calej serii, a nie raz na pomieszczenie.
+     *
+     * @param fromGeneration najstarsza generacja dziennika, ktorej wpisy nie sa objete migawka
+     * @return liczba odtworzonych modyfikacji
+     * @throws IOException jesli dziennik nie moze zostac odczytany
+     */
+    public int recover(long fromGeneration) throws IOException {
+        RoomReplay rooms = new RoomReplay();
+        return log.recover(fromGeneration, record -> {
+            if (!rooms.add(record)) {
+                rooms.flush();
+                apply(record);
+            }
+        }, rooms::flush);
+    }
+
+    /**
+     * Seria wpisow dziennika dodajacych pomieszczenia do jednego budynku, stosowana jednym wywolaniem
+     * {@link #addRooms(int, Map)}.
+     */
+    private final class RoomReplay {
+        private final Map<Integer, List<Room>> roomsByLevel = new LinkedHashMap<>();
+        private int buildingId;
+
+        boolean add(WalRecord record) {
+            if (record.getOperation() != Operation.ADD_ROOM) {
+                return false;
+            }
+            Room room;
+            try {
+                room = record.getLocation(Room.class);
+            } catch (IOException | RuntimeException e) {
+                return false;
+            }
+            if (!roomsByLevel.isEmpty() && record.getBuildingId() != buildingId) {
+                flush();
+            }
+            buildingId = record.getBuildingId();
+            roomsByLevel.computeIfAbsent(record.getLevelId(), levelId -> new ArrayList<>()).add(room);
+            return true;
+        }
+
+        void flush() {
+            if (roomsByLevel.isEmpty()) {
+                return;
+            }
+            try {
+                for (RejectedRoom rejected : addRooms(buildingId, roomsByLevel)) {
+                    logger.warn("Skipped write-ahead log record adding room {} to building {}: {}",
+                            rejected.getRoom().getId(), buildingId, rejected.getReason());
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Skipped write-ahead log records adding rooms to building {}: {}", buildingId, e.getMessage());
+            }
+            roomsByLevel.clear();
+        }
+    }
+
+    /**
+     * @return licznik zapisow zatwierdzonych od uruchomienia aplikacji; zapisy odrzucone, np. z powodu
+     *         zajetego identyfikatora lub konfliktu wersji, nie sa liczone
+     */
+    public long getModificationCount() {
+        return modifications.get();
+    }
+
+    /**
+     * Wstrzymuje wszystkie zapisy, rozpoczyna nowy segment dziennika zapisow i zwraca
+     * biezace wersje wszystkich budynkow. Zwrocony stan odpowiada dokladnie wpisom
+     * dziennika starszym niz zwrocona generacja.
+     *
+     * @return punkt kontrolny do zapisania w migawce
+     * @throws IOException jesli nie mozna rozpoczac nowego segmentu dziennika
+     */
+    public Checkpoint checkpoint() throws IOException {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            long modificationCount = modifications.get();
+            return new Checkpoint(log.rotate(), modificationCount, findAll());
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Spojny stan repozytorium wraz z generacja dziennika zapisow, od ktorej nalezy odtwarzac modyfikacje.
+     */
+    public static final class Checkpoint {
+        private final long walGeneration;
+        private final long modificationCount;
+        private final List<Building> buildings;
+
+        Checkpoint(long walGeneration, long modificationCount, List<Building> buildings) {
+            this.walGeneration = walGeneration;
+            this.modificationCount = modificationCount;
+            this.buildings = buildings;
+        }
+
+        public long getWalGeneration() {
+            return walGeneration;
+        }
+
+        public long getModificationCount() {
+            return modificationCount;
+        }
+
+        public List<Building> getBuildings() {
+            return buildings;
+        }
+    }
+
+    private void apply(WalRecord record) {
+        int b = record.getBuildingId();
+        int l = record.getLevelId();
+        int r = record.getRoomId();
+        try {
+            switch (record.getOperation()) {
+                case ADD_BUILDING:
+                    addBuilding(record.getLocation(Building.class));
+                    break;
+                case UPDATE_BUILDING:
+                    updateBuilding(b, record.getLocation(Building.class));
+                    break;
+                case REMOVE_BUILDING:
+                    removeBuilding(b);
+                    break;
+                case ADD_LEVEL:
+                    addLevel(b, record.getLocation(Level.class));
+                    break;
+                case UPDATE_LEVEL:
+                    updateLevel(b, l, record.getLocation(Level.class));
+                    break;
+                case REMOVE_LEVEL:
+                    removeLevel(b, l);
+                    break;
+                case ADD_ROOM:
+                    addRoom(b, l, record.getLocation(Room.class));
+                    break;
+                case UPDATE_ROOM:
+                    updateRoom(b, l, r, record.getLocation(Room.class));
+                    break;
+                case REMOVE_ROOM:
+                    removeRoom(b, l, r);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation: " + record.getOperation());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Skipped write-ahead log record {}: {}", record, e.getMessage());
+        }
+    }
+
+    /**
+     * Wykonuje operacje zapisu pod blokada przypisana do budynku.
+     *
+     * Operacja utrwala swoje wpisy dziennika i publikuje nowy stan budynku pod blokada
+     * ({@link #commit(IndexUpdate, List, Runnable)}), wiec potwierdzenie zapisu oznacza, ze przetrwa
+     * on restart. Zapisy do budynkow chronionych roznymi blokadami sa utrwalane wspolnym {@code fsync}.
+     *
+     * @param buildingId identyfikator budynku
+     * @param action operacja zapisu
+     * @return wynik operacji
+     */
+    private <T> T write(int buildingId, Supplier<T> action) {
+        ReentrantLock lock = locks[(buildingId * 0x9E3779B9) >>> 26];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void commit(int buildingId, BuildingSnapshot next, IndexUpdate update, WalRecord record) {
+        commit(update, record, () -> publish(buildingId, next));
+    }
+
+    private void publish(int buildingId, BuildingSnapshot next) {
+        next.freeze();
+        snapshots.put(buildingId, next);
+    }
+
+    private void commit(IndexUpdate update, WalRecord record, Runnable publish) {
+        commit(update, Collections.singletonList(record), publish);
+    }
+
+    /**
+     * Dopisuje wpisy modyfikacji do dziennika i czeka na ich utrwalenie, a dopiero potem publikuje
+     * nowy stan budynku i zwalnia identyfikatory usunietych lokalizacji.
+     *
+     * Jesli dopisanie lub utrwalenie wpisow sie nie powiedzie, stan budynku sie nie zmienia,
+     * a identyfikatory zajete przez zmiane sa zwalniane. Blad zapisu trwale wylacza dziennik,
+     * wiec kolejne modyfikacje sa odrzucane, a repozytorium pozostaje dostepne tylko do odczytu.
+     *
+     * @param update zmiana globalnych indeksow
+     * @param records wpisy dziennika
+     * @param publish publikacja nowego stanu budynku
+     */
+    private void commit(IndexUpdate update, List<WalRecord> records, Runnable publish) {
+        try {
+            log.append(records);
+            log.sync();
+        } catch (RuntimeException e) {
+            update.rollback();
+            throw e;
+        }
+        publish.run();
+        update.release();
+        modifications.incrementAndGet();
+    }
+
+    private BuildingSnapshot requireSnapshot(int buildingId) {
+        BuildingSnapshot snapshot = snapshots.get(buildingId);
+        if (snapshot == null) {
+            throw new IllegalArgumentException("Building with ID: " + buildingId + " not found");
+        }
+        return snapshot;
+    }
+
+    private static void checkVersion(int id, long version, long expectedVersion) {
+        if (expectedVersion != ANY_VERSION && version != expectedVersion) {
+            throw new VersionConflictException("Location with ID: " + id + " has version " + version
+                    + ", expected " + expectedVersion, version);
+        }
+    }
+
+    private BuildingSnapshot requireLevel(int buildingId, int levelId) {
+        BuildingSnapshot snapshot = requireSnapshot(buildingId);
+        if (snapshot.findLevel(levelId) == null) {
+            throw new IllegalArgumentException("Level with ID: " + levelId + " not found");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Pojedyncza zmiana globalnych indeksow wykonywana pod blokada budynku.
+     *
+     * Identyfikatory sa rezerwowane atomowo w {@link IntObjectMap}, wiec dwa budynki
+     * modyfikowane rownolegle nie moga zajac tego samego identyfikatora. Identyfikatory
+     * zwalniane przez te sama zmiane moga zostac ponownie zajete. W razie konfliktu
+     * wszystkie dokonane rezerwacje sa wycofywane.
+     */
+    private final class IndexUpdate {
+
+        private final int buildingId;
+        private final IntObjectMap<LocationPath> releasedLevels = new IntObjectMap<>();
+        private final IntObjectMap<LocationPath> releasedRooms = new IntObjectMap<>();
+        private final IntObjectMap<Level> releasedOffHeapLevels = new IntObjectMap<>();
+        private final List<Runnable> undo = new ArrayList<>();
+
+        IndexUpdate(int buildingId) {
+            this.buildingId = buildingId;
+        }
+
+        void releasingLevels(List<Level> levels) {
+            for (Level level : levels) {
+                releasedLevels.put(level.getId(), levelPaths.get(level.getId()));
+                releasingRooms(level);
+            }
+        }
+
+        void releasingRooms(Level level) {
+            if (level.isOffHeap()) {
+                releasedOffHeapLevels.put(level.getId(), level);
+                return;
+            }
+            for (Room room : level.getRoomsOnLevel()) {
+                releasingRoom(room.getId());
+            }
+        }
+
+        void releasingRoom(int roomId) {
+            LocationPath path = findRoomPath(roomId);
+            if (path != null) {
+                releasedRooms.put(roomId, path);
+            }
+        }
+
+        void claimLevels(List<Level> levels) {
+            for (Level level : levels) {
+                claimLevel(level);
+            }
+        }
+
+        void claimLevel(Level level) {
+            claim(levelPaths, releasedLevels, level.getId(), LocationPath.ofLevel(buildingId, level.getId()), "Level");
+            if (!level.isOffHeap()) {
+                claimRooms(level.getId(), level.getRoomsOnLevel());
+                return;
+            }
+            RoomColumns columns = level.getRoomColumns();
+            for (int i = 0; i < columns.roomCount(); i++) {
+                int roomId = columns.roomId(i);
+                if (roomPaths.containsKey(roomId) || findOffHeapRoomPath(roomId) != null) {
+                    fail("Room", roomId);
+                }
+            }
+        }
+
+        void claimRooms(int levelId, List<Room> rooms) {
+            for (Room room : rooms) {
+                claimRoom(levelId, room);
+            }
+        }
+
+        void claimRoom(int levelId, Room room) {
+            LocationPath owner = offHeapBuildings.isEmpty() ? null : findOffHeapRoomPath(room.getId());
+            if (owner != null && !releasedRooms.containsKey(room.getId()) && (owner.getBuildingId() != buildingId
+                    || !releasedOffHeapLevels.containsKey(owner.getLevelId()))) {
+                fail("Room", room.getId());
+            }
+            claim(roomPaths, releasedRooms, room.getId(), LocationPath.ofRoom(buildingId, levelId, room.getId()), "Room");
+        }
+
+        /**
+         * Zajmuje identyfikator dodawanego pomieszczenia bez wycofywania innych rezerwacji w razie konfliktu.
+         *
+         * @return {@code false}, jesli identyfikator jest juz zajety
+         */
+        boolean tryClaimRoom(int levelId, Room room) {
+            if (!offHeapBuildings.isEmpty() && findOffHeapRoomPath(room.getId()) != null) {
+                return false;
+            }
+            LocationPath path = LocationPath.ofRoom(buildingId, levelId, room.getId());
+            if (roomPaths.putIfAbsent(room.getId(), path) != null) {
+                return false;
+            }
+            undo.add(() -> roomPaths.remove(room.getId(), path));
+            return true;
+        }
+
+        private void claim(IntObjectMap<LocationPath> index, IntObjectMap<LocationPath> released, int id, LocationPath path, String type) {
+            LocationPath current = index.putIfAbsent(id, path);
+            if (current == null) {
+                undo.add(() -> index.remove(id, path));
+                return;
+            }
+            if (current == released.get(id) && index.replace(id, current, path)) {
+                released.remove(id);
+                undo.add(() -> {
+                    index.replace(id, path, current);
+                    released.put(id, current);
+                });
+                return;
+            }
+            fail(type, id);
+        }
+
+        private void fail(String type, int id) {
+            rollback();
+            throw new IllegalArgumentException(type + " with ID: " + id + " already exists");
+        }
+
+        /**
+         * Wycofuje wszystkie rezerwacje identyfikatorow dokonane przez zmiane.
+         */
+        void rollback() {
+            for (int i = undo.size() - 1; i >= 0; i--) {
+                undo.get(i).run();
+            }
+            undo.clear();
+        }
+
+        /**
+         * Usuwa z indeksow identyfikatory zwolnione przez zmiane i niezajete ponownie.
+         */
+        void release() {
+            for (LocationPath path : releasedLevels.values()) {
+                levelPaths.remove(path.getLevelId(), path);
+            }
+            for (LocationPath path : releasedRooms.values()) {
+                roomPaths.remove(path.getRoomId(), path);
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package pl.put.poznan.buildingInfo.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.storage.MappedLevel;
+
+/**
+ * Niezmienna wersja budynku wraz z indeksami jego poziomow i pomieszczen.
+ *
+ * Budynek, jego poziomy i pomieszczenia sa zamrazane ({@link Building#freeze()}) przy publikacji
+ * migawki w repozytorium, wiec opublikowana migawka moze byc odczytywana przez dowolna liczbe watkow bez blokad, a dlugo
+ * trwajace obliczenia zawsze widza spojna wersje budynku. Kazda modyfikacja tworzy
+ * nowa migawke, kopiujac jedynie zmieniona sciezke: nowy budynek, zmieniony poziom
+ * i zmienione pomieszczenie. Pozostale poziomy i pomieszczenia sa wspoldzielone
+ * z poprzednia wersja.
+ */
+public final class BuildingSnapshot {
+
+    /**
+     * Poziom wraz z indeksem jego pomieszczen. Poziomy przechowywane poza sterta
+     * ({@link MappedLevel}) nie maja indeksu na stercie i korzystaja z indeksu pliku.
+     */
+    private static final class LevelEntry {
+        final Level level;
+        final IntObjectMap<Room> rooms;
+
+        LevelEntry(Level level, IntObjectMap<Room> rooms) {
+            this.level = level;
+            this.rooms = rooms;
+        }
+    }
+
+    private final Building building;
+    private final IntObjectMap<LevelEntry> levels;
+    private final long version;
+
+    private BuildingSnapshot(Building building, IntObjectMap<LevelEntry> levels, long version) {
+        this.building = building;
+        this.levels = levels;
+        this.version = version;
+    }
+
+    /**
+     * Tworzy pierwsza wersje migawki budynku.
+     *
+     * @param building budynek
+     * @return migawka budynku
+     * @throws IllegalArgumentException jesli budynek zawiera zduplikowane identyfikatory poziomow lub pomieszczen
+     */
+    public static BuildingSnapshot of(Building building) {
+        return of(building, 1);
+    }
+
+    private static BuildingSnapshot of(Building building, long version) {
+        IntObjectMap<LevelEntry> levels = new IntObjectMap<>(building.getLevelsInBuilding().size());
+        IntObjectMap<Room> seenRooms = new IntObjectMap<>();
+        for (Level level : building.getLevelsInBuilding()) {
+            LevelEntry entry = index(level);
+            if (levels.put(level.getId(), entry) != null) {
+                throw new IllegalArgumentException("Duplicate level ID: " + level.getId());
+            }
+            if (level.isOffHeap()) {
+                continue;
+            }
+            for (Room room : level.getRoomsOnLevel()) {
+                if (seenRooms.put(room.getId(), room) != null) {
+                    throw new IllegalArgumentException("Duplicate room ID: " + room.getId());
+                }
+            }
+        }
+        return new BuildingSnapshot(building, levels, version);
+    }
+
+    private static LevelEntry index(Level level) {
+        if (level.isOffHeap()) {
+            return new LevelEntry(level, null);
+        }
+        IntObjectMap<Room> rooms = new IntObjectMap<>(level.getRoomsOnLevel().size());
+        for (Room room : level.getRoomsOnLevel()) {
+            if (rooms.put(room.getId(), room) != null) {
+                throw new IllegalArgumentException("Duplicate room ID: " + room.getId());
+            }
+        }
+        return new LevelEntry(level, rooms);
+    }
+
+    /**
+     * Zamraza budynek migawki wraz z jego poziomami i pomieszczeniami.
+     *
+     * Repozytorium wywoluje te metode dopiero przy publikacji migawki, wiec odrzucona
+     * modyfikacja nie zamraza lokalizacji przekazanych w zadaniu.
+     */
+    void freeze() {
+        building.freeze();
+    }
+
+    /**
+     * @return budynek, zamrozony po opublikowaniu migawki
+     */
+    public Building getBuilding() {
+        return building;
+    }
+
+    /**
+     * @return numer wersji migawki, zwiekszany przy kazdej modyfikacji budynku
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Wyszukuje poziom w budynku.
+     *
+     * @param levelId identyfikator poziomu
+     * @return poziom lub {@code null}
+     */
+    public Level findLevel(int levelId) {
+        LevelEntry entry = levels.get(levelId);
+        return entry == null ? null : entry.level;
+    }
+
+    /**
+     * Wyszukuje pomieszczenie na poziomie budynku.
+     *
+     * @param levelId identyfikator poziomu
+     * @param roomId identyfikator pomieszczenia
+     * @return pomieszczenie lub {@code null}
+     */
+    public Room findRoom(int levelId, int roomId) {
+        LevelEntry entry = levels.get(levelId);
+        if (entry == null) {
+            return null;
+        }
+        return entry.rooms == null ? ((MappedLevel) entry.level).findRoom(roomId) : entry.rooms.get(roomId);
+    }
+
+    /**
+     * Tworzy nowa wersje budynku z podana nazwa i lista poziomow.
+     *
+     * @param name nazwa budynku
+     * @param levelsInBuilding poziomy budynku
+     * @return nowa migawka
+     */
+    public BuildingSnapshot withContent(String name, List<Level> levelsInBuilding) {
+        Building copy = new Building(building.getId(), name);
+        copy.setLevelsInBuilding(new ArrayList<>(levelsInBuilding));
+        return of(copy, version + 1);
+    }
+
+    /**
+     * Tworzy nowa wersje budynku z dodanym poziomem.
+     *
+     * @param level dodawany poziom
+     * @return nowa migawka
+     */
+    public BuildingSnapshot withLevelAdded(Level level) {
+        LevelEntry entry = index(level);
+        List<Level> copy = new ArrayList<>(building.getLevelsInBuilding());
+        copy.add(level);
+        IntObjectMap<LevelEntry> levelsCopy = levels.copy();
+        levelsCopy.put(level.getId(), entry);
+        return new BuildingSnapshot(copyBuilding(copy), levelsCopy, version + 1);
+    }
+
+    /**
+     * Tworzy nowa wersje budynku, w ktorej poziom o tym samym identyfikatorze zostal zastapiony.
+     *
+     * @param level nowa wersja poziomu
+     * @return nowa migawka
+     */
+    public BuildingSnapshot withLevelReplaced(Level level) {
+        Level old = findLevel(level.getId());
+        LevelEntry entry = index(level);
+        List<Level> copy = new ArrayList<>(building.getLevelsInBuilding());
+        copy.set(indexOf(copy, old), level);
+        IntObjectMap<LevelEntry> levelsCopy = levels.copy();
+        levelsCopy.put(level.getId(), entry);
+        return new BuildingSnapshot(copyBuilding(copy), levelsCopy, version + 1);
+    }
+
+    /**
+     * Tworzy nowa wersje budynku bez podanego poziomu.
+     *
+     * @param levelId identyfikator usuwanego poziomu
+     * @return nowa migawka
+     */
+    public BuildingSnapshot withLevelRemoved(int levelId) {
+        Level old = findLevel(levelId);
+        List<Level> copy = new ArrayList<>(building.getLevelsInBuilding());
+        copy.remove(indexOf(copy, old));
+        IntObjectMap<LevelEntry> levelsCopy = levels.copy();
+        levelsCopy.remove(levelId);
+        return new BuildingSnapshot(copyBuilding(copy), levelsCopy, version + 1);
+    }
+
+    /**
+     * Tworzy nowa wersje budynku z pomieszczeniem dodanym do poziomu.
+     *
+     * @param levelId identyfikator poziomu
+     * @param room dodawane pomieszczenie
+     * @return nowa migawka
+     */
+    public BuildingSnapshot withRoomAdded(int levelId, Room room) {
+        Level level = findLevel(levelId);
+        List<Room> rooms = new ArrayList<>(level.getRoomsOnLevel());
+        rooms.add(room);
+        return withLevelReplaced(copyLevel(level, rooms));
+    }
+
+    /**
+     * Tworzy nowa wersje budynku z wieloma pomieszczeniami dodanymi do poziomu, kopiujac poziom jeden raz.
+     *
+     * @param levelId identyfikator poziomu
+     * @param added dodawane pomieszczenia
+     * @return nowa migawka
+     */
+    public BuildingSnapshot withRoomsAdded(int levelId, List<Room> added) {
+        Level level = findLevel(levelId);
+        List<Room> rooms = new ArrayList<>(level.getRoomsOnLevel().size() + added.size());
+        rooms.addAll(level.getRoomsOnLevel());
+        rooms.addAll(added);
+        return withLevelReplaced(copyLevel(level, rooms));
+    }
+
+    /**
+     * Tworzy nowa wersje budynku, w ktorej pomieszczenie o tym samym identyfikatorze zostalo zastapione.
+     *
+     * @param levelId identyfikator poziomu
+     * @param room nowa wersja pomieszczenia
+     * @return nowa migawka
+     */
+    public BuildingSnapshot withRoomReplaced(int levelId, Room room) {
+        Level level = findLevel(levelId);
+        List<Room> rooms = new ArrayList<>(level.getRoomsOnLevel());
+        rooms.set(indexOfRoom(rooms, room.getId()), room);
+        return withLevelReplaced(copyLevel(level, rooms));
+    }
+
+    /**
+     * Tworzy nowa wersje budynku bez podanego pomieszczenia.
+     *
+     * @param levelId identyfikator poziomu
+     * @param roomId identyfikator usuwanego pomieszczenia
+     * @return nowa migawka
+     */
+    public BuildingSnapshot withRoomRemoved(int levelId, int roomId) {
+        Level level = findLevel(levelId);
+        List<Room> rooms = new ArrayList<>(level.getRoomsOnLevel());
+        rooms.remove(indexOfRoom(rooms, roomId));
+        return withLevelReplaced(copyLevel(level, rooms));
+    }
+
+    private Building copyBuilding(List<Level> levelsInBuilding) {
+        Building copy = new Building(building.getId(), building.getName());
+        copy.setLevelsInBuilding(levelsInBuilding);
+        return copy;
+    }
+
+    private static Level copyLevel(Level level, List<Room> rooms) {
+        Level copy = new Level(level.getId(), level.getName());
+        copy.setRoomsOnLevel(rooms);
+        return copy;
+    }
+
+    private static int indexOfRoom(List<Room> rooms, int roomId) {
+        for (int i = 0; i < rooms.size(); i++) {
+            if (rooms.get(i).getId() == roomId) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Room with ID: " + roomId + " is not part of this snapshot.");
+    }
+
+    private static <T> int indexOf(List<T> list, T element) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == element) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Location is not part of this snapshot.");
+    }
+}
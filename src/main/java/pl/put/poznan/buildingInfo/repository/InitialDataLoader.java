@@ -0,0 +1,219 @@
+package pl.put.poznan.buildingInfo.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.storage.BuildingJsonReader;
+import pl.put.poznan.buildingInfo.storage.MappedRoomStorage;
+
+/**
+ * Laduje poczatkowe dane budynkow do repozytorium, gdy nie istnieje jeszcze migawka.
+ *
+ * Jesli wlaczony jest magazyn poza sterta i zawiera juz pliki budynkow, sa one jedynie
+ * ponownie odwzorowywane w pamieci. W przeciwnym razie budynki sa wczytywane strumieniowo
+ * ({@link BuildingJsonReader}) ze wszystkich plikow {@code *.json} katalogu wskazanego przez
+ * wlasciwosc {@code building-info.data-dir} lub, jesli nie jest ustawiona, z zasobu
+ * {@code buildings.json}, i, przy wlaczonym magazynie, zapisywane do plikow odwzorowanych
+ * w pamieci. W trakcie ladowania okresowo raportowany jest postep i przepustowosc.
+ *
+ * Pliki katalogu danych sa wczytywane rownolegle, po jednym zadaniu na plik, w puli
+ * o ograniczonej liczbie watkow. Budynek o identyfikatorze wczytanym juz z innego pliku
+ * oraz budynek, ktorego poziomy lub pomieszczenia koliduja z juz wczytanymi, sa pomijane
+ * z ostrzezeniem wskazujacym oba pliki.
+ */
+@Component
+public class InitialDataLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(InitialDataLoader.class);
+
+    private static final String RESOURCE = "buildings.json";
+    private static final long PROGRESS_INTERVAL_NANOS = 5_000_000_000L;
+
+    private final BuildingRepository repository;
+    private final MappedRoomStorage mappedRoomStorage;
+    private final Path dataDirectory;
+    private final int threads;
+    private final Map<Integer, String> sources = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InitialDataLoader(BuildingRepository repository, MappedRoomStorage mappedRoomStorage,
+                             @Value("${building-info.data-dir:}") String dataDirectory,
+                             @Value("${building-info.data-loader-threads:0}") int threads) {
+        this.repository = repository;
+        this.mappedRoomStorage = mappedRoomStorage;
+        this.dataDirectory = dataDirectory.isEmpty() ? null : Paths.get(dataDirectory);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Laduje poczatkowe dane budynkow.
+     *
+     * @throws IOException jesli pliki magazynu poza sterta nie moga zostac odczytane
+     */
+    public void load() throws IOException {
+        List<Building> mapped = mappedRoomStorage.openAll();
+        if (!mapped.isEmpty()) {
+            for (Building building : mapped) {
+                repository.addBuilding(building);
+            }
+            logger.info("Remapped {} buildings from off-heap storage.", repository.count());
+            return;
+        }
+
+        if (dataDirectory != null) {
+            loadDirectory();
+            return;
+        }
+        InputStream input = getClass().getClassLoader().getResourceAsStream(RESOURCE);
+        if (input == null) {
+            logger.warn("File not found: {}", RESOURCE);
+            return;
+        }
+        load(input, RESOURCE);
+    }
+
+    private void loadDirectory() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dataDirectory, "*.json")) {
+            for (Path file : entries) {
+                files.add(file);
+            }
+        }
+        files.sort(Comparator.naturalOrder());
+        if (files.isEmpty()) {
+            logger.warn("No JSON files found in data directory {}", dataDirectory);
+            return;
+        }
+
+        long start = System.nanoTime();
+        int poolSize = Math.min(threads, files.size());
+        ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+        try {
+            List<Future<Integer>> results = new ArrayList<>(files.size());
+            for (Path file : files) {
+                results.add(pool.submit(() -> load(Files.newInputStream(file), file.getFileName().toString())));
+            }
+            int added = 0;
+            for (Future<Integer> result : results) {
+                added += result.get();
+            }
+            logger.info("Loaded {} buildings from {} files in {} ms using {} threads.", added, files.size(),
+                    (System.nanoTime() - start) / 1_000_000, poolSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading data directory " + dataDirectory, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to load data directory " + dataDirectory, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Wczytuje strumieniowo tablice budynkow w formacie JSON i dodaje je do repozytorium.
+     *
+     * Budynki, ktore juz istnieja lub koliduja z istniejacymi lokalizacjami, sa pomijane.
+     * Blad skladni konczy ladowanie dokumentu; budynki wczytane wczesniej pozostaja w repozytorium.
+     *
+     * @param input strumien z tablica budynkow; jest zamykany po wczytaniu
+     * @param source nazwa zrodla uzywana w komunikatach
+     * @return liczba dodanych budynkow
+     */
+    public int load(InputStream input, String source) {
+        long start = System.nanoTime();
+        long lastReport = start;
+        int added = 0;
+        try (BuildingJsonReader reader = new BuildingJsonReader(input)) {
+            try {
+                Building building;
+                while ((building = reader.next()) != null) {
+                    if (add(building, source)) {
+                        added++;
+                    }
+                    long now = System.nanoTime();
+                    if (now - lastReport >= PROGRESS_INTERVAL_NANOS) {
+                        lastReport = now;
+                        logProgress("Loading", source, reader, now - start);
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Failed to load buildings from {} at {}: {}", source, reader.getLocation(), e.getMessage());
+            }
+            logProgress("Loaded", source, reader, System.nanoTime() - start);
+        } catch (IOException e) {
+            logger.error("Failed to read buildings from {}", source, e);
+        }
+        return added;
+    }
+
+    private boolean add(Building building, String source) throws IOException {
+        int buildingId = building.getId();
+        String previous = sources.putIfAbsent(buildingId, source);
+        if (previous != null) {
+            logger.warn("Skipped duplicate building {} from {}, already loaded from {}", buildingId, source, previous);
+            return false;
+        }
+        try {
+            if (repository.findBuilding(buildingId) == null && mappedRoomStorage.isEnabled()) {
+                building = mappedRoomStorage.store(building);
+            }
+            if (!repository.addBuilding(building)) {
+                sources.remove(buildingId, source);
+                logger.warn("Skipped duplicate building {} from {}", buildingId, source);
+                return false;
+            }
+        } catch (IllegalArgumentException e) {
+            sources.remove(buildingId, source);
+            logger.warn("Skipped building {} from {}: {}{}", buildingId, source, e.getMessage(), conflictSource(building));
+            return false;
+        }
+        logger.debug("Added building: {} with {} levels.", building.getId(), building.getLevelsInBuilding().size());
+        return true;
+    }
+
+    /**
+     * Wskazuje plik, z ktorego wczytano budynek zawierajacy lokalizacje kolidujaca z podanym budynkiem.
+     */
+    private String conflictSource(Building building) {
+        for (Level level : building.getLevelsInBuilding()) {
+            LocationPath path = repository.findLevelPath(level.getId());
+            for (int r = 0; path == null && r < level.getRoomsOnLevel().size(); r++) {
+                path = repository.findRoomPath(level.getRoomsOnLevel().get(r).getId());
+            }
+            if (path != null && path.getBuildingId() != building.getId()) {
+                String source = sources.get(path.getBuildingId());
+                return " (conflicts with building " + path.getBuildingId() + (source != null ? " from " + source : "") + ")";
+            }
+        }
+        return "";
+    }
+
+    private static void logProgress(String stage, String source, BuildingJsonReader reader, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        double megabytes = reader.getBytesRead() / (1024.0 * 1024.0);
+        logger.info(String.format("%s %s: %d buildings, %d rooms, %.1f MB in %.1f s (%.1f MB/s, %.0f rooms/s)",
+                stage, source, reader.getBuildingsRead(), reader.getRoomsRead(), megabytes, seconds,
+                megabytes / seconds, reader.getRoomsRead() / seconds));
+    }
+}
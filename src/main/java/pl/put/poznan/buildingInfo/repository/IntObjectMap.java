@@ -0,0 +1,278 @@
+package pl.put.poznan.buildingInfo.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tablica mieszajaca indeksowana prymitywnym kluczem typu int.
+ *
+ * W odroznieniu od {@code HashMap<Integer, V>} nie opakowuje kluczy w obiekty
+ * {@link Integer}, dzieki czemu wyszukiwanie po identyfikatorze lokalizacji nie
+ * alokuje pamieci. Kolizje sa rozwiazywane przez listy wezlow, ktorych pole
+ * {@code next} nie jest nigdy modyfikowane po utworzeniu wezla.
+ *
+ * Odczyty nie wymagaja blokad: kubelki sa publikowane przez {@link AtomicReferenceArray},
+ * a usuniecie wezla odtwarza poprzedzajaca go czesc listy zamiast ja modyfikowac,
+ * wiec czytelnik zawsze przechodzi po spojnej liscie. Zapisy sa serializowane
+ * na monitorze mapy.
+ *
+ * @param <V> typ przechowywanych wartosci
+ */
+public class IntObjectMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Wezel listy kolizji.
+     *
+     * @param <V> typ wartosci
+     */
+    static final class Node<V> {
+        final int key;
+        volatile V value;
+        final Node<V> next;
+
+        Node(int key, V value, Node<V> next) {
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private volatile AtomicReferenceArray<Node<V>> table;
+    private volatile int size;
+    private int threshold;
+
+    /**
+     * Tworzy pusta mape o domyslnej pojemnosci.
+     */
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Tworzy pusta mape zdolna pomiescic podana liczbe elementow bez powiekszania.
+     *
+     * @param expectedSize oczekiwana liczba elementow
+     */
+    public IntObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR) + 1) - 1) << 1;
+        this.table = new AtomicReferenceArray<>(capacity);
+        this.threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int indexFor(int key, int length) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (length - 1);
+    }
+
+    /**
+     * Zwraca wartosc przypisana do klucza.
+     *
+     * @param key klucz
+     * @return wartosc lub {@code null}, jesli klucz nie wystepuje
+     */
+    public V get(int key) {
+        AtomicReferenceArray<Node<V>> tab = table;
+        for (Node<V> node = tab.get(indexFor(key, tab.length())); node != null; node = node.next) {
+            if (node.key == key) {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sprawdza, czy mapa zawiera podany klucz.
+     *
+     * @param key klucz
+     * @return {@code true}, jesli klucz wystepuje w mapie
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Przypisuje wartosc do klucza.
+     *
+     * @param key klucz
+     * @param value wartosc, nie moze byc {@code null}
+     * @return poprzednia wartosc lub {@code null}
+     */
+    public synchronized V put(int key, V value) {
+        return put(key, value, false);
+    }
+
+    /**
+     * Przypisuje wartosc do klucza, jesli klucz nie wystepuje jeszcze w mapie.
+     *
+     * @param key klucz
+     * @param value wartosc, nie moze byc {@code null}
+     * @return dotychczasowa wartosc lub {@code null}, jesli wartosc zostala dodana
+     */
+    public synchronized V putIfAbsent(int key, V value) {
+        return put(key, value, true);
+    }
+
+    /**
+     * Zastepuje wartosc przypisana do klucza, jesli jest nia dokladnie oczekiwany obiekt.
+     *
+     * @param key klucz
+     * @param expected oczekiwana biezaca wartosc
+     * @param value nowa wartosc, nie moze byc {@code null}
+     * @return {@code true}, jesli wartosc zostala zastapiona
+     */
+    public synchronized boolean replace(int key, V expected, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported.");
+        }
+        AtomicReferenceArray<Node<V>> tab = table;
+        for (Node<V> node = tab.get(indexFor(key, tab.length())); node != null; node = node.next) {
+            if (node.key == key) {
+                if (node.value != expected) {
+                    return false;
+                }
+                node.value = value;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private V put(int key, V value, boolean onlyIfAbsent) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported.");
+        }
+        AtomicReferenceArray<Node<V>> tab = table;
+        int index = indexFor(key, tab.length());
+        Node<V> head = tab.get(index);
+        for (Node<V> node = head; node != null; node = node.next) {
+            if (node.key == key) {
+                V previous = node.value;
+                if (!onlyIfAbsent) {
+                    node.value = value;
+                }
+                return previous;
+            }
+        }
+        tab.set(index, new Node<>(key, value, head));
+        if (++size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * Usuwa klucz z mapy.
+     *
+     * @param key klucz
+     * @return usunieta wartosc lub {@code null}, jesli klucz nie wystepowal
+     */
+    public synchronized V remove(int key) {
+        return removeNode(key, null);
+    }
+
+    /**
+     * Usuwa klucz z mapy, jesli jest do niego przypisany dokladnie podany obiekt.
+     *
+     * @param key klucz
+     * @param expected oczekiwana biezaca wartosc
+     * @return {@code true}, jesli klucz zostal usuniety
+     */
+    public synchronized boolean remove(int key, V expected) {
+        if (expected == null) {
+            throw new IllegalArgumentException("Null values are not supported.");
+        }
+        return removeNode(key, expected) != null;
+    }
+
+    private V removeNode(int key, Object expected) {
+        AtomicReferenceArray<Node<V>> tab = table;
+        int index = indexFor(key, tab.length());
+        Node<V> head = tab.get(index);
+        for (Node<V> node = head; node != null; node = node.next) {
+            if (node.key == key) {
+                if (expected != null && node.value != expected) {
+                    return null;
+                }
+                Node<V> rebuilt = node.next;
+                for (Node<V> prefix = head; prefix != node; prefix = prefix.next) {
+                    rebuilt = new Node<>(prefix.key, prefix.value, rebuilt);
+                }
+                tab.set(index, rebuilt);
+                size--;
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Usuwa wszystkie elementy z mapy.
+     */
+    public synchronized void clear() {
+        table = new AtomicReferenceArray<>(table.length());
+        size = 0;
+    }
+
+    /**
+     * @return liczba elementow w mapie
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true}, jesli mapa jest pusta
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Zwraca kopie wszystkich wartosci przechowywanych w mapie, w nieokreslonej kolejnosci.
+     *
+     * @return lista wartosci
+     */
+    public List<V> values() {
+        AtomicReferenceArray<Node<V>> tab = table;
+        List<V> values = new ArrayList<>(size);
+        for (int i = 0; i < tab.length(); i++) {
+            for (Node<V> node = tab.get(i); node != null; node = node.next) {
+                values.add(node.value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Tworzy niezalezna kopie mapy.
+     *
+     * @return kopia mapy zawierajaca te same pary klucz-wartosc
+     */
+    public IntObjectMap<V> copy() {
+        AtomicReferenceArray<Node<V>> tab = table;
+        IntObjectMap<V> copy = new IntObjectMap<>(size + 1);
+        for (int i = 0; i < tab.length(); i++) {
+            for (Node<V> node = tab.get(i); node != null; node = node.next) {
+                copy.put(node.key, node.value);
+            }
+        }
+        return copy;
+    }
+
+    private void resize() {
+        AtomicReferenceArray<Node<V>> oldTable = table;
+        AtomicReferenceArray<Node<V>> newTable = new AtomicReferenceArray<>(oldTable.length() << 1);
+        for (int i = 0; i < oldTable.length(); i++) {
+            for (Node<V> node = oldTable.get(i); node != null; node = node.next) {
+                int index = indexFor(node.key, newTable.length());
+                newTable.set(index, new Node<>(node.key, node.value, newTable.get(index)));
+            }
+        }
+        table = newTable;
+        threshold = (int) (newTable.length() * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,65 @@
+package pl.put.poznan.buildingInfo.repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Niezmienna sciezka lokalizacji w hierarchii: identyfikatory budynku, poziomu
+ * i opcjonalnie pomieszczenia.
+ *
+ * Sciezki sa wartosciami globalnych indeksow poziomow i pomieszczen. Poniewaz
+ * identyfikatory lokalizacji nie zmieniaja sie przy tworzeniu nowych wersji budynku,
+ * sciezka pozostaje aktualna niezaleznie od tego, ktora migawka budynku jest biezaca.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class LocationPath {
+
+    private final int buildingId;
+    private final int levelId;
+    private final Integer roomId;
+
+    private LocationPath(int buildingId, int levelId, Integer roomId) {
+        this.buildingId = buildingId;
+        this.levelId = levelId;
+        this.roomId = roomId;
+    }
+
+    /**
+     * Tworzy sciezke poziomu.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @return sciezka poziomu
+     */
+    public static LocationPath ofLevel(int buildingId, int levelId) {
+        return new LocationPath(buildingId, levelId, null);
+    }
+
+    /**
+     * Tworzy sciezke pomieszczenia.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @param roomId identyfikator pomieszczenia
+     * @return sciezka pomieszczenia
+     */
+    public static LocationPath ofRoom(int buildingId, int levelId, int roomId) {
+        return new LocationPath(buildingId, levelId, roomId);
+    }
+
+    public int getBuildingId() {
+        return buildingId;
+    }
+
+    public int getLevelId() {
+        return levelId;
+    }
+
+    public Integer getRoomId() {
+        return roomId;
+    }
+
+    @Override
+    public String toString() {
+        return roomId == null ? buildingId + "/" + levelId : buildingId + "/" + levelId + "/" + roomId;
+    }
+}
@@ -0,0 +1,146 @@
+package pl.put.poznan.buildingInfo.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.storage.RoomNdjsonReader;
+
+/**
+ * Importuje strumien pomieszczen w formacie NDJSON ({@link RoomNdjsonReader}) do istniejacych poziomow.
+ *
+ * Pomieszczenia sa odczytywane strumieniowo i gromadzone w partiach o ograniczonym rozmiarze,
+ * a kazda partia jest dodawana do repozytorium jednym wywolaniem
+ * {@link BuildingRepository#addRooms(int, Map)} na budynek, czyli pod jedna blokada budynku
+ * i z jednym utrwaleniem dziennika zapisow. Pomieszczenia nieistniejacych budynkow i poziomow
+ * oraz pomieszczenia o zajetych identyfikatorach sa odrzucane, a import jest kontynuowany.
+ */
+@Component
+public class RoomImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomImporter.class);
+
+    /**
+     * Maksymalna liczba opisow odrzuconych pomieszczen w wyniku importu.
+     */
+    private static final int MAX_ERRORS = 100;
+
+    private final BuildingRepository repository;
+    private final int batchSize;
+
+    @Autowired
+    public RoomImporter(BuildingRepository repository,
+                        @Value("${building-info.import.batch-size:10000}") int batchSize) {
+        this.repository = repository;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    /**
+     * Importuje pomieszczenia ze strumienia.
+     *
+     * @param input strumien pomieszczen; jest zamykany po imporcie
+     * @return liczby dodanych i odrzuconych pomieszczen
+     * @throws IOException jesli strumien nie moze zostac odczytany lub zawiera niepoprawny wiersz;
+     *                     pomieszczenia z wczesniejszych partii pozostaja dodane
+     */
+    public Result importRooms(InputStream input) throws IOException {
+        long start = System.nanoTime();
+        Result result = new Result();
+        Map<Integer, Map<Integer, List<Room>>> batch = new LinkedHashMap<>();
+        int batched = 0;
+        try (RoomNdjsonReader reader = new RoomNdjsonReader(input)) {
+            Room room;
+            while ((room = reader.next()) != null) {
+                batch.computeIfAbsent(reader.getBuildingId(), buildingId -> new LinkedHashMap<>())
+                        .computeIfAbsent(reader.getLevelId(), levelId -> new ArrayList<>())
+                        .add(room);
+                if (++batched == batchSize) {
+                    apply(batch, result);
+                    batch.clear();
+                    batched = 0;
+                }
+            }
+            apply(batch, result);
+        } catch (IOException e) {
+            logger.warn("Room import stopped after {} accepted and {} rejected rooms: {}",
+                    result.accepted, result.rejected, e.getMessage());
+            throw e;
+        }
+        result.millis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Imported {} rooms ({} rejected) in {} ms, {} rooms/s", result.accepted, result.rejected,
+                result.millis, String.format("%.0f", result.getRoomsPerSecond()));
+        return result;
+    }
+
+    private void apply(Map<Integer, Map<Integer, List<Room>>> batch, Result result) {
+        for (Map.Entry<Integer, Map<Integer, List<Room>>> building : batch.entrySet()) {
+            int buildingId = building.getKey();
+            int count = 0;
+            for (List<Room> rooms : building.getValue().values()) {
+                count += rooms.size();
+            }
+            List<BuildingRepository.RejectedRoom> rejected;
+            try {
+                rejected = repository.addRooms(buildingId, building.getValue());
+            } catch (IllegalArgumentException e) {
+                result.reject(count, e.getMessage());
+                continue;
+            }
+            result.accepted += count - rejected.size();
+            for (BuildingRepository.RejectedRoom room : rejected) {
+                result.reject(1, "Room with ID: " + room.getRoom().getId() + " rejected: " + room.getReason());
+            }
+        }
+    }
+
+    /**
+     * Wynik importu pomieszczen.
+     */
+    public static final class Result {
+        private long accepted;
+        private long rejected;
+        private long millis;
+        private final List<String> errors = new ArrayList<>();
+
+        private void reject(long count, String error) {
+            rejected += count;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        public long getAccepted() {
+            return accepted;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return opisy pierwszych odrzuconych pomieszczen, najwyzej {@value RoomImporter#MAX_ERRORS}
+         */
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public double getRoomsPerSecond() {
+            return (accepted + rejected) * 1000.0 / Math.max(millis, 1);
+        }
+    }
+}
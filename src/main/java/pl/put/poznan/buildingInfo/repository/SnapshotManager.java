@@ -0,0 +1,98 @@
+package pl.put.poznan.buildingInfo.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.storage.BinarySnapshot;
+import pl.put.poznan.buildingInfo.storage.WriteAheadLog;
+
+/**
+ * Zapisuje okresowo binarna migawke ({@link BinarySnapshot}) repozytorium budynkow
+ * i odtwarza ja przy starcie aplikacji.
+ *
+ * Po zapisaniu migawki segmenty dziennika zapisow objete migawka sa usuwane, wiec przy
+ * starcie odtwarzane sa jedynie modyfikacje wykonane po ostatnim punkcie kontrolnym.
+ * Migawka jest zapisywana tylko wtedy, gdy od poprzedniej repozytorium zostalo zmienione.
+ */
+@Component
+public class SnapshotManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotManager.class);
+
+    private final BuildingRepository repository;
+    private final WriteAheadLog log;
+    private final Path path;
+
+    private long savedModificationCount = -1;
+
+    @Autowired
+    public SnapshotManager(BuildingRepository repository, WriteAheadLog log,
+                           @Value("${building-info.storage.snapshot-file:}") String path) {
+        this.repository = repository;
+        this.log = log;
+        this.path = path.isEmpty() ? null : Paths.get(path).toAbsolutePath();
+    }
+
+    /**
+     * @return {@code true}, jesli migawki sa zapisywane
+     */
+    public boolean isEnabled() {
+        return path != null;
+    }
+
+    /**
+     * Laduje budynki z ostatniej migawki do repozytorium.
+     *
+     * @return najstarsza generacja dziennika zapisow, ktorej wpisy nie sa objete migawka,
+     * lub -1, jesli migawka nie istnieje
+     * @throws IOException jesli migawka jest uszkodzona lub nie moze zostac odczytana
+     */
+    public synchronized long restore() throws IOException {
+        if (!isEnabled() || !Files.exists(path)) {
+            return -1;
+        }
+        long start = System.nanoTime();
+        BinarySnapshot snapshot = BinarySnapshot.read(path);
+        for (Building building : snapshot.getBuildings()) {
+            repository.addBuilding(building);
+        }
+        savedModificationCount = repository.getModificationCount();
+        logger.info("Loaded snapshot of {} buildings ({} bytes) in {} ms.", repository.count(), snapshot.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return snapshot.getWalGeneration();
+    }
+
+    /**
+     * Zapisuje migawke biezacego stanu repozytorium, jesli zostal on zmieniony od poprzedniej
+     * migawki, i usuwa segmenty dziennika zapisow objete migawka.
+     */
+    @Scheduled(initialDelayString = "${building-info.storage.snapshot-interval-ms:300000}",
+            fixedDelayString = "${building-info.storage.snapshot-interval-ms:300000}")
+    public synchronized void checkpoint() {
+        if (!isEnabled() || repository.getModificationCount() == savedModificationCount) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            BuildingRepository.Checkpoint checkpoint = repository.checkpoint();
+            Files.createDirectories(path.getParent());
+            long size = BinarySnapshot.write(path, checkpoint.getWalGeneration(), checkpoint.getBuildings());
+            savedModificationCount = checkpoint.getModificationCount();
+            log.deleteSegmentsBefore(checkpoint.getWalGeneration());
+            logger.info("Wrote snapshot of {} buildings ({} bytes) in {} ms.", checkpoint.getBuildings().size(), size,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write the building snapshot", e);
+        }
+    }
+}
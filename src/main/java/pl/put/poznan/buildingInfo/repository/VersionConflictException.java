@@ -0,0 +1,24 @@
+package pl.put.poznan.buildingInfo.repository;
+
+/**
+ * Wyjatek zglaszany, gdy modyfikowana lokalizacja ma inna wersje niz oczekiwana
+ * ({@link pl.put.poznan.buildingInfo.logic.locations.Location#getVersion()}), czyli zostala
+ * zmieniona od czasu jej odczytania przez klienta.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private final long currentVersion;
+
+    /**
+     * @param message opis konfliktu
+     * @param currentVersion biezaca wersja lokalizacji
+     */
+    public VersionConflictException(String message, long currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
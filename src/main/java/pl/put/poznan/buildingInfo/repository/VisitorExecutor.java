@@ -0,0 +1,93 @@
+package pl.put.poznan.buildingInfo.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import pl.put.poznan.buildingInfo.logic.visitors.ParallelVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.Visitor;
+
+/**
+ * Wybiera sposob wykonania obliczen odwiedzajacych: sekwencyjny lub rownolegly ({@link ParallelVisitor}).
+ *
+ * Tryb rownolegly moze byc wlaczony globalnie wlasciwoscia {@code building-info.visitors.parallel}
+ * lub dla pojedynczego zadania, ktore moze tez go wylaczyc. Zadania sa wykonywane we wlasnej puli
+ * {@link ForkJoinPool}, aby dlugie obliczenia dla duzych budynkow nie zajmowaly wspolnej puli.
+ * W tej samej puli wykonywane sa obliczenia dla wielu budynkow naraz ({@link #map(List, Function)}).
+ */
+@Component
+public class VisitorExecutor {
+
+    private final boolean parallel;
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    public VisitorExecutor(@Value("${building-info.visitors.parallel:false}") boolean parallel,
+                           @Value("${building-info.visitors.parallel-threshold:50000}") int threshold,
+                           @Value("${building-info.visitors.parallel-threads:0}") int threads) {
+        this.parallel = parallel;
+        this.threshold = threshold;
+        this.pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Zwraca odwiedzajacego bez stanu wymagajacego laczenia, wykonujacego obliczenia w wybranym trybie.
+     *
+     * @param factory tworzy odwiedzajacego z parametrami obliczenia
+     * @param parallel tryb wybrany w zadaniu lub {@code null}, jesli obowiazuje tryb globalny
+     * @return odwiedzajacy sekwencyjny lub rownolegly
+     */
+    public <V extends Visitor> Visitor visitor(Supplier<V> factory, Boolean parallel) {
+        return visitor(factory.get(), factory, (target, other) -> { }, parallel);
+    }
+
+    /**
+     * Zwraca odwiedzajacego wykonujacego obliczenia w wybranym trybie, ktorego stan jest gromadzony
+     * w odwiedzajacym {@code target}.
+     *
+     * @param target odwiedzajacy, ktory po obliczeniu zawiera jego stan
+     * @param factory tworzy odwiedzajacych z tymi samymi parametrami co {@code target}
+     * @param merger dolacza stan drugiego odwiedzajacego do pierwszego
+     * @param parallel tryb wybrany w zadaniu lub {@code null}, jesli obowiazuje tryb globalny
+     * @return odwiedzajacy {@code target} lub odwiedzajacy rownolegly
+     */
+    public <V extends Visitor> Visitor visitor(V target, Supplier<V> factory, BiConsumer<V, V> merger, Boolean parallel) {
+        if (!(parallel != null ? parallel : this.parallel)) {
+            return target;
+        }
+        return new ParallelVisitor<>(target, factory, merger, threshold, pool);
+    }
+
+    /**
+     * Wykonuje obliczenie dla kazdego elementu listy rownolegle, po jednym zadaniu na element.
+     *
+     * @param items elementy, np. budynki
+     * @param computation obliczenie wykonywane dla elementu
+     * @return wyniki w kolejnosci elementow
+     */
+    public <T, R> List<R> map(List<T> items, Function<T, R> computation) {
+        List<ForkJoinTask<R>> tasks = new ArrayList<>(items.size());
+        for (T item : items) {
+            tasks.add(pool.submit(() -> computation.apply(item)));
+        }
+        List<R> results = new ArrayList<>(items.size());
+        for (ForkJoinTask<R> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,120 @@
+package pl.put.poznan.buildingInfo.repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import pl.put.poznan.buildingInfo.logic.locations.Location;
+
+/**
+ * Pamiec podreczna wynikow obliczen odwiedzajacych, ograniczona liczba wpisow i usuwajaca
+ * najdawniej uzywane wpisy (LRU).
+ *
+ * Kluczem wpisu jest wersja lokalizacji ({@link Location#getVersion()}), unikalna dla kazdej
+ * zamrozonej lokalizacji, rodzaj obliczenia oraz jego parametr. Zmiana pomieszczenia nadaje
+ * nowe wersje jedynie pomieszczeniu, jego poziomowi i budynkowi, wiec wyniki dla pozostalych
+ * poziomow budynku pozostaja aktualne, a wpisy dla nieaktualnych wersji sa z czasem usuwane
+ * jako najdawniej uzywane.
+ *
+ * Wyniki dla lokalizacji, ktore nie sa zamrozone, nie sa zapamietywane.
+ */
+@Component
+public class VisitorResultCache {
+
+    private final int maxSize;
+    private final Map<Key, Object> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public VisitorResultCache(@Value("${building-info.cache.visitor-results.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                return size() > VisitorResultCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Zwraca zapamietany wynik obliczenia lub oblicza go i zapamietuje.
+     *
+     * @param location lokalizacja, dla ktorej wykonywane jest obliczenie
+     * @param operation rodzaj obliczenia, np. klasa odwiedzajacego
+     * @param parameter parametr obliczenia lub 0
+     * @param computation obliczenie wykonywane przy braku wyniku; wynik nie moze byc pozniej modyfikowany
+     * @return wynik obliczenia
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T compute(Location location, Class<?> operation, double parameter, Supplier<T> computation) {
+        long version = location.getVersion();
+        if (version == 0 || maxSize <= 0) {
+            return computation.get();
+        }
+        Key key = new Key(version, operation, parameter);
+        Object result;
+        synchronized (entries) {
+            result = entries.get(key);
+        }
+        if (result != null) {
+            hits.incrementAndGet();
+            return (T) result;
+        }
+        misses.incrementAndGet();
+        T computed = computation.get();
+        synchronized (entries) {
+            entries.put(key, computed);
+        }
+        return computed;
+    }
+
+    /**
+     * @return liczba wpisow w pamieci podrecznej
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static final class Key {
+        private final long version;
+        private final Class<?> operation;
+        private final double parameter;
+
+        Key(long version, Class<?> operation, double parameter) {
+            this.version = version;
+            this.operation = operation;
+            this.parameter = parameter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return version == other.version && operation == other.operation
+                    && Double.doubleToLongBits(parameter) == Double.doubleToLongBits(other.parameter);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Long.hashCode(version);
+            hash = 31 * hash + operation.hashCode();
+            return 31 * hash + Double.hashCode(parameter);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package pl.put.poznan.buildingInfo.rest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.EnergyDensityIndex;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Location;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.visitors.ExceedingHeatingVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.SummaryVisitor;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+import pl.put.poznan.buildingInfo.repository.BuildingSnapshot;
+import pl.put.poznan.buildingInfo.repository.VisitorExecutor;
+import pl.put.poznan.buildingInfo.repository.VisitorResultCache;
+
+/**
+ * Kontroler obliczajacy w jednym zadaniu parametry wielu lokalizacji ({@link BatchQuery}).
+ *
+ * Zapytania sa grupowane wedlug budynkow, a grupy obliczane rownolegle. Wszystkie zapytania
+ * dotyczace jednego budynku korzystaja z tej samej wersji budynku, a parametry kazdej
+ * lokalizacji sa obliczane jednym przejsciem ({@link SummaryVisitor}) wspolnym dla wszystkich
+ * zapytan o te lokalizacje. Blad pojedynczego zapytania nie przerywa obliczen dla pozostalych,
+ * lecz jest zwracany w jego wyniku wraz z kodem statusu.
+ */
+@RestController
+@RequestMapping(produces = {LocationMediaTypes.JSON, LocationMediaTypes.SMILE, LocationMediaTypes.CBOR})
+public class BatchController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchController.class);
+
+    private final BuildingRepository repository;
+    private final VisitorResultCache resultCache;
+    private final VisitorExecutor visitorExecutor;
+
+    @Autowired
+    public BatchController(BuildingRepository repository, VisitorResultCache resultCache, VisitorExecutor visitorExecutor) {
+        this.repository = repository;
+        this.resultCache = resultCache;
+        this.visitorExecutor = visitorExecutor;
+    }
+
+    /**
+     * Oblicza parametry lokalizacji dla listy zapytan.
+     *
+     * @param queries zapytania o parametry lokalizacji
+     * @return wyniki w kolejnosci zapytan; kazdy zawiera sciezke, nazwe parametru oraz wartosc
+     *         lub kod statusu i opis bledu
+     * @throws ResponseStatusException jeśli lista zapytan nie zostala podana
+     */
+    @RequestMapping(value = "/buildings/batch", method = RequestMethod.POST)
+    public List<Map<String, Object>> evaluate(@RequestBody List<BatchQuery> queries) {
+        if (queries == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch queries are required");
+        }
+        long start = System.nanoTime();
+        List<Map<String, Object>> results = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        int[][] paths = new int[queries.size()][];
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            BatchQuery query = queries.get(i) == null ? new BatchQuery() : queries.get(i);
+            try {
+                paths[i] = parsePath(query);
+                groups.computeIfAbsent(paths[i][0], buildingId -> new ArrayList<>()).add(i);
+            } catch (ResponseStatusException e) {
+                results.set(i, error(query, e));
+            }
+        }
+
+        List<List<Integer>> indices = new ArrayList<>(groups.values());
+        List<List<Map<String, Object>>> groupResults = visitorExecutor.map(indices,
+                group -> evaluateBuilding(group, queries, paths));
+        for (int g = 0; g < indices.size(); g++) {
+            for (int i = 0; i < indices.get(g).size(); i++) {
+                results.set(indices.get(g).get(i), groupResults.get(g).get(i));
+            }
+        }
+        logger.info("Evaluated {} batch queries for {} buildings in {} ms", queries.size(), groups.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return results;
+    }
+
+    private List<Map<String, Object>> evaluateBuilding(List<Integer> group, List<BatchQuery> queries, int[][] paths) {
+        int buildingId = paths[group.get(0)][0];
+        BuildingSnapshot snapshot = repository.findSnapshot(buildingId);
+        Map<Location, SummaryVisitor> summaries = new IdentityHashMap<>();
+        List<Map<String, Object>> results = new ArrayList<>(group.size());
+        for (int index : group) {
+            BatchQuery query = queries.get(index);
+            try {
+                if (snapshot == null) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Building with ID: " + buildingId + " not found");
+                }
+                Location location = resolve(snapshot, paths[index]);
+                Map<String, Object> result = result(query);
+                result.put("value", evaluate(location, query, summaries));
+                results.add(result);
+            } catch (ResponseStatusException e) {
+                results.add(error(query, e));
+            }
+        }
+        return results;
+    }
+
+    private Object evaluate(Location location, BatchQuery query, Map<Location, SummaryVisitor> summaries) {
+        String metric = query.getMetric() == null ? "" : query.getMetric();
+        switch (metric) {
+            case "area":
+                return summary(location, summaries).getArea();
+            case "cube":
+                return summary(location, summaries).getCube();
+            case "light-power":
+                return summary(location, summaries).getLightPower();
+            case "energy-consumption":
+                return summary(location, summaries).getEnergy();
+            case "light-cost":
+                return summary(location, summaries).getLightPower() * required(query.getLightCost(), "lightCost");
+            case "energy-cost":
+                return summary(location, summaries).getEnergy() * required(query.getEnergyCost(), "energyCost");
+            case "summary": {
+                SummaryVisitor visitor = new SummaryVisitor(optional(query.getLightCost()), optional(query.getEnergyCost()));
+                visitor.merge(summary(location, summaries));
+                return SummaryResponse.of(visitor);
+            }
+            case "exceeding-heating": {
+                double energyLimit = required(query.getEnergyLimit(), "energyLimit");
+                EnergyDensityIndex index = location instanceof Building ? ((Building) location).getEnergyDensityIndex()
+                        : location instanceof Level ? ((Level) location).getEnergyDensityIndex() : null;
+                if (index != null) {
+                    return index.findExceeding(energyLimit, EnergyDensityIndex.Order.LOCATION, Integer.MAX_VALUE);
+                }
+                return resultCache.compute(location, ExceedingHeatingVisitor.class, energyLimit, () -> {
+                    ExceedingHeatingVisitor visitor = new ExceedingHeatingVisitor(energyLimit);
+                    location.accept(visitor);
+                    return Collections.unmodifiableList(visitor.getRoomsExceedingLimit());
+                });
+            }
+            default:
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown metric: " + query.getMetric());
+        }
+    }
+
+    /**
+     * Zwraca parametry lokalizacji obliczone jednym przejsciem, wspolne dla wszystkich zapytan o te lokalizacje.
+     */
+    private SummaryVisitor summary(Location location, Map<Location, SummaryVisitor> summaries) {
+        return summaries.computeIfAbsent(location, key -> resultCache.compute(key, SummaryVisitor.class, 0, () -> {
+            SummaryVisitor visitor = new SummaryVisitor(0, 0);
+            key.accept(visitor);
+            return visitor;
+        }));
+    }
+
+    private static Location resolve(BuildingSnapshot snapshot, int[] path) {
+        if (path.length == 1) {
+            return snapshot.getBuilding();
+        }
+        if (path.length == 2) {
+            Level level = snapshot.findLevel(path[1]);
+            if (level == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Level with ID: " + path[1] + " not found");
+            }
+            return level;
+        }
+        Room room = snapshot.findRoom(path[1], path[2]);
+        if (room == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room with ID: " + path[2] + " not found");
+        }
+        return room;
+    }
+
+    private static int[] parsePath(BatchQuery query) {
+        String path = query.getPath();
+        String[] parts = path == null ? new String[0] : path.split("/", -1);
+        if (parts.length < 1 || parts.length > 3) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid location path: " + path);
+        }
+        int[] ids = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                ids[i] = Integer.parseInt(parts[i]);
+            }
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid location path: " + path);
+        }
+        return ids;
+    }
+
+    private static double required(Double value, String name) {
+        if (value == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Parameter " + name + " is required");
+        }
+        return value;
+    }
+
+    private static double optional(Double value) {
+        return value == null ? 0 : value;
+    }
+
+    private static Map<String, Object> result(BatchQuery query) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("path", query.getPath());
+        result.put("metric", query.getMetric());
+        return result;
+    }
+
+    private static Map<String, Object> error(BatchQuery query, ResponseStatusException e) {
+        Map<String, Object> result = result(query);
+        result.put("status", e.getStatus().value());
+        result.put("error", e.getReason());
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+package pl.put.poznan.buildingInfo.rest;
+
+/**
+ * Pojedyncze zapytanie o parametr lokalizacji w zadaniu wsadowym ({@link BatchController}).
+ *
+ * Sciezka ma postac {@code budynek}, {@code budynek/poziom} lub {@code budynek/poziom/pomieszczenie},
+ * tak jak w adresach pozostalych kontrolerow, a nazwa parametru odpowiada koncowce adresu,
+ * np. {@code area} lub {@code energy-cost}. Koszty i limit sa wymagane tylko przez parametry,
+ * ktore z nich korzystaja.
+ */
+public class BatchQuery {
+
+    private String path;
+    private String metric;
+    private Double lightCost;
+    private Double energyCost;
+    private Double energyLimit;
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public Double getLightCost() {
+        return lightCost;
+    }
+
+    public void setLightCost(Double lightCost) {
+        this.lightCost = lightCost;
+    }
+
+    public Double getEnergyCost() {
+        return energyCost;
+    }
+
+    public void setEnergyCost(Double energyCost) {
+        this.energyCost = energyCost;
+    }
+
+    public Double getEnergyLimit() {
+        return energyLimit;
+    }
+
+    public void setEnergyLimit(Double energyLimit) {
+        this.energyLimit = energyLimit;
+    }
+}
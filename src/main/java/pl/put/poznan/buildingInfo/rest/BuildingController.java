@@ -1,7 +1,9 @@
 package pl.put.poznan.buildingInfo.rest;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -9,30 +11,43 @@ import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
-
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.EnergyDensityIndex;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
 import pl.put.poznan.buildingInfo.logic.visitors.AreaVisitor;
 import pl.put.poznan.buildingInfo.logic.visitors.CubeVisitor;
 import pl.put.poznan.buildingInfo.logic.visitors.EnergyCostVisitor;
 import pl.put.poznan.buildingInfo.logic.visitors.EnergyVisitor;
-import pl.put.poznan.buildingInfo.logic.visitors.ExceedingHeatingVisitor;
 import pl.put.poznan.buildingInfo.logic.visitors.LightCostVisitor;
 import pl.put.poznan.buildingInfo.logic.visitors.LightVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.SummaryVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.Visitor;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+import pl.put.poznan.buildingInfo.repository.InitialDataLoader;
+import pl.put.poznan.buildingInfo.repository.RoomImporter;
+import pl.put.poznan.buildingInfo.repository.SnapshotManager;
+import pl.put.poznan.buildingInfo.repository.VersionConflictException;
+import pl.put.poznan.buildingInfo.repository.VisitorExecutor;
+import pl.put.poznan.buildingInfo.repository.VisitorResultCache;
+import pl.put.poznan.buildingInfo.storage.RoomNdjsonWriter;
 
 /**
  * Kontroler obslugujący operacje CRUD dla budynkow oraz dodatkowe obliczenia związane z ich wlaściwościami.
@@ -40,7 +55,7 @@ import pl.put.poznan.buildingInfo.logic.visitors.LightVisitor;
  * a takze obliczanie sumarycznej powierzchni, kubatury, mocy oświetlenia i zuzycia energii.
  */
 @RestController
-@RequestMapping("/buildings")
+@RequestMapping(value = "/buildings", produces = {LocationMediaTypes.JSON, LocationMediaTypes.SMILE, LocationMediaTypes.CBOR})
 public class BuildingController {
 
     /**
@@ -50,47 +65,219 @@ public class BuildingController {
      private static final Logger logger = LoggerFactory.getLogger(BuildingController.class);
 
     /**
-     * Lista wszystkich budynkow zarządzanych przez kontroler.
+     * Typ zawartosci odpowiedzi z jednym obiektem JSON w kazdym wierszu.
+     */
+    static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * Repozytorium wszystkich budynkow zarządzanych przez kontroler.
+     */
+    private final BuildingRepository repository;
+
+    /**
+     * Komponent ladujacy poczatkowe dane budynkow.
+     */
+    private final InitialDataLoader initialDataLoader;
+
+    /**
+     * Menedzer binarnych migawek repozytorium.
+     */
+    private final SnapshotManager snapshotManager;
+
+    /**
+     * Pamiec podreczna wynikow obliczen.
+     */
+    private final VisitorResultCache resultCache;
+
+    /**
+     * Wybiera sekwencyjne lub rownolegle wykonanie obliczen dla budynku.
+     */
+    private final VisitorExecutor visitorExecutor;
+
+    /**
+     * Komponent importujacy strumienie pomieszczen.
      */
-    public List<Building> buildings = new ArrayList<Building>();
+    private final RoomImporter roomImporter;
 
     /**
-     * Inicjalizuje przykladowe dane dotyczące budynkow po uruchomieniu aplikacji.
+     * Pamiec podreczna budynkow zakodowanych w formacie JSON.
+     */
+    private final LocationJsonCache jsonCache;
+
+    @Autowired
+    public BuildingController(BuildingRepository repository, InitialDataLoader initialDataLoader,
+                              SnapshotManager snapshotManager, VisitorResultCache resultCache,
+                              VisitorExecutor visitorExecutor, RoomImporter roomImporter,
+                              LocationJsonCache jsonCache) {
+        this.repository = repository;
+        this.initialDataLoader = initialDataLoader;
+        this.snapshotManager = snapshotManager;
+        this.resultCache = resultCache;
+        this.visitorExecutor = visitorExecutor;
+        this.roomImporter = roomImporter;
+        this.jsonCache = jsonCache;
+    }
+
+    /**
+     * Inicjalizuje dane dotyczące budynkow po uruchomieniu aplikacji: laduje ostatnia migawke
+     * lub, jesli jej brak, dane poczatkowe, a nastepnie odtwarza modyfikacje zapisane w dzienniku zapisow.
+     * Dane poczatkowe wczytane z pliku JSON sa od razu zapisywane jako migawka.
+     *
+     * @throws IllegalStateException jesli migawka lub dziennik zapisow nie moga zostac odczytane
      */
     @PostConstruct
     public void init() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        List<Building> buildingsFromFile;
-
+        long generation;
+        try {
+            generation = snapshotManager.restore();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load the building snapshot", e);
+        }
         try {
-            ClassLoader classLoader = getClass().getClassLoader();
-            InputStream inputStream = classLoader.getResourceAsStream("buildings.json");
+            if (generation < 0) {
+                long start = System.nanoTime();
+                initialDataLoader.load();
+                logger.info("Loaded initial data in {} ms.", (System.nanoTime() - start) / 1_000_000);
+            }
+            int replayed = repository.recover(Math.max(generation, 0));
+            if (replayed > 0) {
+                logger.info("Replayed {} modifications from the write-ahead log.", replayed);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load initial data or replay the write-ahead log", e);
+        }
+        if (generation < 0) {
+            snapshotManager.checkpoint();
+        }
+    }
 
-            if (inputStream == null) {
-                throw new IllegalArgumentException("File not found: buildings.json");
+    /**
+     * Pobiera liste wszystkich budynkow.
+     *
+     * Jesli podano liczbe elementow strony lub kursor, zwracana jest jedna strona listy ({@link Page})
+     * wraz z kursorem kolejnej strony. W trybie uproszczonym budynki nie zawieraja poziomow.
+     *
+     * @param limit liczba budynkow na stronie; domyślnie {@value Page#DEFAULT_LIMIT}, najwyzej {@value Page#MAX_LIMIT}
+     * @param cursor kursor zwrocony z poprzednia strona
+     * @param shallow czy pominac poziomy i pomieszczenia budynkow
+     * @return lista wszystkich budynkow lub strona listy
+     * @throws ResponseStatusException jeśli kursor lub liczba elementow strony sa nieprawidlowe
+     */
+    @GetMapping("/all-buildings")
+    public Object getAllBuildings(@RequestParam(required = false) Integer limit,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "false") boolean shallow) {
+        logger.info("Retrieving all buildings. Total count: {}", repository.count());
+        if (limit == null && cursor == null) {
+            List<Building> buildings = repository.findAll();
+            if (!shallow) {
+                return buildings;
             }
+            List<Map<String, Object>> result = new ArrayList<>(buildings.size());
+            for (Building building : buildings) {
+                result.add(shallow(building));
+            }
+            return result;
+        }
+        return Page.of(repository.findAllIds(), Integer::intValue, buildingId -> {
+            Building building = repository.findBuilding(buildingId);
+            return building == null || !shallow ? building : shallow(building);
+        }, cursor, limit);
+    }
 
-            buildingsFromFile = objectMapper.readValue(inputStream, new TypeReference<List<Building>>() {});
+    /**
+     * Tworzy uproszczony opis budynku, bez poziomow i pomieszczen.
+     *
+     * @param building budynek
+     * @return identyfikator, nazwa i liczba poziomow budynku
+     */
+    static Map<String, Object> shallow(Building building) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", building.getId());
+        result.put("name", building.getName());
+        result.put("levelCount", building.getLevelsInBuilding().size());
+        return result;
+    }
 
-            for (Building building : buildingsFromFile) {
-                buildings.add(building);
-                logger.info("Added building: {} with {} levels.", building.getId(), building.getLevelsInBuilding().size());
+    /**
+     * Eksportuje wszystkie pomieszczenia wszystkich budynkow w formacie NDJSON, po jednym wierszu
+     * na pomieszczenie ({@link RoomNdjsonWriter}).
+     *
+     * Pomieszczenia sa zapisywane strumieniowo bezposrednio do odpowiedzi, budynek po budynku,
+     * wiec zuzycie pamieci nie zalezy od liczby pomieszczen. Kazdy budynek jest eksportowany
+     * w jednej, spojnej wersji.
+     *
+     * @return odpowiedz zapisujaca pomieszczenia do strumienia
+     */
+    @RequestMapping(value = "/export", method = RequestMethod.GET, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportRooms() {
+        logger.info("Exporting rooms of {} buildings", repository.count());
+        StreamingResponseBody body = output -> {
+            long start = System.nanoTime();
+            try (RoomNdjsonWriter writer = new RoomNdjsonWriter(output)) {
+                for (int buildingId : repository.findAllIds()) {
+                    Building building = repository.findBuilding(buildingId);
+                    if (building != null) {
+                        writer.write(building);
+                    }
+                }
+                logger.info("Exported {} rooms of {} buildings in {} ms", writer.getRoomsWritten(),
+                        writer.getBuildingsWritten(), (System.nanoTime() - start) / 1_000_000);
             }
-            logger.info("Successfully loaded {} buildings from JSON.", buildings.size());
-        } catch (Exception e) {
-            logger.debug("Failed to load buildings data from JSON", e);
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * Importuje pomieszczenia przeslane w formacie NDJSON, po jednym obiekcie w wierszu, do istniejacych
+     * poziomow ({@link RoomImporter}). Format jest zgodny z eksportem pomieszczen.
+     *
+     * @param input strumien pomieszczen
+     * @return liczby dodanych i odrzuconych pomieszczen, opisy pierwszych odrzuconych pomieszczen oraz czas importu
+     * @throws ResponseStatusException jeśli strumien zawiera niepoprawny wiersz; pomieszczenia
+     *                                 z wczesniej przetworzonych partii pozostaja dodane
+     */
+    @RequestMapping(value = "/import", method = RequestMethod.POST, consumes = NDJSON)
+    public ResponseEntity<Map<String, Object>> importRooms(InputStream input) {
+        RoomImporter.Result result;
+        try {
+            result = roomImporter.importRooms(input);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid room stream: " + e.getMessage());
         }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("accepted", result.getAccepted());
+        response.put("rejected", result.getRejected());
+        response.put("millis", result.getMillis());
+        response.put("roomsPerSecond", result.getRoomsPerSecond());
+        response.put("errors", result.getErrors());
+        return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
     /**
-     * Pobiera liste wszystkich budynkow.
+     * Pobiera szczegoly konkretnego budynku na podstawie jego identyfikatora.
      *
-     * @return lista wszystkich budynkow
+     * @param buildingId identyfikator budynku
+     * @param fields nazwy zwracanych wlasciwosci rozdzielone przecinkami, np. {@code id,name}; domyslnie wszystkie
+     * @param depth liczba poziomow zagniezdzenia zwracanych lokalizacji podrzednych; domyslnie bez ograniczenia
+     * @param accept naglowek {@code Accept}; z pamieci podrecznej korzystaja tylko odpowiedzi w formacie JSON
+     * @param acceptEncoding naglowek {@code Accept-Encoding}; odpowiedz z pamieci podrecznej moze byc skompresowana gzip
+     * @return szczegoly budynku, zakodowane z pamieci podrecznej ({@link LocationJsonCache}), lub jego
+     *         projekcja ({@link LocationProjection}), jesli podano {@code fields} lub {@code depth}
+     * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje lub projekcja jest nieprawidlowa
      */
-    @GetMapping("/all-buildings")
-    public List<Building> getAllBuildings() {
-        logger.info("Retrieving all buildings. Total count: {}", buildings.size());
-        return buildings;
+    @RequestMapping(value = "/{buildingId}", method = RequestMethod.GET)
+    public Object getBuilding(@PathVariable int buildingId,
+                              @RequestParam(required = false) String fields,
+                              @RequestParam(required = false) Integer depth,
+                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Building building = getBuilding(buildingId);
+        if (fields == null && depth == null) {
+            return jsonCache.respond(building, accept, acceptEncoding);
+        }
+        return LocationProjection.of(building, fields, depth);
     }
 
     /**
@@ -100,11 +287,13 @@ public class BuildingController {
      * @return szczegoly budynku
      * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{buildingId}", method = RequestMethod.GET, produces = "application/json")
-    public Building getBuilding(@PathVariable int buildingId) {
+    public Building getBuilding(int buildingId) {
         logger.info("Building with ID: {}", buildingId);
-        return buildings.stream().filter(b -> b.getId() == buildingId).findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Building with ID: " + buildingId + " not found"));
+        Building building = repository.findBuilding(buildingId);
+        if (building == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Building with ID: " + buildingId + " not found");
+        }
+        return building;
     }
 
     /**
@@ -114,14 +303,19 @@ public class BuildingController {
      * @return dodany budynek
      * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze juz istnieje
      */
-    @RequestMapping(method = RequestMethod.POST, consumes = "application/json", produces = "application/json")
+    @RequestMapping(method = RequestMethod.POST)
     public Building addBuilding(@RequestBody Building building) {
         logger.info("Adding new building: {}", building);
-        if (buildings.stream().anyMatch(b -> b.getId() == building.getId())) {
+        boolean added;
+        try {
+            added = repository.addBuilding(building);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (!added) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Building with ID: " + building.getId() + " already exists");
         }
-        buildings.add(building);
-        logger.info("Building added successfully. Total buildings: {}", buildings.size());
+        logger.info("Building added successfully. Total buildings: {}", repository.count());
         return building;
     }
 
@@ -130,14 +324,23 @@ public class BuildingController {
      *
      * @param buildingId       identyfikator budynku do aktualizacji
      * @param updatedBuilding  zaktualizowane dane budynku
+     * @param ifMatch          znacznik ETag ({@link LocationEtags}) oczekiwanej wersji budynku; domyslnie dowolna wersja
      * @return zaktualizowany budynek
+     * @throws ResponseStatusException jeśli budynek zostal zmieniony od wydania znacznika {@code ifMatch}
      */
     @PutMapping("/{buildingId}")
-    public Building updateBuilding(@PathVariable int buildingId, @RequestBody Building updatedBuilding) {
+    public Building updateBuilding(@PathVariable int buildingId, @RequestBody Building updatedBuilding,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Updating building with ID: {}", buildingId);
-        Building building = getBuilding(buildingId);
-        building.setName(updatedBuilding.getName());
-        building.setLevelsInBuilding(updatedBuilding.getLevelsInBuilding());
+        getBuilding(buildingId);
+        Building building;
+        try {
+            building = repository.updateBuilding(buildingId, updatedBuilding, LocationEtags.expectedVersion(ifMatch));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (VersionConflictException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+        }
         logger.info("Building with ID: {} updated successfully.", buildingId);
         return building;
     }
@@ -151,29 +354,31 @@ public class BuildingController {
     @DeleteMapping("/{buildingId}")
     public void deleteBuilding(@PathVariable int buildingId) {
         logger.info("Deleting building with ID: {}", buildingId);
-        Building building = getBuilding(buildingId);
-        buildings.remove(building);
-        logger.info("Building with ID: {} deleted successfully. Remaining buildings: {}", buildingId, buildings.size());
+        if (repository.removeBuilding(buildingId) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Building with ID: " + buildingId + " not found");
+        }
+        logger.info("Building with ID: {} deleted successfully. Remaining buildings: {}", buildingId, repository.count());
     }
 
     /**
      * Oblicza lączną powierzchnie budynku i zwraca ją w formacie JSON.
      *
      * @param buildingId identyfikator budynku, dla ktorego ma zostac obliczona powierzchnia
+     * @param parallel czy obliczenia maja byc wykonane rownolegle; domyslnie zgodnie z konfiguracja
      * @return ResponseEntity zawierający wartośc sumarycznej powierzchni budynku w formacie JSON
      * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{buildingId}/area", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Map<String, Object>> getAreaOfBuilding(@PathVariable int buildingId) {
+    @RequestMapping(value = "/{buildingId}/area", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getAreaOfBuilding(@PathVariable int buildingId,
+                                                                 @RequestParam(required = false) Boolean parallel) {
         Building building = getBuilding(buildingId);
-        AreaVisitor areaVisitor = new AreaVisitor();
+        Visitor areaVisitor = visitorExecutor.visitor(AreaVisitor::new, parallel);
         logger.debug("Calculating total area for building ID: {}", buildingId);
 
-        double area = areaVisitor.visit(building);
+        double area = resultCache.compute(building, AreaVisitor.class, 0, () -> areaVisitor.visit(building));
         logger.info("Total area for building ID {}: {}", buildingId, area);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("area:", area);
+        MetricResponse response = MetricResponse.of(MetricResponse.AREA, area);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -181,20 +386,21 @@ public class BuildingController {
      * Oblicza lączną kubature budynku i zwraca ją w formacie JSON.
      *
      * @param buildingId identyfikator budynku, dla ktorego ma zostac obliczona kubatura
+     * @param parallel czy obliczenia maja byc wykonane rownolegle; domyslnie zgodnie z konfiguracja
      * @return ResponseEntity zawierający wartośc sumarycznej kubatury budynku w formacie JSON
      * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{buildingId}/cube", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Map<String, Object>> getCubeOfBuilding(@PathVariable int buildingId) {
+    @RequestMapping(value = "/{buildingId}/cube", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getCubeOfBuilding(@PathVariable int buildingId,
+                                                                 @RequestParam(required = false) Boolean parallel) {
         Building building = getBuilding(buildingId);
-        CubeVisitor cubeVisitor = new CubeVisitor();
+        Visitor cubeVisitor = visitorExecutor.visitor(CubeVisitor::new, parallel);
         logger.debug("Calculating total cube for building ID: {}", buildingId);
 
-        double cube = cubeVisitor.visit(building);
+        double cube = resultCache.compute(building, CubeVisitor.class, 0, () -> cubeVisitor.visit(building));
         logger.info("Total cube for building ID {}: {}", buildingId, cube);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("cube:", cube);
+        MetricResponse response = MetricResponse.of(MetricResponse.CUBE, cube);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -202,20 +408,21 @@ public class BuildingController {
      * Oblicza lączną moc oświetlenia budynku i zwraca ją w formacie JSON.
      *
      * @param buildingId identyfikator budynku, dla ktorego ma zostac obliczona moc oświetlenia.
+     * @param parallel czy obliczenia maja byc wykonane rownolegle; domyslnie zgodnie z konfiguracja
      * @return ResponseEntity zawierający wartośc sumarycznej mocy oświetlenia budynku w formacie JSON
      * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{buildingId}/light-power", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Map<String, Object>> getLightPowerOfBuilding(@PathVariable int buildingId) {
+    @RequestMapping(value = "/{buildingId}/light-power", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getLightPowerOfBuilding(@PathVariable int buildingId,
+                                                                       @RequestParam(required = false) Boolean parallel) {
         Building building = getBuilding(buildingId);
-        LightVisitor lightVisitor = new LightVisitor();
+        Visitor lightVisitor = visitorExecutor.visitor(LightVisitor::new, parallel);
         logger.debug("Calculating total light power for building ID: {}", buildingId);
 
-        double light = lightVisitor.visit(building);
+        double light = resultCache.compute(building, LightVisitor.class, 0, () -> lightVisitor.visit(building));
         logger.info("Total light power for building ID {}: {}", buildingId, light);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("light power:", light);
+        MetricResponse response = MetricResponse.of(MetricResponse.LIGHT_POWER, light);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -223,66 +430,135 @@ public class BuildingController {
      * Oblicza lączne zuzycie energii na ogrzewanie w budynku i zwraca je w formacie JSON.
      *
      * @param buildingId identyfikator budynku, dla ktorego ma zostac obliczone zuzycie energii na ogrzewanie.
+     * @param parallel czy obliczenia maja byc wykonane rownolegle; domyslnie zgodnie z konfiguracja
      * @return ResponseEntity zawierający wartośc sumarycznego zuzycia energii na ogrzewanie w budynku w formacie JSON
      * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{buildingId}/energy-consumption", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Map<String, Object>> getEnergyConsumption(@PathVariable int buildingId) {
+    @RequestMapping(value = "/{buildingId}/energy-consumption", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getEnergyConsumption(@PathVariable int buildingId,
+                                                                    @RequestParam(required = false) Boolean parallel) {
         Building building = getBuilding(buildingId);
-        EnergyVisitor energyVisitor = new EnergyVisitor();
+        Visitor energyVisitor = visitorExecutor.visitor(EnergyVisitor::new, parallel);
         logger.debug("Calculating total energy consumption for building ID: {}", buildingId);
 
-        double energy = energyVisitor.visit(building);
+        double energy = resultCache.compute(building, EnergyVisitor.class, 0, () -> energyVisitor.visit(building));
         logger.info("Total energy consumption for building ID {}: {}", buildingId, energy);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("energy consumption:", energy);
+        MetricResponse response = MetricResponse.of(MetricResponse.ENERGY_CONSUMPTION, energy);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
     /**
-     * Oblicza zuzycie energii cieplnej na m³ dla kazdego pomieszczenia w budynku i zwraca te,
-     * ktore przekraczają zadany limit.
+     * Zwraca pomieszczenia budynku, ktorych zuzycie energii cieplnej na m³ przekracza zadany limit.
+     * Pomieszczenia sa wyszukiwane w indeksie budynku posortowanym wedlug zuzycia energii
+     * ({@link EnergyDensityIndex}), bez przechodzenia po wszystkich pomieszczeniach.
      *
      * @param buildingId ID budynku.
      * @param energyLimit Wartośc graniczna zuzycia energii cieplnej na m³.
+     * @param limit najwieksza liczba zwracanych pomieszczen; domyślnie bez ograniczenia
+     * @param order kolejnosc pomieszczen: {@code location} (domyślnie), {@code asc} lub {@code desc} wedlug zuzycia energii
      * @return Mapa z informacjami o pomieszczeniach przekraczających limit.
-     * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
+     * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje lub limit albo kolejnosc sa nieprawidlowe
      */
-    @RequestMapping(value = "/{buildingId}/exceeding-heating", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Map<String, Object>> getRoomsExceedingHeating(@PathVariable int buildingId, @RequestParam double energyLimit) {
+    @RequestMapping(value = "/{buildingId}/exceeding-heating", method = RequestMethod.GET)
+    public ResponseEntity<Map<String, Object>> getRoomsExceedingHeating(@PathVariable int buildingId, @RequestParam double energyLimit,
+                                                                        @RequestParam(required = false) Integer limit,
+                                                                        @RequestParam(defaultValue = "location") String order) {
         Building building = getBuilding(buildingId);
         logger.debug("Checking rooms exceeding energy limit for building ID: {}", buildingId);
-        ExceedingHeatingVisitor visitor = new ExceedingHeatingVisitor(energyLimit);
+        List<Room> exceedingRooms = building.getEnergyDensityIndex()
+                .findExceeding(energyLimit, exceedingOrder(order), maxRooms(limit));
+
+        Map<String, Object> response = Collections.singletonMap("exceedingRooms", exceedingRooms);
 
-        building.accept(visitor);
+        logger.info("Found {} rooms exceeding energy limit in building ID: {}", exceedingRooms.size(), buildingId);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("exceedingRooms", visitor.getRoomsExceedingLimit());
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
 
-        logger.info("Found {} rooms exceeding energy limit in building ID: {}", visitor.getRoomsExceedingLimit().size(), buildingId);
+    /**
+     * Zwraca pomieszczenia wszystkich budynkow lub budynkow o podanych identyfikatorach, ktorych zuzycie
+     * energii cieplnej na m³ przekracza zadany limit. Pomieszczenia sa wyszukiwane w indeksach budynkow
+     * i scalane wedlug zuzycia energii, do osiagniecia limitu liczby pomieszczen.
+     *
+     * @param ids identyfikatory budynkow; domyślnie wszystkie budynki
+     * @param energyLimit Wartośc graniczna zuzycia energii cieplnej na m³.
+     * @param limit najwieksza liczba zwracanych pomieszczen; domyślnie bez ograniczenia
+     * @param order kolejnosc pomieszczen: {@code location} (domyślnie), {@code asc} lub {@code desc} wedlug zuzycia energii
+     * @return Mapa z informacjami o pomieszczeniach przekraczających limit.
+     * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje lub limit albo kolejnosc sa nieprawidlowe
+     */
+    @RequestMapping(value = "/exceeding-heating", method = RequestMethod.GET)
+    public ResponseEntity<Map<String, Object>> getRoomsExceedingHeating(@RequestParam(required = false) List<Integer> ids,
+                                                                        @RequestParam double energyLimit,
+                                                                        @RequestParam(required = false) Integer limit,
+                                                                        @RequestParam(defaultValue = "location") String order) {
+        EnergyDensityIndex.Order roomOrder = exceedingOrder(order);
+        int maxRooms = maxRooms(limit);
+        List<Building> buildings = getBuildings(ids);
+        List<EnergyDensityIndex> indexes = new ArrayList<>(buildings.size());
+        for (Building building : buildings) {
+            indexes.add(building.getEnergyDensityIndex());
+        }
+        List<Room> exceedingRooms = EnergyDensityIndex.findExceeding(indexes, energyLimit, roomOrder, maxRooms);
+        logger.info("Found {} rooms exceeding energy limit in {} buildings", exceedingRooms.size(), buildings.size());
 
+        Map<String, Object> response = Collections.singletonMap("exceedingRooms", exceedingRooms);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
+
+    /**
+     * @param order kolejnosc pomieszczen z parametru zadania
+     * @return kolejnosc pomieszczen w indeksie
+     * @throws ResponseStatusException jeśli kolejnosc jest nieznana
+     */
+    static EnergyDensityIndex.Order exceedingOrder(String order) {
+        switch (order) {
+            case "location":
+                return EnergyDensityIndex.Order.LOCATION;
+            case "asc":
+                return EnergyDensityIndex.Order.ASCENDING;
+            case "desc":
+                return EnergyDensityIndex.Order.DESCENDING;
+            default:
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown order: " + order);
+        }
+    }
+
+    /**
+     * @param limit najwieksza liczba pomieszczen z parametru zadania lub {@code null}
+     * @return najwieksza liczba zwracanych pomieszczen
+     * @throws ResponseStatusException jeśli limit nie jest dodatni
+     */
+    static int maxRooms(Integer limit) {
+        if (limit == null) {
+            return Integer.MAX_VALUE;
+        }
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Room limit must be positive");
+        }
+        return limit;
+    }
     /**
      * Oblicza koszt oświetlenia w budynku o podanym identyfikatorze.
      *
      * @param buildingId identyfikator budynku
      * @param lightCost koszt oświetlenia na jednostkę
+     * @param parallel czy obliczenia maja byc wykonane rownolegle; domyslnie zgodnie z konfiguracja
      * @return odpowiedź zawierająca koszt oświetlenia w budynku
      * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{buildingId}/light-cost", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Map<String, Object>> getLightCostInBuilding(@PathVariable int buildingId, @RequestParam double lightCost) {
+    @RequestMapping(value = "/{buildingId}/light-cost", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getLightCostInBuilding(@PathVariable int buildingId, @RequestParam double lightCost,
+                                                                      @RequestParam(required = false) Boolean parallel) {
         Building building = getBuilding(buildingId);
         logger.debug("Checking the cost of light for building ID: {}", buildingId);
-        LightCostVisitor visitor = new LightCostVisitor(lightCost);
+        Visitor visitor = visitorExecutor.visitor(() -> new LightCostVisitor(lightCost), parallel);
 
-        building.accept(visitor);
+        double cost = resultCache.compute(building, LightCostVisitor.class, lightCost, () -> visitor.visit(building));
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("cost of lighting", visitor.visit(building));
-        logger.info("The cost of lighting for the building with ID: {} is {}", buildingId, visitor.visit(building));
+        MetricResponse response = MetricResponse.of(MetricResponse.LIGHT_COST, cost);
+        logger.info("The cost of lighting for the building with ID: {} is {}", buildingId, cost);
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
@@ -292,24 +568,104 @@ public class BuildingController {
      *
      * @param buildingId identyfikator budynku
      * @param energyCost koszt energii na jednostkę
+     * @param parallel czy obliczenia maja byc wykonane rownolegle; domyslnie zgodnie z konfiguracja
      * @return odpowiedź zawierająca koszt energii w budynku
      * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{buildingId}/energy-cost", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Map<String, Object>> getEnergyCostInBuilding(@PathVariable int buildingId, @RequestParam double energyCost) {
+    @RequestMapping(value = "/{buildingId}/energy-cost", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getEnergyCostInBuilding(@PathVariable int buildingId, @RequestParam double energyCost,
+                                                                       @RequestParam(required = false) Boolean parallel) {
         Building building = getBuilding(buildingId);
         logger.debug("Checking the cost of energy for building ID: {}", buildingId);
-        EnergyCostVisitor visitor = new EnergyCostVisitor(energyCost);
+        Visitor visitor = visitorExecutor.visitor(() -> new EnergyCostVisitor(energyCost), parallel);
 
-        building.accept(visitor);
+        double cost = resultCache.compute(building, EnergyCostVisitor.class, energyCost, () -> visitor.visit(building));
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("cost of energy", visitor.visit(building));
-        logger.info("The cost of energy for the building with ID: {} is {}", buildingId, visitor.visit(building));
+        MetricResponse response = MetricResponse.of(MetricResponse.ENERGY_COST, cost);
+        logger.info("The cost of energy for the building with ID: {} is {}", buildingId, cost);
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
-}
+    /**
+     * Oblicza w jednym przejsciu wszystkie parametry budynku: powierzchnie, kubature, moc oświetlenia,
+     * zuzycie energii oraz koszty oświetlenia i energii.
+     *
+     * @param buildingId identyfikator budynku
+     * @param lightCost koszt oświetlenia na jednostkę; domyślnie 0
+     * @param energyCost koszt energii na jednostkę; domyślnie 0
+     * @param parallel czy obliczenia maja byc wykonane rownolegle; domyslnie zgodnie z konfiguracja
+     * @return odpowiedź zawierająca wszystkie parametry budynku
+     * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
+     */
+    @RequestMapping(value = "/{buildingId}/summary", method = RequestMethod.GET)
+    public ResponseEntity<SummaryResponse> getSummaryOfBuilding(@PathVariable int buildingId,
+                                                                    @RequestParam(defaultValue = "0") double lightCost,
+                                                                    @RequestParam(defaultValue = "0") double energyCost,
+                                                                    @RequestParam(required = false) Boolean parallel) {
+        Building building = getBuilding(buildingId);
+        logger.debug("Calculating summary for building ID: {}", buildingId);
+        SummaryVisitor visitor = new SummaryVisitor(lightCost, energyCost);
+
+        building.accept(visitorExecutor.visitor(visitor, () -> new SummaryVisitor(lightCost, energyCost),
+                SummaryVisitor::merge, parallel));
+        logger.info("Summary for building ID {}: area {}, energy consumption {}", buildingId, visitor.getArea(), visitor.getEnergy());
+
+        return ResponseEntity.status(HttpStatus.OK).body(SummaryResponse.of(visitor));
+    }
+
+    /**
+     * Oblicza parametry wszystkich budynkow lub budynkow o podanych identyfikatorach: powierzchnie,
+     * kubature, moc oświetlenia, zuzycie energii oraz koszty oświetlenia i energii.
+     * Budynki sa podsumowywane rownolegle, po jednym zadaniu na budynek, a odpowiedz zawiera
+     * sumy dla wszystkich budynkow oraz parametry kazdego z nich.
+     *
+     * @param ids identyfikatory budynkow; domyślnie wszystkie budynki
+     * @param lightCost koszt oświetlenia na jednostkę; domyślnie 0
+     * @param energyCost koszt energii na jednostkę; domyślnie 0
+     * @return odpowiedź zawierająca sumy oraz parametry poszczegolnych budynkow
+     * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
+     */
+    @RequestMapping(value = "/aggregate", method = RequestMethod.GET)
+    public ResponseEntity<Map<String, Object>> getAggregate(@RequestParam(required = false) List<Integer> ids,
+                                                            @RequestParam(defaultValue = "0") double lightCost,
+                                                            @RequestParam(defaultValue = "0") double energyCost) {
+        List<Building> buildings = getBuildings(ids);
+        logger.debug("Calculating aggregate for {} buildings", buildings.size());
+
+        List<SummaryVisitor> summaries = visitorExecutor.map(buildings, building -> {
+            SummaryVisitor visitor = new SummaryVisitor(lightCost, energyCost);
+            building.accept(visitor);
+            return visitor;
+        });
+        SummaryVisitor total = new SummaryVisitor(lightCost, energyCost);
+        List<SummaryResponse> perBuilding = new ArrayList<>(buildings.size());
+        for (int i = 0; i < buildings.size(); i++) {
+            total.merge(summaries.get(i));
+            perBuilding.add(SummaryResponse.of(buildings.get(i), summaries.get(i)));
+        }
+        logger.info("Aggregate for {} buildings: area {}, energy consumption {}", buildings.size(), total.getArea(), total.getEnergy());
 
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("buildingCount", buildings.size());
+        response.put("total", SummaryResponse.of(total));
+        response.put("buildings", perBuilding);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
 
+    /**
+     * @param ids identyfikatory budynkow lub {@code null} dla wszystkich budynkow
+     * @return budynki w kolejnosci identyfikatorow
+     * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
+     */
+    private List<Building> getBuildings(List<Integer> ids) {
+        if (ids == null) {
+            return repository.findAll();
+        }
+        List<Building> buildings = new ArrayList<>(ids.size());
+        for (int buildingId : ids) {
+            buildings.add(getBuilding(buildingId));
+        }
+        return buildings;
+    }
+}
@@ -1,18 +1,20 @@
 package pl.put.poznan.buildingInfo.rest;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -27,6 +29,10 @@ import pl.put.poznan.buildingInfo.logic.visitors.EnergyCostVisitor;
 import pl.put.poznan.buildingInfo.logic.visitors.EnergyVisitor;
 import pl.put.poznan.buildingInfo.logic.visitors.LightCostVisitor;
 import pl.put.poznan.buildingInfo.logic.visitors.LightVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.SummaryVisitor;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+import pl.put.poznan.buildingInfo.repository.VersionConflictException;
+import pl.put.poznan.buildingInfo.repository.VisitorResultCache;
 
 /**
  * Kontroler obslugujący operacje CRUD dla poziomow ({@link Level}) w ramach budynkow ({@link Building}).
@@ -40,47 +46,77 @@ import pl.put.poznan.buildingInfo.logic.visitors.LightVisitor;
  */
 
 @RestController
-@RequestMapping("/buildings/{buildingId}")
+@RequestMapping(value = "/buildings/{buildingId}", produces = {LocationMediaTypes.JSON, LocationMediaTypes.SMILE, LocationMediaTypes.CBOR})
 public class LevelController {
 
     private static final Logger logger = LoggerFactory.getLogger(LevelController.class);
     private final BuildingController buildingController;
+    private final BuildingRepository repository;
+    private final VisitorResultCache resultCache;
+    private final LocationJsonCache jsonCache;
 
 
     @Autowired
-    public LevelController(BuildingController buildingController) {
+    public LevelController(BuildingController buildingController, BuildingRepository repository,
+                           VisitorResultCache resultCache, LocationJsonCache jsonCache) {
         this.buildingController = buildingController;
+        this.repository = repository;
+        this.resultCache = resultCache;
+        this.jsonCache = jsonCache;
     }
 
-    public List<Level> levels = new ArrayList<Level>();
-
     /**
      * Pobiera wszystkie poziomy (levels) dla konkretnego budynku.
      *
+     * Jesli podano liczbe elementow strony lub kursor, zwracana jest jedna strona listy ({@link Page})
+     * wraz z kursorem kolejnej strony. W trybie uproszczonym poziomy nie zawieraja pomieszczen.
+     *
      * @param buildingId identyfikator budynku, ktorego poziomy mają zostac pobrane
-     * @return lista wszystkich poziomow w danym budynku
+     * @param limit liczba poziomow na stronie; domyślnie {@value Page#DEFAULT_LIMIT}, najwyzej {@value Page#MAX_LIMIT}
+     * @param cursor kursor zwrocony z poprzednia strona
+     * @param shallow czy pominac pomieszczenia poziomow
+     * @return lista wszystkich poziomow w danym budynku lub strona listy
      * @throws ResponseStatusException jeśli budynek o podanym identyfikatorze nie istnieje
+     *                                 lub kursor albo liczba elementow strony sa nieprawidlowe
      */
-    @RequestMapping(value = "/all-levels", method = RequestMethod.GET, produces = "application/json")
-    public List<Level> getAllLevels(@PathVariable int buildingId) {
-            logger.debug("Entering getAllLevels method for Building with ID: {}", buildingId);
-
-            Building building = buildingController.getBuilding(buildingId);
+    @RequestMapping(value = "/all-levels", method = RequestMethod.GET)
+    public Object getAllLevels(@PathVariable int buildingId,
+                               @RequestParam(required = false) Integer limit,
+                               @RequestParam(required = false) String cursor,
+                               @RequestParam(defaultValue = "false") boolean shallow) {
+        logger.debug("Entering getAllLevels method for Building with ID: {}", buildingId);
 
-            if (building == null) {
-                logger.debug("Building with ID: {} not found", buildingId);
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Building with ID: " + buildingId + " not found");
-            }
-
-            logger.debug("Building found: {}", building);
-            logger.debug("Levels in building before getting: {}", building.getLevelsInBuilding());
+        Building building = buildingController.getBuilding(buildingId);
 
-            levels = building.getLevelsInBuilding();
+        List<Level> levels = building.getLevelsInBuilding();
 
-            logger.debug("Getting all levels in Building with ID: {}", buildingId);
-            logger.debug("Levels: {}", levels);
+        logger.debug("Getting all levels in Building with ID: {}. Level count: {}", buildingId, levels.size());
 
+        if (limit != null || cursor != null) {
+            return Page.of(levels, Level::getId, level -> shallow ? shallow(level) : level, cursor, limit);
+        }
+        if (!shallow) {
             return levels;
+        }
+        List<Map<String, Object>> result = new ArrayList<>(levels.size());
+        for (Level level : levels) {
+            result.add(shallow(level));
+        }
+        return result;
+    }
+
+    /**
+     * Tworzy uproszczony opis poziomu, bez pomieszczen.
+     *
+     * @param level poziom
+     * @return identyfikator, nazwa i liczba pomieszczen poziomu
+     */
+    static Map<String, Object> shallow(Level level) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", level.getId());
+        result.put("name", level.getName());
+        result.put("roomCount", level.getRoomsOnLevel().size());
+        return result;
     }
 
     /**
@@ -91,19 +127,21 @@ public class LevelController {
      * @return dodany poziom
      * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze juz istnieje w budynku
      */
-    @RequestMapping(method = RequestMethod.POST, consumes = "application/json", produces = "application/json")
+    @RequestMapping(method = RequestMethod.POST)
     public Level addLevel(@RequestBody Level level, @PathVariable int buildingId) {
         logger.debug("Adding level: {} to Building with ID: {}", level, buildingId);
 
-        Building building = buildingController.getBuilding(buildingId);
-        for (Level lvl :  building.getLevelsInBuilding()) {
-            if(lvl.getId() == level.getId()) {
-                logger.debug("Couldn't add level: {} to Building with ID: {}, because it already exists", level, buildingId);
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Level with ID: " + level.getId() + " already exists");
-            }
+        buildingController.getBuilding(buildingId);
+        boolean added;
+        try {
+            added = repository.addLevel(buildingId, level);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (!added) {
+            logger.debug("Couldn't add level: {} to Building with ID: {}, because it already exists", level, buildingId);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Level with ID: " + level.getId() + " already exists");
         }
-
-        building.add(level);
         return level;
     }
 
@@ -114,20 +152,25 @@ public class LevelController {
      * @param buildingId       identyfikator budynku do w ktorym znajduje sie poziom do aktualizacji
      * @param levelId          identyfikator poziomu do aktualizacji
      * @param updatedLevel     zaktualizowane dane poziomu
+     * @param ifMatch          znacznik ETag ({@link LocationEtags}) oczekiwanej wersji poziomu; domyslnie dowolna wersja
      * @return zaktualizowany budynek
+     * @throws ResponseStatusException jeśli poziom zostal zmieniony od wydania znacznika {@code ifMatch}
      */
 
     @PutMapping("/{levelId}")
-    public Level updateLevel(@PathVariable int buildingId, @PathVariable int levelId, @RequestBody Level updatedLevel){
+    public Level updateLevel(@PathVariable int buildingId, @PathVariable int levelId, @RequestBody Level updatedLevel,
+                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
         logger.debug("Updating level: {} in Building with ID: {}", levelId, buildingId);
 
-        Building building = buildingController.getBuilding(buildingId);
-        Level level = building.getLevelsInBuilding().stream()
-                .filter(r -> r.getId() == levelId)
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Level with ID: " + levelId + " not found"));        
-        level.setRoomsOnLevel(updatedLevel.getRoomsOnLevel());
-        level.setName(updatedLevel.getName());
+        getLevel(buildingId, levelId);
+        Level level;
+        try {
+            level = repository.updateLevel(buildingId, levelId, updatedLevel, LocationEtags.expectedVersion(ifMatch));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (VersionConflictException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+        }
         logger.info("Level with ID: {} updated successfully.", levelId);
 
         return level;
@@ -137,9 +180,10 @@ public class LevelController {
     public void deleteLevel(@PathVariable int buildingId, @PathVariable int levelId){
         logger.debug("Deleting level: {} from Building with ID: {}", levelId, buildingId);
 
-        Building building = buildingController.getBuilding(buildingId);
-        Level level = this.getLevel(buildingId, levelId);
-        building.remove(level);
+        buildingController.getBuilding(buildingId);
+        if (repository.removeLevel(buildingId, levelId) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Level with ID: " + levelId + " not found");
+        }
         logger.info("Level with ID: {} deleted successfully.", levelId);
         
     }
@@ -147,6 +191,32 @@ public class LevelController {
 
 
 
+    /**
+     * Pobiera szczegoly konkretnego poziomu na podstawie jego identyfikatora i identyfikatora budynku.
+     *
+     * @param buildingId identyfikator budynku, w ktorym znajduje sie poziom
+     * @param levelId identyfikator poziomu do pobrania
+     * @param fields nazwy zwracanych wlasciwosci rozdzielone przecinkami, np. {@code id,name}; domyslnie wszystkie
+     * @param depth liczba poziomow zagniezdzenia zwracanych lokalizacji podrzednych; domyslnie bez ograniczenia
+     * @param accept naglowek {@code Accept}; z pamieci podrecznej korzystaja tylko odpowiedzi w formacie JSON
+     * @param acceptEncoding naglowek {@code Accept-Encoding}; odpowiedz z pamieci podrecznej moze byc skompresowana gzip
+     * @return szczegoly poziomu, zakodowane z pamieci podrecznej ({@link LocationJsonCache}), lub jego
+     *         projekcja ({@link LocationProjection}), jesli podano {@code fields} lub {@code depth}
+     * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje w budynku lub projekcja jest nieprawidlowa
+     */
+    @RequestMapping(value = "/{levelId}", method = RequestMethod.GET)
+    public Object getLevel(@PathVariable int buildingId, @PathVariable int levelId,
+                           @RequestParam(required = false) String fields,
+                           @RequestParam(required = false) Integer depth,
+                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Level level = getLevel(buildingId, levelId);
+        if (fields == null && depth == null) {
+            return jsonCache.respond(level, accept, acceptEncoding);
+        }
+        return LocationProjection.of(level, fields, depth);
+    }
+
     /**
      * Pobiera szczegoly konkretnego poziomu na podstawie jego identyfikatora i identyfikatora budynku.
      *
@@ -155,17 +225,16 @@ public class LevelController {
      * @return szczegoly poziomu
      * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje w budynku
      */
-    @RequestMapping(value = "/{levelId}", method = RequestMethod.GET, produces = "application/json")
-    public Level getLevel(@PathVariable int buildingId, @PathVariable int levelId) {
+    public Level getLevel(int buildingId, int levelId) {
         logger.debug("Fetching level: {} of building: {}", levelId, buildingId);
 
         Building building = buildingController.getBuilding(buildingId);
         logger.debug("Building found: {}", building.getName());
 
-        Level level = building.getLevelsInBuilding().stream()
-                .filter(r -> r.getId() == levelId)
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Level with ID: " + levelId + " not found"));
+        Level level = repository.findLevel(buildingId, levelId);
+        if (level == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Level with ID: " + levelId + " not found");
+        }
 
         logger.debug("Level found: {}", level.getId());
         return level;
@@ -180,17 +249,17 @@ public class LevelController {
      * @return calkowita powierzchnia poziomu w metrach kwadratowych
      * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value="/{levelId}/area", method = RequestMethod.GET, produces="application/json")
-    public ResponseEntity<Map<String, Object>> getAreaOfLevel(@PathVariable int buildingId, @PathVariable int levelId) {
+    @RequestMapping(value="/{levelId}/area", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getAreaOfLevel(@PathVariable int buildingId, @PathVariable int levelId) {
         Level level = getLevel(buildingId, levelId);
         AreaVisitor areaVisitor = new AreaVisitor();
 
         logger.debug("Geting total area for level ID: {} in Building with ID: {}", levelId, buildingId);
-        double area = areaVisitor.visit(level);
+        double area = resultCache.compute(level, AreaVisitor.class, 0, () -> areaVisitor.visit(level));
 
         logger.info("Area for level ID {}: {}", levelId, area);
 
-        Map<String, Object> response = Map.of("area", area);
+        MetricResponse response = MetricResponse.of(MetricResponse.LEVEL_AREA, area);
 
         
         return ResponseEntity.status(HttpStatus.OK).body(response);
@@ -204,17 +273,17 @@ public class LevelController {
      * @return calkowita kubatura poziomu w metrach sześciennych
      * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value="/{levelId}/cube", method = RequestMethod.GET, produces="application/json")
-    public ResponseEntity<Map<String, Object>> getCubeOfLevel(@PathVariable int buildingId, @PathVariable int levelId) {
+    @RequestMapping(value="/{levelId}/cube", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getCubeOfLevel(@PathVariable int buildingId, @PathVariable int levelId) {
         Level level = getLevel(buildingId, levelId);
         CubeVisitor cubeVisitor = new CubeVisitor();
         logger.debug("Getting total cube for level ID: {} in Building with ID: {}", levelId, buildingId);
         
-        double cube = cubeVisitor.visit(level);
+        double cube = resultCache.compute(level, CubeVisitor.class, 0, () -> cubeVisitor.visit(level));
 
         logger.info("Cube for level ID {}: {}", levelId, cube);
 
-        Map<String, Object> response = Map.of("cube", cube);
+        MetricResponse response = MetricResponse.of(MetricResponse.LEVEL_CUBE, cube);
 
         
         return ResponseEntity.status(HttpStatus.OK).body(response);
@@ -228,18 +297,18 @@ public class LevelController {
      * @return calkowita moc oświetlenia poziomu w watach
      * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value="/{levelId}/light-power", method = RequestMethod.GET, produces="application/json")
-    public ResponseEntity<Map<String, Object>> getLightPowerOfLevel(@PathVariable int buildingId, @PathVariable int levelId) {
+    @RequestMapping(value="/{levelId}/light-power", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getLightPowerOfLevel(@PathVariable int buildingId, @PathVariable int levelId) {
         Level level = getLevel(buildingId, levelId);
         LightVisitor lightVisitor = new LightVisitor();
 
         logger.debug("Getting total light power for level ID: {} in Building with ID: {}", levelId, buildingId);
 
-        double lightPower = lightVisitor.visit(level);
+        double lightPower = resultCache.compute(level, LightVisitor.class, 0, () -> lightVisitor.visit(level));
 
         logger.info("Light power for level ID {}: {}", levelId, lightPower);
 
-        Map<String, Object> response = Map.of("lightPower", lightPower);
+        MetricResponse response = MetricResponse.of(MetricResponse.LEVEL_LIGHT_POWER, lightPower);
 
 
 
@@ -254,18 +323,18 @@ public class LevelController {
      * @return calkowite zuzycie energii poziomu w kilowatogodzinach
      * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value="/{levelId}/energy-consumption", method = RequestMethod.GET, produces="application/json")
-    public ResponseEntity<Map<String,Object>> getEnergyConsumptionOfLevel(@PathVariable int buildingId, @PathVariable int levelId) {
+    @RequestMapping(value="/{levelId}/energy-consumption", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getEnergyConsumptionOfLevel(@PathVariable int buildingId, @PathVariable int levelId) {
         Level level = getLevel(buildingId, levelId);
         EnergyVisitor energyVisitor = new EnergyVisitor();
 
         logger.debug("Getting total energy consumption for level ID: {} in Building with ID: {}", levelId, buildingId);
 
-        double energyConsumption = energyVisitor.visit(level);
+        double energyConsumption = resultCache.compute(level, EnergyVisitor.class, 0, () -> energyVisitor.visit(level));
 
         logger.info("Energy consumption for level ID {}: {}", levelId, energyConsumption);
 
-        Map<String, Object> response = Map.of("energyConsumption", energyConsumption);
+        MetricResponse response = MetricResponse.of(MetricResponse.LEVEL_ENERGY_CONSUMPTION, energyConsumption);
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
@@ -279,17 +348,16 @@ public class LevelController {
      * @return odpowiedź zawierająca koszt oświetlenia na poziomie
      * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{levelId}/light-cost", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Map<String, Object>> getLightCostOnLevel(@PathVariable int buildingId, @PathVariable int levelId, @RequestParam double lightCost) {
+    @RequestMapping(value = "/{levelId}/light-cost", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getLightCostOnLevel(@PathVariable int buildingId, @PathVariable int levelId, @RequestParam double lightCost) {
         Level level = getLevel(buildingId, levelId);
         logger.debug("Checking the cost of light for level with ID: {} in building with ID: {}", levelId, buildingId);
         LightCostVisitor visitor = new LightCostVisitor(lightCost);
 
-        level.accept(visitor);
+        double cost = resultCache.compute(level, LightCostVisitor.class, lightCost, () -> visitor.visit(level));
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("cost of lighting", visitor.visit(level));
-        logger.info("The cost of lighting for level with ID: {} in building with ID: {} is {}", levelId, buildingId, visitor.visit(level));
+        MetricResponse response = MetricResponse.of(MetricResponse.LIGHT_COST, cost);
+        logger.info("The cost of lighting for level with ID: {} in building with ID: {} is {}", levelId, buildingId, cost);
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
@@ -303,19 +371,42 @@ public class LevelController {
      * @return odpowiedź zawierająca koszt energii na poziomie
      * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{levelId}/energy-cost", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Map<String, Object>> getEnergyCostOnLevel(@PathVariable int buildingId, @PathVariable int levelId, @RequestParam double energyCost) {
+    @RequestMapping(value = "/{levelId}/energy-cost", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getEnergyCostOnLevel(@PathVariable int buildingId, @PathVariable int levelId, @RequestParam double energyCost) {
         Level level = getLevel(buildingId, levelId);
         logger.debug("Checking the cost of energy for level with ID: {} in building with ID: {}", levelId, buildingId);
         EnergyCostVisitor visitor = new EnergyCostVisitor(energyCost);
 
-        level.accept(visitor);
+        double cost = resultCache.compute(level, EnergyCostVisitor.class, energyCost, () -> visitor.visit(level));
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("cost of energy", visitor.visit(level));
-        logger.info("The cost of energy for level with ID: {} in building with ID: {} is {}", levelId, buildingId, visitor.visit(level));
+        MetricResponse response = MetricResponse.of(MetricResponse.ENERGY_COST, cost);
+        logger.info("The cost of energy for level with ID: {} in building with ID: {} is {}", levelId, buildingId, cost);
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
+    /**
+     * Oblicza w jednym przejsciu wszystkie parametry poziomu: powierzchnie, kubature, moc oświetlenia,
+     * zuzycie energii oraz koszty oświetlenia i energii.
+     *
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu
+     * @param lightCost koszt oświetlenia na jednostkę; domyślnie 0
+     * @param energyCost koszt energii na jednostkę; domyślnie 0
+     * @return odpowiedź zawierająca wszystkie parametry poziomu
+     * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje
+     */
+    @RequestMapping(value = "/{levelId}/summary", method = RequestMethod.GET)
+    public ResponseEntity<SummaryResponse> getSummaryOfLevel(@PathVariable int buildingId, @PathVariable int levelId,
+                                                                 @RequestParam(defaultValue = "0") double lightCost,
+                                                                 @RequestParam(defaultValue = "0") double energyCost) {
+        Level level = getLevel(buildingId, levelId);
+        logger.debug("Calculating summary for level ID: {} in building with ID: {}", levelId, buildingId);
+        SummaryVisitor visitor = new SummaryVisitor(lightCost, energyCost);
+
+        level.accept(visitor);
+        logger.info("Summary for level ID {}: area {}, energy consumption {}", levelId, visitor.getArea(), visitor.getEnergy());
+
+        return ResponseEntity.status(HttpStatus.OK).body(SummaryResponse.of(visitor));
+    }
 }
@@ -0,0 +1,270 @@
+package pl.put.poznan.buildingInfo.rest;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import pl.put.poznan.buildingInfo.logic.locations.Location;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+
+/**
+ * Znaczniki ETag lokalizacji oparte na ich wersjach ({@link Location#getVersion()}).
+ *
+ * Modyfikacja lokalizacji nadaje nowa wersje jej samej i wszystkim jej przodkom, wiec wersja
+ * opisuje jednoznacznie stan lokalizacji wraz z lokalizacjami podrzednymi. Znacznik zawiera
+ * rowniez znacznik czasu uruchomienia aplikacji, poniewaz wersje sa nadawane od nowa po restarcie.
+ *
+ * Dla zadan GET dotyczacych budynku, poziomu lub pomieszczenia wskazanego w sciezce, w tym
+ * parametrow obliczanych przez odwiedzajacych, naglowek {@code If-None-Match} jest sprawdzany
+ * przed wywolaniem kontrolera: jesli wersja lokalizacji sie nie zmienila, odpowiedz 304 jest
+ * zwracana bez obliczen i serializacji. Naglowek {@code ETag} jest dodawany do odpowiedzi tylko
+ * wtedy, gdy odpowiedz na pewno odpowiada wersji ze znacznika, tj. gdy zwracana lokalizacja
+ * ma te wersje lub gdy wersja lokalizacji nie zmienila sie w trakcie obslugi zadania.
+ *
+ * Ta sama wersja lokalizacji moze byc zwrocona w formacie JSON, Smile lub CBOR ({@link LocationMediaTypes})
+ * i skompresowana gzip, wiec znacznik odpowiedzi w formacie binarnym lub skompresowanej zawiera dodatkowo
+ * nazwe reprezentacji, a odpowiedzi zawieraja naglowek {@code Vary: Accept}. Przy sprawdzaniu
+ * {@code If-None-Match} reprezentacja jest wyznaczana z naglowkow {@code Accept} i {@code Accept-Encoding},
+ * a znacznik klienta musi byc rowny calemu znacznikowi tej reprezentacji. Poniewaz kompresja zalezy
+ * od rozmiaru odpowiedzi, klient akceptujacy gzip moze miec znacznik wersji nieskompresowanej lub
+ * skompresowanej JSON; odpowiedz 304 zawiera wtedy ten z nich, ktory podal klient.
+ */
+@ControllerAdvice(assignableTypes = {BuildingController.class, LevelController.class, RoomController.class,
+        LocationIndexController.class})
+public class LocationEtags implements HandlerInterceptor, ResponseBodyAdvice<Object>, WebMvcConfigurer {
+
+    /**
+     * Oczekiwana wersja z naglowka {@code If-Match}, ktorej nie ma zadna lokalizacja.
+     */
+    public static final long NO_VERSION = -1;
+
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private static final String VERSION_ATTRIBUTE = LocationEtags.class.getName() + ".version";
+
+    private final BuildingRepository repository;
+
+    @Autowired
+    public LocationEtags(BuildingRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @param location zamrozona lokalizacja
+     * @return silny znacznik ETag wersji lokalizacji
+     */
+    public static String etag(Location location) {
+        return etag(location.getVersion());
+    }
+
+    private static String etag(long version) {
+        return etag(version, null);
+    }
+
+    private static String etag(long version, String representation) {
+        return "\"" + EPOCH + "-" + version + (representation == null ? "" : "-" + representation) + "\"";
+    }
+
+    /**
+     * Zwraca wersje lokalizacji oczekiwana przez naglowek {@code If-Match}.
+     *
+     * @param ifMatch wartosc naglowka lub {@code null}
+     * @return {@link BuildingRepository#ANY_VERSION} dla braku naglowka lub {@code *}, wersja ze
+     *         znacznika wydanego przez te instancje aplikacji lub {@link #NO_VERSION}
+     */
+    public static long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return BuildingRepository.ANY_VERSION;
+        }
+        for (String tag : ifMatch.split(",")) {
+            long version = version(tag.trim());
+            if (version != NO_VERSION) {
+                return version;
+            }
+        }
+        return NO_VERSION;
+    }
+
+    /**
+     * @param tag silny znacznik ETag
+     * @return wersja ze znacznika wydanego przez te instancje aplikacji, w dowolnej reprezentacji,
+     *         lub {@link #NO_VERSION}
+     */
+    private static long version(String tag) {
+        String prefix = "\"" + EPOCH + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            return NO_VERSION;
+        }
+        int end = tag.indexOf('-', prefix.length());
+        try {
+            return Long.parseLong(tag.substring(prefix.length(), end < 0 ? tag.length() - 1 : end));
+        } catch (NumberFormatException e) {
+            return NO_VERSION;
+        }
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this).addPathPatterns("/buildings/**", "/levels/**", "/rooms/**");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!isRead(request.getMethod())) {
+            return true;
+        }
+        long version = currentVersion(request);
+        if (version == 0) {
+            return true;
+        }
+        request.setAttribute(VERSION_ATTRIBUTE, version);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        String etag = ifNoneMatch == null ? null : match(ifNoneMatch, version,
+                request.getHeader(HttpHeaders.ACCEPT), request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (etag != null) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+                                  Class<? extends HttpMessageConverter<?>> converterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest)) {
+            return body;
+        }
+        HttpHeaders headers = response.getHeaders();
+        if (!headers.getVary().contains(HttpHeaders.ACCEPT)) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+        if (!isRead(servletRequest.getMethod()) && !"PUT".equals(servletRequest.getMethod())) {
+            return body;
+        }
+        String representation = representation(contentType, headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        Location location = body instanceof LocationProjection ? ((LocationProjection) body).getLocation()
+                : body instanceof Location ? (Location) body : null;
+        if (location != null && location.isFrozen()) {
+            headers.setETag(etag(location.getVersion(), representation));
+            return body;
+        }
+        Object version = servletRequest.getAttribute(VERSION_ATTRIBUTE);
+        if (version != null && (long) version == currentVersion(servletRequest)) {
+            headers.setETag(etag((long) version, representation));
+        }
+        return body;
+    }
+
+    /**
+     * @return nazwa reprezentacji innej niz nieskompresowany JSON lub {@code null}
+     */
+    private static String representation(MediaType contentType, String contentEncoding) {
+        String format = null;
+        if (contentType != null && contentType.getSubtype().contains("smile")) {
+            format = "smile";
+        } else if (contentType != null && contentType.getSubtype().contains("cbor")) {
+            format = "cbor";
+        }
+        if (contentEncoding == null || contentEncoding.equalsIgnoreCase("identity")) {
+            return format;
+        }
+        return format == null ? contentEncoding : format + "." + contentEncoding;
+    }
+
+    /**
+     * Zwraca biezaca wersje lokalizacji wskazanej przez zmienne sciezki zadania.
+     *
+     * @return wersja lokalizacji lub 0, jesli zadanie nie wskazuje istniejacej lokalizacji
+     */
+    private long currentVersion(HttpServletRequest request) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null) {
+            return 0;
+        }
+        Location location;
+        try {
+            Integer buildingId = id(variables, "buildingId");
+            Integer levelId = id(variables, "levelId");
+            Integer roomId = id(variables, "roomId");
+            if (roomId != null) {
+                location = buildingId != null && levelId != null
+                        ? repository.findRoom(buildingId, levelId, roomId)
+                        : repository.findRoom(roomId);
+            } else if (levelId != null) {
+                location = buildingId != null ? repository.findLevel(buildingId, levelId) : repository.findLevel(levelId);
+            } else if (buildingId != null) {
+                location = repository.findBuilding(buildingId);
+            } else {
+                location = null;
+            }
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        return location == null ? 0 : location.getVersion();
+    }
+
+    private static Integer id(Map<String, String> variables, String name) {
+        String value = variables.get(name);
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    /**
+     * Porownuje znaczniki z naglowka {@code If-None-Match} ze znacznikami reprezentacji, w ktorych
+     * odpowiedz moglaby zostac zwrocona klientowi.
+     *
+     * @return znacznik reprezentacji rowny znacznikowi klienta lub {@code null}
+     */
+    private static String match(String ifNoneMatch, long version, String accept, String acceptEncoding) {
+        String format = LocationMediaTypes.preferred(accept);
+        if (format == null) {
+            return null;
+        }
+        String plain = etag(version, format.equals(LocationMediaTypes.SMILE) ? "smile"
+                : format.equals(LocationMediaTypes.CBOR) ? "cbor" : null);
+        String gzip = format.equals(LocationMediaTypes.JSON) && LocationJsonCache.acceptsGzip(acceptEncoding)
+                ? etag(version, "gzip") : null;
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(plain)) {
+                return plain;
+            }
+            if (tag.equals(gzip)) {
+                return gzip;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRead(String method) {
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+}
@@ -0,0 +1,194 @@
+package pl.put.poznan.buildingInfo.rest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+import pl.put.poznan.buildingInfo.repository.LocationPath;
+
+/**
+ * Kontroler udostepniajacy bezposredni dostep do poziomow ({@link Level}) i pomieszczen ({@link Room})
+ * na podstawie samego identyfikatora, bez podawania identyfikatorow lokalizacji nadrzednych.
+ *
+ * Lokalizacje sa wyszukiwane w globalnym indeksie repozytorium w czasie stalym, niezaleznie
+ * od liczby zaladowanych budynkow. Obliczenia sa delegowane do {@link LevelController}
+ * i {@link RoomController}.
+ */
+@RestController
+@RequestMapping(produces = {LocationMediaTypes.JSON, LocationMediaTypes.SMILE, LocationMediaTypes.CBOR})
+public class LocationIndexController {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationIndexController.class);
+
+    private final BuildingRepository repository;
+    private final LevelController levelController;
+    private final RoomController roomController;
+    private final LocationJsonCache jsonCache;
+
+    @Autowired
+    public LocationIndexController(BuildingRepository repository, LevelController levelController, RoomController roomController,
+                                   LocationJsonCache jsonCache) {
+        this.repository = repository;
+        this.levelController = levelController;
+        this.roomController = roomController;
+        this.jsonCache = jsonCache;
+    }
+
+    /**
+     * Pobiera pomieszczenie na podstawie jego identyfikatora.
+     *
+     * @param roomId identyfikator pomieszczenia
+     * @param fields nazwy zwracanych wlasciwosci rozdzielone przecinkami, np. {@code id,name}; domyslnie wszystkie
+     * @return szczegoly pomieszczenia lub jego projekcja ({@link LocationProjection}), jesli podano {@code fields}
+     * @throws ResponseStatusException jeśli pomieszczenie o podanym identyfikatorze nie istnieje lub projekcja jest nieprawidlowa
+     */
+    @RequestMapping(value = "/rooms/{roomId}", method = RequestMethod.GET)
+    public Object getRoom(@PathVariable int roomId, @RequestParam(required = false) String fields) {
+        logger.debug("Fetching Room with ID: {} from global index", roomId);
+        Room room = repository.findRoom(roomId);
+        if (room == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room with ID: " + roomId + " not found");
+        }
+        return fields == null ? room : LocationProjection.of(room, fields, null);
+    }
+
+    /**
+     * Zwraca identyfikatory lokalizacji nadrzednych pomieszczenia.
+     *
+     * @param roomId identyfikator pomieszczenia
+     * @return identyfikatory budynku, poziomu i pomieszczenia
+     * @throws ResponseStatusException jeśli pomieszczenie o podanym identyfikatorze nie istnieje
+     */
+    @RequestMapping(value = "/rooms/{roomId}/path", method = RequestMethod.GET)
+    public LocationPath getRoomPath(@PathVariable int roomId) {
+        LocationPath path = repository.findRoomPath(roomId);
+        if (path == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room with ID: " + roomId + " not found");
+        }
+        return path;
+    }
+
+    @RequestMapping(value = "/rooms/{roomId}/area", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getAreaOfRoom(@PathVariable int roomId) {
+        LocationPath path = getRoomPath(roomId);
+        return roomController.getAreaOfRoom(path.getBuildingId(), path.getLevelId(), roomId);
+    }
+
+    @RequestMapping(value = "/rooms/{roomId}/cube", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getCubeOfRoom(@PathVariable int roomId) {
+        LocationPath path = getRoomPath(roomId);
+        return roomController.getCubeOfRoom(path.getBuildingId(), path.getLevelId(), roomId);
+    }
+
+    @RequestMapping(value = "/rooms/{roomId}/light-power", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getLightPowerOfRoom(@PathVariable int roomId) {
+        LocationPath path = getRoomPath(roomId);
+        return roomController.getLightPowerOfRoom(path.getBuildingId(), path.getLevelId(), roomId);
+    }
+
+    @RequestMapping(value = "/rooms/{roomId}/energy-consumption", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getEnergyConsumptionOfRoom(@PathVariable int roomId) {
+        LocationPath path = getRoomPath(roomId);
+        return roomController.getEnergyConsumptionOfRoom(path.getBuildingId(), path.getLevelId(), roomId);
+    }
+
+    @RequestMapping(value = "/rooms/{roomId}/light-cost", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getLightCostOfRoom(@PathVariable int roomId, @RequestParam double lightCost) {
+        LocationPath path = getRoomPath(roomId);
+        return roomController.getLightCostOfRoom(path.getBuildingId(), path.getLevelId(), roomId, lightCost);
+    }
+
+    @RequestMapping(value = "/rooms/{roomId}/energy-cost", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getEnergyCostOfRoom(@PathVariable int roomId, @RequestParam double energyCost) {
+        LocationPath path = getRoomPath(roomId);
+        return roomController.getEnergyCostOfRoom(path.getBuildingId(), path.getLevelId(), roomId, energyCost);
+    }
+
+    /**
+     * Pobiera poziom na podstawie jego identyfikatora.
+     *
+     * @param levelId identyfikator poziomu
+     * @param fields nazwy zwracanych wlasciwosci rozdzielone przecinkami, np. {@code id,name}; domyslnie wszystkie
+     * @param depth liczba poziomow zagniezdzenia zwracanych lokalizacji podrzednych; domyslnie bez ograniczenia
+     * @param accept naglowek {@code Accept}; z pamieci podrecznej korzystaja tylko odpowiedzi w formacie JSON
+     * @param acceptEncoding naglowek {@code Accept-Encoding}; odpowiedz z pamieci podrecznej moze byc skompresowana gzip
+     * @return szczegoly poziomu, zakodowane z pamieci podrecznej ({@link LocationJsonCache}), lub jego
+     *         projekcja ({@link LocationProjection}), jesli podano {@code fields} lub {@code depth}
+     * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje lub projekcja jest nieprawidlowa
+     */
+    @RequestMapping(value = "/levels/{levelId}", method = RequestMethod.GET)
+    public Object getLevel(@PathVariable int levelId,
+                           @RequestParam(required = false) String fields,
+                           @RequestParam(required = false) Integer depth,
+                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        logger.debug("Fetching Level with ID: {} from global index", levelId);
+        Level level = repository.findLevel(levelId);
+        if (level == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Level with ID: " + levelId + " not found");
+        }
+        if (fields == null && depth == null) {
+            return jsonCache.respond(level, accept, acceptEncoding);
+        }
+        return LocationProjection.of(level, fields, depth);
+    }
+
+    /**
+     * Zwraca identyfikatory lokalizacji nadrzednych poziomu.
+     *
+     * @param levelId identyfikator poziomu
+     * @return identyfikatory budynku i poziomu
+     * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje
+     */
+    @RequestMapping(value = "/levels/{levelId}/path", method = RequestMethod.GET)
+    public LocationPath getLevelPath(@PathVariable int levelId) {
+        LocationPath path = repository.findLevelPath(levelId);
+        if (path == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Level with ID: " + levelId + " not found");
+        }
+        return path;
+    }
+
+    @RequestMapping(value = "/levels/{levelId}/area", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getAreaOfLevel(@PathVariable int levelId) {
+        return levelController.getAreaOfLevel(getLevelPath(levelId).getBuildingId(), levelId);
+    }
+
+    @RequestMapping(value = "/levels/{levelId}/cube", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getCubeOfLevel(@PathVariable int levelId) {
+        return levelController.getCubeOfLevel(getLevelPath(levelId).getBuildingId(), levelId);
+    }
+
+    @RequestMapping(value = "/levels/{levelId}/light-power", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getLightPowerOfLevel(@PathVariable int levelId) {
+        return levelController.getLightPowerOfLevel(getLevelPath(levelId).getBuildingId(), levelId);
+    }
+
+    @RequestMapping(value = "/levels/{levelId}/energy-consumption", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getEnergyConsumptionOfLevel(@PathVariable int levelId) {
+        return levelController.getEnergyConsumptionOfLevel(getLevelPath(levelId).getBuildingId(), levelId);
+    }
+
+    @RequestMapping(value = "/levels/{levelId}/light-cost", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getLightCostOnLevel(@PathVariable int levelId, @RequestParam double lightCost) {
+        return levelController.getLightCostOnLevel(getLevelPath(levelId).getBuildingId(), levelId, lightCost);
+    }
+
+    @RequestMapping(value = "/levels/{levelId}/energy-cost", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getEnergyCostOnLevel(@PathVariable int levelId, @RequestParam double energyCost) {
+        return levelController.getEnergyCostOnLevel(getLevelPath(levelId).getBuildingId(), levelId, energyCost);
+    }
+}
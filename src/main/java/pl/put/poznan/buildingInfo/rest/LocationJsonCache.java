@@ -0,0 +1,320 @@
+package pl.put.poznan.buildingInfo.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Location;
+
+/**
+ * Pamiec podreczna lokalizacji zakodowanych w formacie JSON, ograniczona laczna liczba bajtow
+ * i usuwajaca dawno nieuzywane wpisy.
+ *
+ * Kluczem wpisu jest wersja lokalizacji ({@link Location#getVersion()}), wiec modyfikacja
+ * lokalizacji lub jej lokalizacji podrzednych powoduje zakodowanie nowej wersji, a wpisy dla
+ * nieaktualnych wersji sa z czasem usuwane. Zapamietane bajty sa zwracane jako tresc odpowiedzi
+ * bez ponownej serializacji, a dla klientow akceptujacych kodowanie gzip - w postaci skompresowanej,
+ * tworzonej przy pierwszym takim zadaniu. Klienci oczekujacy formatu binarnego otrzymuja lokalizacje
+ * serializowana przez odpowiedni konwerter. Naglowek {@code ETag} odpowiedzi dodaje {@link LocationEtags}.
+ *
+ * Lokalizacje, ktorych kod JSON przekracza limit rozmiaru wpisu, oraz lokalizacje z poziomami
+ * przechowywanymi poza sterta nie sa zapamietywane i sa serializowane strumieniowo przy kazdym zadaniu.
+ *
+ * Odczyt wpisu nie wymaga blokady: wpisy sa przechowywane w {@link ConcurrentHashMap}, a odczyt
+ * jedynie ustawia znacznik uzycia wpisu. Po przekroczeniu limitu rozmiaru jeden watek usuwa wpisy
+ * algorytmem zegarowym (CLOCK), przyblizajacym LRU: wpis z ustawionym znacznikiem traci go
+ * i pozostaje w pamieci, a wpis bez znacznika jest usuwany.
+ */
+@Component
+public class LocationJsonCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationJsonCache.class);
+
+    /**
+     * Minimalny rozmiar kodu JSON, od ktorego odpowiedz jest kompresowana.
+     */
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    /**
+     * Umowny rozmiar wpisu lokalizacji, ktorej kod JSON przekracza limit rozmiaru wpisu. Takie wpisy
+     * nie przechowuja bajtow, ale sa wliczane do limitu pamieci, wiec tez sa z czasem usuwane.
+     */
+    private static final int TOO_LARGE_BYTES = 64;
+
+    private final ObjectMapper mapper;
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final boolean gzip;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final ReentrantLock evicting = new ReentrantLock();
+    /**
+     * Wskazowka zegara: pozycja, od ktorej kolejne usuwanie przeglada wpisy. Chroniona przez {@link #evicting}.
+     */
+    private Iterator<Map.Entry<Long, Entry>> hand;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public LocationJsonCache(ObjectMapper mapper,
+                             @Value("${building-info.cache.json.max-bytes:67108864}") long maxBytes,
+                             @Value("${building-info.cache.json.max-entry-bytes:8388608}") int maxEntryBytes,
+                             @Value("${building-info.cache.json.gzip:true}") boolean gzip) {
+        this.mapper = mapper;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = (int) Math.min(maxEntryBytes, maxBytes);
+        this.gzip = gzip;
+    }
+
+    /**
+     * Zwraca odpowiedz z lokalizacja zakodowana w formacie JSON.
+     *
+     * @param location budynek lub poziom
+     * @param accept wartosc naglowka {@code Accept} lub {@code null}
+     * @param acceptEncoding wartosc naglowka {@code Accept-Encoding} lub {@code null}
+     * @return odpowiedz z zapamietanymi bajtami JSON lub sama lokalizacja, jesli nie moze zostac zapamietana
+     *         albo klient oczekuje formatu binarnego ({@link LocationMediaTypes})
+     */
+    public Object respond(Location location, String accept, String acceptEncoding) {
+        if (!LocationMediaTypes.prefersJson(accept)) {
+            return location;
+        }
+        Entry entry = find(location);
+        if (entry == null) {
+            return location;
+        }
+        boolean compress = gzip && entry.json.length >= GZIP_MIN_BYTES && acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (!compress) {
+            return response.body(entry.json);
+        }
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzipped(location.getVersion(), entry));
+    }
+
+    private Entry find(Location location) {
+        long version = location.getVersion();
+        if (version == 0 || maxBytes <= 0 || isOffHeap(location)) {
+            return null;
+        }
+        Entry entry = entries.get(version);
+        if (entry != null) {
+            hits.incrementAndGet();
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.json == null ? null : entry;
+        }
+        misses.incrementAndGet();
+        entry = encode(location);
+        if (entry == null) {
+            return null;
+        }
+        if (entries.putIfAbsent(version, entry) == null && bytes.addAndGet(entry.size()) > maxBytes) {
+            evict();
+        }
+        return entry.json == null ? null : entry;
+    }
+
+    /**
+     * @return wpis z kodem JSON, wpis bez bajtow dla lokalizacji przekraczajacej limit rozmiaru wpisu
+     *         lub {@code null}, jesli serializacja sie nie powiodla i lokalizacja nie powinna byc zapamietana
+     */
+    private Entry encode(Location location) {
+        BoundedOutputStream out = new BoundedOutputStream(maxEntryBytes);
+        try {
+            mapper.writeValue(out, location);
+        } catch (IOException | RuntimeException e) {
+            if (out.exceeded) {
+                return new Entry(null);
+            }
+            logger.warn("Failed to encode location {} as JSON: {}", location.getVersion(), e.getMessage());
+            return null;
+        }
+        return new Entry(out.toByteArray());
+    }
+
+    private byte[] gzipped(long version, Entry entry) {
+        byte[] compressed = entry.gzip;
+        if (compressed != null) {
+            return compressed;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(entry.json.length / 4);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(entry.json);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        compressed = out.toByteArray();
+        boolean added = false;
+        synchronized (entry) {
+            if (entry.gzip == null && entries.get(version) == entry) {
+                entry.gzip = compressed;
+                added = true;
+            }
+        }
+        if (added && bytes.addAndGet(compressed.length) > maxBytes) {
+            evict();
+        }
+        return compressed;
+    }
+
+    /**
+     * Usuwa wpisy algorytmem zegarowym, az laczny rozmiar nie przekracza limitu. Jesli usuwanie
+     * wykonuje juz inny watek, metoda konczy sie od razu. Po dwoch pelnych obrotach wskazowki
+     * wpisy sa usuwane bez wzgledu na znacznik uzycia, wiec usuwanie zawsze sie konczy.
+     */
+    private void evict() {
+        if (!evicting.tryLock()) {
+            return;
+        }
+        try {
+            int rounds = 0;
+            while (bytes.get() > maxBytes && !entries.isEmpty()) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    rounds++;
+                    continue;
+                }
+                Map.Entry<Long, Entry> candidate = hand.next();
+                Entry entry = candidate.getValue();
+                if (entry.referenced && rounds <= 2) {
+                    entry.referenced = false;
+                    continue;
+                }
+                if (entries.remove(candidate.getKey(), entry)) {
+                    synchronized (entry) {
+                        bytes.addAndGet(-entry.size());
+                    }
+                }
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    private static boolean isOffHeap(Location location) {
+        if (location instanceof Level) {
+            return ((Level) location).isOffHeap();
+        }
+        if (location instanceof Building) {
+            for (Level level : ((Building) location).getLevelsInBuilding()) {
+                if (level.isOffHeap()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param acceptEncoding wartosc naglowka {@code Accept-Encoding} lub {@code null}
+     * @return {@code true}, jesli klient akceptuje kodowanie gzip
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].replace(" ", "");
+                if (parameter.matches("q=0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return laczny rozmiar zapamietanych bajtow
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static final class Entry {
+        final byte[] json;
+        volatile byte[] gzip;
+        volatile boolean referenced;
+
+        Entry(byte[] json) {
+            this.json = json;
+        }
+
+        long size() {
+            return (json == null ? TOO_LARGE_BYTES : json.length) + (gzip == null ? 0 : gzip.length);
+        }
+    }
+
+    /**
+     * Bufor przerywajacy zapis po przekroczeniu limitu rozmiaru.
+     */
+    private static final class BoundedOutputStream extends ByteArrayOutputStream {
+        private final int limit;
+        boolean exceeded;
+
+        BoundedOutputStream(int limit) {
+            super(Math.min(limit, 8192));
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) {
+            check(1);
+            super.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            check(len);
+            super.write(b, off, len);
+        }
+
+        private void check(int len) {
+            if (count + len > limit) {
+                exceeded = true;
+                throw new LimitExceededException();
+            }
+        }
+    }
+
+    private static final class LimitExceededException extends RuntimeException {
+        LimitExceededException() {
+            super(null, null, false, false);
+        }
+    }
+}
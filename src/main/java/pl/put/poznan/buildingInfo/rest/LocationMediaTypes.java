@@ -0,0 +1,85 @@
+package pl.put.poznan.buildingInfo.rest;
+
+import java.util.List;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Typy tresci obslugiwane przez API lokalizacji.
+ *
+ * Oprocz JSON kazdy punkt koncowy zwraca i przyjmuje binarne formaty Jacksona: Smile i CBOR,
+ * wybierane naglowkami {@code Accept} i {@code Content-Type}. Formaty binarne koduja ten sam model
+ * danych co JSON, wiec odpowiedzi maja te same wlasciwosci, a dla klientow bez naglowka {@code Accept}
+ * domyslnym formatem pozostaje JSON.
+ */
+public final class LocationMediaTypes {
+
+    /**
+     * Format JSON.
+     */
+    public static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+
+    /**
+     * Binarny format Smile.
+     */
+    public static final String SMILE = "application/x-jackson-smile";
+
+    /**
+     * Binarny format CBOR (RFC 7049).
+     */
+    public static final String CBOR = "application/cbor";
+
+    private static final MediaType JSON_TYPE = MediaType.APPLICATION_JSON;
+    private static final MediaType SMILE_TYPE = MediaType.parseMediaType(SMILE);
+    private static final MediaType CBOR_TYPE = MediaType.parseMediaType(CBOR);
+
+    private LocationMediaTypes() {
+    }
+
+    /**
+     * Sprawdza, czy klient otrzyma odpowiedz w formacie JSON, tj. czy JSON jest najbardziej preferowanym
+     * z obslugiwanych formatow.
+     *
+     * @param accept wartosc naglowka {@code Accept} lub {@code null}
+     * @return {@code true}, jesli odpowiedz zostanie zakodowana w formacie JSON
+     */
+    public static boolean prefersJson(String accept) {
+        return JSON.equals(preferred(accept));
+    }
+
+    /**
+     * Zwraca najbardziej preferowany przez klienta z obslugiwanych formatow.
+     *
+     * @param accept wartosc naglowka {@code Accept} lub {@code null}
+     * @return {@link #JSON}, {@link #SMILE}, {@link #CBOR} lub {@code null}, jesli klient nie akceptuje
+     *         zadnego z nich
+     */
+    public static String preferred(String accept) {
+        if (accept == null || accept.trim().isEmpty()) {
+            return JSON;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MediaType.sortBySpecificityAndQuality(types);
+        for (MediaType type : types) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            if (type.isCompatibleWith(JSON_TYPE)) {
+                return JSON;
+            }
+            if (type.isCompatibleWith(SMILE_TYPE)) {
+                return SMILE;
+            }
+            if (type.isCompatibleWith(CBOR_TYPE)) {
+                return CBOR;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,148 @@
+package pl.put.poznan.buildingInfo.rest;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Location;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+
+/**
+ * Lokalizacja ograniczona do wybranych wlasciwosci i glebokosci zagniezdzenia.
+ *
+ * Projekcja jest serializowana bezposrednio przez {@link JsonGenerator}, z pominieciem
+ * niewybranych wlasciwosci i lokalizacji podrzednych ponizej zadanej glebokosci, wiec
+ * nie sa dla nich tworzone ani serializowane zadne obiekty. Nazwy wlasciwosci sa takie jak
+ * w pelnej serializacji i dotycza lokalizacji na wszystkich poziomach zagniezdzenia,
+ * np. {@code id,name,levelsInBuilding} zwraca budynek z identyfikatorami i nazwami poziomow.
+ */
+@JsonSerialize(using = LocationProjection.Serializer.class)
+public final class LocationProjection {
+
+    private static final Set<String> PROPERTIES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "id", "name", "levelsInBuilding", "roomsOnLevel", "area", "cube", "heating", "light")));
+
+    private final Location location;
+    private final Set<String> fields;
+    private final int depth;
+
+    private LocationProjection(Location location, Set<String> fields, int depth) {
+        this.location = location;
+        this.fields = fields;
+        this.depth = depth;
+    }
+
+    /**
+     * Tworzy projekcje lokalizacji.
+     *
+     * @param location budynek, poziom lub pomieszczenie
+     * @param fields nazwy wlasciwosci rozdzielone przecinkami lub {@code null} dla wszystkich wlasciwosci
+     * @param depth liczba poziomow zagniezdzenia lokalizacji podrzednych lub {@code null} bez ograniczenia
+     * @return projekcja lokalizacji
+     * @throws ResponseStatusException jesli podano nieznana wlasciwosc lub ujemna glebokosc
+     */
+    public static LocationProjection of(Location location, String fields, Integer depth) {
+        Set<String> selected = null;
+        if (fields != null) {
+            selected = new LinkedHashSet<>();
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!PROPERTIES.contains(name)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + name);
+                }
+                selected.add(name);
+            }
+        }
+        if (depth != null && depth < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Depth must not be negative");
+        }
+        return new LocationProjection(location, selected, depth == null ? Integer.MAX_VALUE : depth);
+    }
+
+    /**
+     * @return lokalizacja objeta projekcja
+     */
+    Location getLocation() {
+        return location;
+    }
+
+    /**
+     * Zapisuje wybrane wlasciwosci lokalizacji.
+     */
+    static final class Serializer extends JsonSerializer<LocationProjection> {
+
+        @Override
+        public void serialize(LocationProjection projection, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            write(projection.location, projection, projection.depth, generator);
+        }
+
+        private static void write(Location location, LocationProjection projection, int depth, JsonGenerator generator) throws IOException {
+            generator.writeStartObject();
+            if (location instanceof Building) {
+                Building building = (Building) location;
+                writeIdAndName(building.getId(), building.getName(), projection, generator);
+                writeChildren("levelsInBuilding", building.getLevelsInBuilding(), projection, depth, generator);
+            } else if (location instanceof Level) {
+                Level level = (Level) location;
+                writeIdAndName(level.getId(), level.getName(), projection, generator);
+                writeChildren("roomsOnLevel", level.getRoomsOnLevel(), projection, depth, generator);
+            } else {
+                Room room = (Room) location;
+                writeIdAndName(room.getId(), room.getName(), projection, generator);
+                writeNumber("area", room.getArea(), projection, generator);
+                writeNumber("cube", room.getCube(), projection, generator);
+                writeNumber("heating", room.getHeating(), projection, generator);
+                writeNumber("light", room.getLight(), projection, generator);
+            }
+            generator.writeEndObject();
+        }
+
+        private static void writeIdAndName(int id, String name, LocationProjection projection, JsonGenerator generator) throws IOException {
+            if (projection.includes("id")) {
+                generator.writeNumberField("id", id);
+            }
+            if (projection.includes("name")) {
+                generator.writeStringField("name", name);
+            }
+        }
+
+        private static void writeNumber(String field, double value, LocationProjection projection, JsonGenerator generator) throws IOException {
+            if (projection.includes(field)) {
+                generator.writeNumberField(field, value);
+            }
+        }
+
+        private static void writeChildren(String field, List<? extends Location> children, LocationProjection projection,
+                                          int depth, JsonGenerator generator) throws IOException {
+            if (depth == 0 || !projection.includes(field)) {
+                return;
+            }
+            generator.writeArrayFieldStart(field);
+            for (Location child : children) {
+                write(child, projection, depth - 1, generator);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+}
@@ -0,0 +1,121 @@
+package pl.put.poznan.buildingInfo.rest;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Niezmienna odpowiedz z pojedynczym parametrem lokalizacji, np. powierzchnia lub kosztem energii.
+ *
+ * Odpowiedz jest serializowana jako obiekt z jedna wlasciwoscia, bez tworzenia mapy i opakowywania
+ * wartosci, a nazwy wlasciwosci sa zakodowane raz, jako stale {@link Name}. Nazwy sa takie same jak
+ * w dotychczasowych odpowiedziach poszczegolnych kontrolerow, wiec format odpowiedzi sie nie zmienia.
+ */
+@JsonSerialize(using = MetricResponse.Serializer.class)
+public final class MetricResponse {
+
+    /**
+     * Powierzchnia budynku lub pomieszczenia.
+     */
+    public static final Name AREA = new Name("area:");
+
+    /**
+     * Kubatura budynku lub pomieszczenia.
+     */
+    public static final Name CUBE = new Name("cube:");
+
+    /**
+     * Moc oswietlenia budynku lub pomieszczenia.
+     */
+    public static final Name LIGHT_POWER = new Name("light power:");
+
+    /**
+     * Zuzycie energii budynku lub pomieszczenia.
+     */
+    public static final Name ENERGY_CONSUMPTION = new Name("energy consumption:");
+
+    /**
+     * Powierzchnia poziomu.
+     */
+    public static final Name LEVEL_AREA = new Name("area");
+
+    /**
+     * Kubatura poziomu.
+     */
+    public static final Name LEVEL_CUBE = new Name("cube");
+
+    /**
+     * Moc oswietlenia poziomu.
+     */
+    public static final Name LEVEL_LIGHT_POWER = new Name("lightPower");
+
+    /**
+     * Zuzycie energii poziomu.
+     */
+    public static final Name LEVEL_ENERGY_CONSUMPTION = new Name("energyConsumption");
+
+    /**
+     * Koszt oswietlenia dowolnej lokalizacji.
+     */
+    public static final Name LIGHT_COST = new Name("cost of lighting");
+
+    /**
+     * Koszt energii dowolnej lokalizacji.
+     */
+    public static final Name ENERGY_COST = new Name("cost of energy");
+
+    private final Name name;
+    private final double value;
+
+    private MetricResponse(Name name, double value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    /**
+     * @param name nazwa parametru w odpowiedzi
+     * @param value wartosc parametru
+     * @return odpowiedz z parametrem
+     */
+    public static MetricResponse of(Name name, double value) {
+        return new MetricResponse(name, value);
+    }
+
+    public String getName() {
+        return name.encoded.getValue();
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Nazwa parametru zakodowana raz dla wszystkich odpowiedzi.
+     */
+    public static final class Name {
+        private final SerializableString encoded;
+
+        private Name(String name) {
+            this.encoded = new SerializedString(name);
+        }
+    }
+
+    /**
+     * Zapisuje odpowiedz bezposrednio przez {@link JsonGenerator}.
+     */
+    static final class Serializer extends JsonSerializer<MetricResponse> {
+
+        @Override
+        public void serialize(MetricResponse response, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            generator.writeFieldName(response.name.encoded);
+            generator.writeNumber(response.value);
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package pl.put.poznan.buildingInfo.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Strona listy lokalizacji wraz z kursorem kolejnej strony.
+ *
+ * Kursor jest nieprzezroczystym napisem zawierajacym pozycje i identyfikator ostatniej zwroconej
+ * lokalizacji. Kolejna strona zaczyna sie bezposrednio za ta lokalizacja, rowniez gdy lista
+ * zmienila sie miedzy zadaniami, np. przez usuniecie wczesniejszych elementow. Jesli lokalizacja
+ * zostala usunieta, strona zaczyna sie od zapamietanej pozycji.
+ *
+ * @param <T> typ elementow strony
+ */
+public final class Page<T> {
+
+    /**
+     * Domyslna liczba elementow strony.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * Maksymalna liczba elementow strony.
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    private Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return kursor kolejnej strony lub {@code null}, jesli jest to ostatnia strona
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Tworzy strone listy.
+     *
+     * @param source lista, z ktorej pobierana jest strona
+     * @param idOf zwraca identyfikator elementu listy
+     * @param mapper przeksztalca element listy w element strony; wynik {@code null} jest pomijany
+     * @param cursor kursor zwrocony z poprzednia strona lub {@code null} dla pierwszej strony
+     * @param limit liczba elementow strony lub {@code null} dla domyslnej liczby
+     * @return strona listy
+     * @throws ResponseStatusException jesli kursor lub liczba elementow sa nieprawidlowe
+     */
+    public static <E, T> Page<T> of(List<E> source, ToIntFunction<E> idOf, Function<E, T> mapper, String cursor, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : limit;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page limit must be between 1 and " + MAX_LIMIT);
+        }
+        int from = cursor == null ? 0 : start(source, idOf, cursor);
+        List<T> items = new ArrayList<>(Math.min(size, Math.max(source.size() - from, 0)));
+        int position = from;
+        int lastId = 0;
+        while (position < source.size() && items.size() < size) {
+            E element = source.get(position++);
+            T item = mapper.apply(element);
+            if (item != null) {
+                items.add(item);
+                lastId = idOf.applyAsInt(element);
+            }
+        }
+        String next = position < source.size() ? encode(position, lastId) : null;
+        return new Page<>(Collections.unmodifiableList(items), next);
+    }
+
+    private static <E> int start(List<E> source, ToIntFunction<E> idOf, String cursor) {
+        int position;
+        int lastId;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            position = Integer.parseInt(parts[0]);
+            lastId = Integer.parseInt(parts[1]);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page cursor: " + cursor);
+        }
+        if (position < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page cursor: " + cursor);
+        }
+        if (position > 0 && position <= source.size() && idOf.applyAsInt(source.get(position - 1)) == lastId) {
+            return position;
+        }
+        for (int i = 0; i < source.size(); i++) {
+            if (idOf.applyAsInt(source.get(i)) == lastId) {
+                return i + 1;
+            }
+        }
+        return Math.min(position, source.size());
+    }
+
+    private static String encode(int position, int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((position + ":" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,18 +1,17 @@
 package pl.put.poznan.buildingInfo.rest;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -28,6 +27,9 @@ import pl.put.poznan.buildingInfo.logic.visitors.EnergyCostVisitor;
 import pl.put.poznan.buildingInfo.logic.visitors.EnergyVisitor;
 import pl.put.poznan.buildingInfo.logic.visitors.LightCostVisitor;
 import pl.put.poznan.buildingInfo.logic.visitors.LightVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.SummaryVisitor;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+import pl.put.poznan.buildingInfo.repository.VersionConflictException;
 
 
 /**
@@ -38,29 +40,38 @@ import pl.put.poznan.buildingInfo.logic.visitors.LightVisitor;
  * moc oświetlenia oraz zuzycie energii dla konkretnego pokoju.
  */
 @RestController
-@RequestMapping("/buildings/{buildingId}/{levelId}")
+@RequestMapping(value = "/buildings/{buildingId}/{levelId}", produces = {LocationMediaTypes.JSON, LocationMediaTypes.SMILE, LocationMediaTypes.CBOR})
 public class RoomController {
 
     private static final Logger logger = LoggerFactory.getLogger(LevelController.class);
 
     private final LevelController levelController;
-    public List<Room> rooms = new ArrayList<Room>();
+    private final BuildingRepository repository;
 
     @Autowired
-    public RoomController(LevelController levelController) {
+    public RoomController(LevelController levelController, BuildingRepository repository) {
         this.levelController = levelController;
+        this.repository = repository;
     }
 
     /**
      * Pobiera wszystkie pomieszczenia na wskazanym poziomie w budynku.
      *
+     * Jesli podano liczbe elementow strony lub kursor, zwracana jest jedna strona listy ({@link Page})
+     * wraz z kursorem kolejnej strony.
+     *
      * @param buildingId identyfikator budynku, w ktorym znajduje sie poziom
      * @param levelId identyfikator poziomu, z ktorego mają zostac pobrane pomieszczenia
-     * @return lista pomieszczen znajdujących sie na poziomie
+     * @param limit liczba pomieszczen na stronie; domyślnie {@value Page#DEFAULT_LIMIT}, najwyzej {@value Page#MAX_LIMIT}
+     * @param cursor kursor zwrocony z poprzednia strona
+     * @return lista pomieszczen znajdujących sie na poziomie lub strona listy
      * @throws ResponseStatusException jeśli poziom o podanym identyfikatorze nie istnieje
+     *                                 lub kursor albo liczba elementow strony sa nieprawidlowe
      */
-    @RequestMapping(value = "/all-rooms", method = RequestMethod.GET, produces = "application/json")
-    public List<Room> getAllRooms(@PathVariable int buildingId, @PathVariable int levelId) {
+    @RequestMapping(value = "/all-rooms", method = RequestMethod.GET)
+    public Object getAllRooms(@PathVariable int buildingId, @PathVariable int levelId,
+                              @RequestParam(required = false) Integer limit,
+                              @RequestParam(required = false) String cursor) {
         logger.debug("Entering getAllRooms method for Building with ID: {}", buildingId);
 
         Level level = levelController.getLevel(buildingId, levelId);
@@ -70,14 +81,13 @@ public class RoomController {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Level with ID: " + buildingId + " not found");
         }
 
-        logger.debug("Level found: {}", level);
-        logger.debug("Levels in building before getting: {}", level.getRoomsOnLevel());
-
-        rooms = level.getRoomsOnLevel();
+        List<Room> rooms = level.getRoomsOnLevel();
 
-        logger.debug("Getting all rooms on level: {} in Building with ID: {}", levelId, buildingId);
-        logger.debug("Rooms: {}", rooms);
+        logger.debug("Getting all rooms on level: {} in Building with ID: {}. Room count: {}", levelId, buildingId, rooms.size());
 
+        if (limit != null || cursor != null) {
+            return Page.of(rooms, Room::getId, room -> room, cursor, limit);
+        }
         return rooms;
     }
 
@@ -88,21 +98,24 @@ public class RoomController {
      * @param buildingId identyfikator budynku, w ktorym znajduje sie poziom
      * @param levelId identyfikator poziomu, do ktorego pomieszczenie ma zostac dodane
      * @return dodane pomieszczenie
-     * @throws ResponseStatusException jeśli pomieszczenie o podanym identyfikatorze juz istnieje
+     * @throws ResponseStatusException jeśli poziom nie istnieje lub pomieszczenie o podanym identyfikatorze juz istnieje
      */
-    @RequestMapping(method = RequestMethod.POST, consumes = "application/json", produces = "application/json")
+    @RequestMapping(method = RequestMethod.POST)
     public Room addRoom(@RequestBody Room room, @PathVariable int buildingId, @PathVariable int levelId) {
         logger.debug("Adding room: {} to level:{} in Building with ID: {}", room,  levelId, buildingId);
 
-        Level level = levelController.getLevel(buildingId, levelId);
-        for (Room rom : level.getRoomsOnLevel()) {
-            if(rom.getId() == room.getId()) {
-                logger.debug("Couldn't add room: {} to level:{} in Building with ID: {}, because it already exists", room,  levelId, buildingId);
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Room with ID: " + room.getId() + " already exists");
-            }
+        levelController.getLevel(buildingId, levelId);
+        boolean added;
+        try {
+            added = repository.addRoom(buildingId, levelId, room);
+        } catch (IllegalArgumentException e) {
+            HttpStatus status = repository.findLevel(buildingId, levelId) == null ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+            throw new ResponseStatusException(status, e.getMessage());
+        }
+        if (!added) {
+            logger.debug("Couldn't add room: {} to level:{} in Building with ID: {}, because it already exists", room,  levelId, buildingId);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Room with ID: " + room.getId() + " already exists");
         }
-
-        level.add(room);
         return room;
     }
 
@@ -113,23 +126,24 @@ public class RoomController {
      * @param levelId identyfikator poziomu, w ktorym znajduje sie pomieszczenie
      * @param roomId identyfikator pomieszczenia do aktualizacji
      * @param updatedRoom zaktualizowane dane pomieszczenia
+     * @param ifMatch znacznik ETag ({@link LocationEtags}) oczekiwanej wersji pomieszczenia; domyslnie dowolna wersja
      * @return zaktualizowane pomieszczenie
      * @throws ResponseStatusException jeśli pomieszczenie o podanym identyfikatorze nie istnieje
+     *                                 lub zostalo zmienione od wydania znacznika {@code ifMatch}
      */
     @PutMapping("/{roomId}")
-    public Room updateRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId, @RequestBody Room updatedRoom) {
+    public Room updateRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId, @RequestBody Room updatedRoom,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Updating room with ID: {}", roomId);
-        Level level = levelController.getLevel(buildingId, levelId);
-
-        Room room = level.getRoomsOnLevel()
-                .stream()
-                .filter(r -> r.getId() == roomId)
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Room with ID: " + roomId + " not found"));
-
-        room.setName(updatedRoom.getName());
-        room.setCube(updatedRoom.getCube());
-        room.setArea(updatedRoom.getArea());
+        getRoom(buildingId, levelId, roomId);
+        Room room;
+        try {
+            room = repository.updateRoom(buildingId, levelId, roomId, updatedRoom, LocationEtags.expectedVersion(ifMatch));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (VersionConflictException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+        }
         logger.info("Room with ID: {} updated successfully.", roomId);
         return room;
     }
@@ -145,15 +159,30 @@ public class RoomController {
     @DeleteMapping("/{roomId}")
     public void deleteRoom(@PathVariable int roomId, @PathVariable int buildingId, @PathVariable int levelId) {
         logger.info("Deleting room with ID: {}",roomId);
-        Level level = levelController.getLevel(buildingId, levelId);
-        Room room = level.getRoomsOnLevel()
-                .stream()
-                .filter(r -> r.getId() == roomId)
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Room with ID: " + roomId + " not found"));
-
-        level.remove(room);
-        logger.info("Room with ID: {} deleted successfully. Remaining rooms: {}", roomId, rooms.size());
+        levelController.getLevel(buildingId, levelId);
+        if (repository.removeRoom(buildingId, levelId, roomId) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room with ID: " + roomId + " not found");
+        }
+        Level level = repository.findLevel(buildingId, levelId);
+        logger.info("Room with ID: {} deleted successfully. Remaining rooms: {}", roomId,
+                level == null ? 0 : level.getRoomsOnLevel().size());
+    }
+
+    /**
+     * Pobiera szczegoly konkretnego pomieszczenia na podstawie jego identyfikatora.
+     *
+     * @param buildingId identyfikator budynku, w ktorym znajduje sie poziom
+     * @param levelId identyfikator poziomu, w ktorym znajduje sie pomieszczenie
+     * @param roomId identyfikator pomieszczenia
+     * @param fields nazwy zwracanych wlasciwosci rozdzielone przecinkami, np. {@code id,name}; domyslnie wszystkie
+     * @return szczegoly pomieszczenia lub jego projekcja ({@link LocationProjection}), jesli podano {@code fields}
+     * @throws ResponseStatusException jeśli pomieszczenie o podanym identyfikatorze nie istnieje lub projekcja jest nieprawidlowa
+     */
+    @RequestMapping(value = "/{roomId}", method = RequestMethod.GET)
+    public Object getRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId,
+                          @RequestParam(required = false) String fields) {
+        Room room = getRoom(buildingId, levelId, roomId);
+        return fields == null ? room : LocationProjection.of(room, fields, null);
     }
 
     /**
@@ -165,17 +194,16 @@ public class RoomController {
      * @return szczegoly pomieszczenia
      * @throws ResponseStatusException jeśli pomieszczenie o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{roomId}", method = RequestMethod.GET, produces = "application/json")
-    public Room getRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId) {
+    public Room getRoom(int buildingId, int levelId, int roomId) {
         logger.debug("Fetching Room with ID: {} on level: {} of building: {}", roomId, levelId, buildingId);
 
         Level level = levelController.getLevel(buildingId, levelId);
         logger.debug( "level found: {}", level.getName());
 
-        Room room = level.getRoomsOnLevel().stream()
-                .filter(r -> r.getId() == roomId)
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Room with ID: " + levelId + " not found"));
+        Room room = repository.findRoom(buildingId, levelId, roomId);
+        if (room == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room with ID: " + roomId + " not found");
+        }
 
         logger.debug("Room found: {}", level.getId());
         return room;
@@ -189,8 +217,8 @@ public class RoomController {
      * @param roomId identyfikator pomieszczenia
      * @return powierzchnia pomieszczenia (w metrach kwadratowych)
      */
-    @RequestMapping(value="/{roomId}/area", method = RequestMethod.GET, produces="application/json")
-    public ResponseEntity<Map<String, Object>> getAreaOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId) {
+    @RequestMapping(value="/{roomId}/area", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getAreaOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId) {
         Room room = getRoom(buildingId, levelId, roomId);
         AreaVisitor areaVisitor = new AreaVisitor();
         logger.debug("Getting total area for room ID: {}", roomId);
@@ -198,8 +226,7 @@ public class RoomController {
         double area = areaVisitor.visit(room);
         logger.info("Area for room ID {}: {}", roomId, area);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("area:", area);
+        MetricResponse response = MetricResponse.of(MetricResponse.AREA, area);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -211,8 +238,8 @@ public class RoomController {
      * @param roomId identyfikator pomieszczenia
      * @return kubatura pomieszczenia (w metrach sześciennych)
      */
-    @RequestMapping(value="/{roomId}/cube", method = RequestMethod.GET, produces="application/json")
-    public ResponseEntity<Map<String, Object>> getCubeOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId) {
+    @RequestMapping(value="/{roomId}/cube", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getCubeOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId) {
         Room room = getRoom(buildingId, levelId, roomId);
         CubeVisitor cubeVisitor = new CubeVisitor();
         logger.debug("Getting total cube for room ID: {}", roomId);
@@ -220,8 +247,7 @@ public class RoomController {
         double cube = cubeVisitor.visit(room);
         logger.info("Cube for room ID {}: {}", roomId, cube);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("cube:", cube);
+        MetricResponse response = MetricResponse.of(MetricResponse.CUBE, cube);
         return ResponseEntity.status(HttpStatus.OK).body(response);
 
     }
@@ -234,8 +260,8 @@ public class RoomController {
      * @param roomId identyfikator pomieszczenia
      * @return calkowita moc oświetlenia pomieszczenia (w watach)
      */
-    @RequestMapping(value="/{roomId}/light-power", method = RequestMethod.GET, produces="application/json")
-    public ResponseEntity<Map<String, Object>> getLightPowerOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId) {
+    @RequestMapping(value="/{roomId}/light-power", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getLightPowerOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId) {
         Room room = getRoom(buildingId, levelId, roomId);
         LightVisitor lightVisitor = new LightVisitor();
         logger.debug("Calculating total light power for room ID: {}", roomId);
@@ -243,8 +269,7 @@ public class RoomController {
         double light = lightVisitor.visit(room);
         logger.info("Total light power for room ID {}: {}", roomId, light);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("light power:", light);
+        MetricResponse response = MetricResponse.of(MetricResponse.LIGHT_POWER, light);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -256,8 +281,8 @@ public class RoomController {
      * @param roomId identyfikator pomieszczenia
      * @return calkowite zuzycie energii pomieszczenia (w kilowatogodzinach)
      */
-    @RequestMapping(value="/{roomId}/energy-consumption", method = RequestMethod.GET, produces="application/json")
-    public ResponseEntity<Map<String, Object>> getEnergyConsumptionOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId) {
+    @RequestMapping(value="/{roomId}/energy-consumption", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getEnergyConsumptionOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId) {
         Room room = getRoom(buildingId, levelId, roomId);
         EnergyVisitor energyVisitor = new EnergyVisitor();
         logger.debug("Calculating total energy consumption for room ID: {}", roomId);
@@ -265,8 +290,7 @@ public class RoomController {
         double energy = energyVisitor.visit(room);
         logger.info("Total energy consumption for room ID {}: {}", roomId, energy);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("energy consumption:", energy);
+        MetricResponse response = MetricResponse.of(MetricResponse.ENERGY_CONSUMPTION, energy);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -280,17 +304,16 @@ public class RoomController {
      * @return odpowiedź zawierająca koszt oświetlenia w pomieszczeniu
      * @throws ResponseStatusException jeśli pomieszczenie o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{roomId}/light-cost", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Map<String, Object>> getLightCostOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId, @RequestParam double lightCost) {
+    @RequestMapping(value = "/{roomId}/light-cost", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getLightCostOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId, @RequestParam double lightCost) {
         Room room = getRoom(buildingId, levelId, roomId);
         logger.debug("Checking the cost of light of room with ID: {} on level with ID: {} in building with ID: {}", roomId, levelId, buildingId);
         LightCostVisitor visitor = new LightCostVisitor(lightCost);
 
-        room.accept(visitor);
+        double cost = room.accept(visitor);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("cost of lighting", visitor.visit(room));
-        logger.info("The cost of lighting of room with ID: {} on level with ID: {} in building with ID: {} is {}", roomId, levelId, buildingId, visitor.visit(room));
+        MetricResponse response = MetricResponse.of(MetricResponse.LIGHT_COST, cost);
+        logger.info("The cost of lighting of room with ID: {} on level with ID: {} in building with ID: {} is {}", roomId, levelId, buildingId, cost);
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
@@ -305,19 +328,43 @@ public class RoomController {
      * @return odpowiedź zawierająca koszt energii w pomieszczeniu
      * @throws ResponseStatusException jeśli pomieszczenie o podanym identyfikatorze nie istnieje
      */
-    @RequestMapping(value = "/{roomId}/energy-cost", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Map<String, Object>> getEnergyCostOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId, @RequestParam double energyCost) {
+    @RequestMapping(value = "/{roomId}/energy-cost", method = RequestMethod.GET)
+    public ResponseEntity<MetricResponse> getEnergyCostOfRoom(@PathVariable int buildingId, @PathVariable int levelId, @PathVariable int roomId, @RequestParam double energyCost) {
         Room room = getRoom(buildingId, levelId, roomId);
         logger.debug("Checking the cost of energy of room with ID: {} on level with ID: {} in building with ID: {}", roomId, levelId, buildingId);
         EnergyCostVisitor visitor = new EnergyCostVisitor(energyCost);
 
-        room.accept(visitor);
+        double cost = room.accept(visitor);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("cost of energy", visitor.visit(room));
-        logger.info("The cost of energy of room with ID: {} on level with ID: {} in building with ID: {} is {}", roomId, levelId, buildingId, visitor.visit(room));
+        MetricResponse response = MetricResponse.of(MetricResponse.ENERGY_COST, cost);
+        logger.info("The cost of energy of room with ID: {} on level with ID: {} in building with ID: {} is {}", roomId, levelId, buildingId, cost);
 
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
+    /**
+     * Oblicza wszystkie parametry pomieszczenia: powierzchnie, kubature, moc oświetlenia,
+     * zuzycie energii oraz koszty oświetlenia i energii.
+     *
+     * @param buildingId identyfikator budynku, w ktorym znajduje sie poziom
+     * @param levelId identyfikator poziomu, w ktorym znajduje sie pomieszczenie
+     * @param roomId identyfikator pomieszczenia
+     * @param lightCost koszt oświetlenia na jednostkę; domyślnie 0
+     * @param energyCost koszt energii na jednostkę; domyślnie 0
+     * @return odpowiedź zawierająca wszystkie parametry pomieszczenia
+     */
+    @RequestMapping(value = "/{roomId}/summary", method = RequestMethod.GET)
+    public ResponseEntity<SummaryResponse> getSummaryOfRoom(@PathVariable int buildingId, @PathVariable int levelId,
+                                                                @PathVariable int roomId,
+                                                                @RequestParam(defaultValue = "0") double lightCost,
+                                                                @RequestParam(defaultValue = "0") double energyCost) {
+        Room room = getRoom(buildingId, levelId, roomId);
+        logger.debug("Calculating summary for room ID: {}", roomId);
+        SummaryVisitor visitor = new SummaryVisitor(lightCost, energyCost);
+
+        room.accept(visitor);
+        logger.info("Summary for room ID {}: area {}, energy consumption {}", roomId, visitor.getArea(), visitor.getEnergy());
+
+        return ResponseEntity.status(HttpStatus.OK).body(SummaryResponse.of(visitor));
+    }
 }
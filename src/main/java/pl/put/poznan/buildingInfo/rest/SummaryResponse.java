@@ -0,0 +1,122 @@
+package pl.put.poznan.buildingInfo.rest;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.visitors.SummaryVisitor;
+
+/**
+ * Niezmienna odpowiedz ze wszystkimi parametrami lokalizacji obliczonymi przez {@link SummaryVisitor}.
+ *
+ * Odpowiedz jest serializowana bezposrednio przez {@link JsonGenerator} z zakodowanymi raz nazwami
+ * wlasciwosci. Podsumowanie budynku w odpowiedzi zbiorczej zawiera dodatkowo jego identyfikator i nazwe.
+ */
+@JsonSerialize(using = SummaryResponse.Serializer.class)
+public final class SummaryResponse {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString AREA = new SerializedString("area");
+    private static final SerializableString CUBE = new SerializedString("cube");
+    private static final SerializableString LIGHT_POWER = new SerializedString("lightPower");
+    private static final SerializableString ENERGY_CONSUMPTION = new SerializedString("energyConsumption");
+    private static final SerializableString LIGHT_COST = new SerializedString("lightCost");
+    private static final SerializableString ENERGY_COST = new SerializedString("energyCost");
+
+    private final Integer id;
+    private final String name;
+    private final double area;
+    private final double cube;
+    private final double lightPower;
+    private final double energyConsumption;
+    private final double lightCost;
+    private final double energyCost;
+
+    private SummaryResponse(Integer id, String name, SummaryVisitor visitor) {
+        this.id = id;
+        this.name = name;
+        this.area = visitor.getArea();
+        this.cube = visitor.getCube();
+        this.lightPower = visitor.getLightPower();
+        this.energyConsumption = visitor.getEnergy();
+        this.lightCost = visitor.getLightCost();
+        this.energyCost = visitor.getEnergyCost();
+    }
+
+    /**
+     * @param visitor odwiedzajacy po podsumowaniu lokalizacji
+     * @return podsumowanie lokalizacji
+     */
+    public static SummaryResponse of(SummaryVisitor visitor) {
+        return new SummaryResponse(null, null, visitor);
+    }
+
+    /**
+     * @param building podsumowany budynek
+     * @param visitor odwiedzajacy po podsumowaniu budynku
+     * @return podsumowanie budynku wraz z jego identyfikatorem i nazwa
+     */
+    public static SummaryResponse of(Building building, SummaryVisitor visitor) {
+        return new SummaryResponse(building.getId(), building.getName(), visitor);
+    }
+
+    public double getArea() {
+        return area;
+    }
+
+    public double getCube() {
+        return cube;
+    }
+
+    public double getLightPower() {
+        return lightPower;
+    }
+
+    public double getEnergyConsumption() {
+        return energyConsumption;
+    }
+
+    public double getLightCost() {
+        return lightCost;
+    }
+
+    public double getEnergyCost() {
+        return energyCost;
+    }
+
+    /**
+     * Zapisuje odpowiedz bezposrednio przez {@link JsonGenerator}.
+     */
+    static final class Serializer extends JsonSerializer<SummaryResponse> {
+
+        @Override
+        public void serialize(SummaryResponse response, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            if (response.id != null) {
+                generator.writeFieldName(ID);
+                generator.writeNumber(response.id);
+                generator.writeFieldName(NAME);
+                generator.writeString(response.name);
+            }
+            write(generator, AREA, response.area);
+            write(generator, CUBE, response.cube);
+            write(generator, LIGHT_POWER, response.lightPower);
+            write(generator, ENERGY_CONSUMPTION, response.energyConsumption);
+            write(generator, LIGHT_COST, response.lightCost);
+            write(generator, ENERGY_COST, response.energyCost);
+            generator.writeEndObject();
+        }
+
+        private static void write(JsonGenerator generator, SerializableString name, double value) throws IOException {
+            generator.writeFieldName(name);
+            generator.writeNumber(value);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package pl.put.poznan.buildingInfo.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+
+/**
+ * Binarna migawka calego repozytorium budynkow, pozwalajaca szybko odtworzyc stan przy starcie aplikacji.
+ *
+ * Uklad pliku:
+ * <ul>
+ *     <li>naglowek (32 bajty): sygnatura, wersja formatu, generacja dziennika zapisow,
+ *     od ktorej nalezy odtwarzac modyfikacje, dlugosc tresci i jej suma kontrolna CRC32,
+ *     liczba budynkow,</li>
+ *     <li>tresc: kolejne budynki z poziomami i pomieszczeniami zapisane sekwencyjnie.</li>
+ * </ul>
+ *
+ * Poziomy odwzorowane z plikow {@link MappedRoomFile} nie sa kopiowane do migawki &ndash;
+ * zapisywana jest jedynie sciezka pliku i numer poziomu w pliku. Napisy sa zapisywane jako
+ * dlugosc w bajtach UTF-8 (-1 dla {@code null}) i tresc.
+ *
+ * Migawka jest odczytywana sekwencyjnie przez kolejno odwzorowywane w pamieci okna pliku,
+ * po wczesniejszym sprawdzeniu sumy kontrolnej calej tresci.
+ */
+public final class BinarySnapshot {
+
+    static final int MAGIC = 0x42534E50;
+    static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int WINDOW_SIZE = 1 << 26;
+    private static final int NO_STRING = -1;
+
+    private static final byte HEAP_BUILDING = 0;
+    private static final byte MAPPED_BUILDING = 1;
+    private static final byte HEAP_LEVEL = 0;
+    private static final byte MAPPED_LEVEL = 1;
+
+    private final long walGeneration;
+    private final long size;
+    private final List<Building> buildings;
+
+    private BinarySnapshot(long walGeneration, long size, List<Building> buildings) {
+        this.walGeneration = walGeneration;
+        this.size = size;
+        this.buildings = buildings;
+    }
+
+    /**
+     * @return najstarsza generacja dziennika zapisow, ktorej wpisy nie sa objete migawka
+     */
+    public long getWalGeneration() {
+        return walGeneration;
+    }
+
+    /**
+     * @return rozmiar pliku migawki w bajtach
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return budynki zapisane w migawce, w kolejnosci z repozytorium
+     */
+    public List<Building> getBuildings() {
+        return buildings;
+    }
+
+    /**
+     * Zapisuje migawke budynkow. Plik jest zapisywany pod nazwa tymczasowa, utrwalany
+     * na dysku i dopiero wtedy przenoszony pod docelowa nazwe.
+     *
+     * @param path sciezka pliku migawki
+     * @param walGeneration najstarsza generacja dziennika zapisow, ktorej wpisy nie sa objete migawka
+     * @param buildings zapisywane budynki
+     * @return rozmiar zapisanego pliku w bajtach
+     * @throws IOException jesli zapis sie nie powiedzie
+     */
+    public static long write(Path path, long walGeneration, List<Building> buildings) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long size;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            for (Building building : buildings) {
+                writeBuilding(out, building);
+            }
+            out.flush();
+            size = channel.size();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(walGeneration)
+                    .putLong(size - HEADER_SIZE)
+                    .putInt((int) checked.getChecksum().getValue())
+                    .putInt(buildings.size())
+                    .flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return size;
+    }
+
+    private static void writeBuilding(DataOutputStream out, Building building) throws IOException {
+        if (building instanceof MappedBuilding) {
+            out.writeByte(MAPPED_BUILDING);
+            out.writeInt(building.getId());
+            writeString(out, ((MappedBuilding) building).file().getPath().toString());
+            return;
+        }
+        out.writeByte(HEAP_BUILDING);
+        out.writeInt(building.getId());
+        writeString(out, building.getName());
+        List<Level> levels = building.getLevelsInBuilding();
+        out.writeInt(levels.size());
+        for (Level level : levels) {
+            if (level instanceof MappedLevel) {
+                MappedLevel mapped = (MappedLevel) level;
+                out.writeByte(MAPPED_LEVEL);
+                writeString(out, mapped.file().getPath().toString());
+                out.writeInt(mapped.fileLevelIndex());
+                continue;
+            }
+            out.writeByte(HEAP_LEVEL);
+            out.writeInt(level.getId());
+            writeString(out, level.getName());
+            List<Room> rooms = level.getRoomsOnLevel();
+            out.writeInt(rooms.size());
+            for (Room room : rooms) {
+                out.writeInt(room.getId());
+                writeString(out, room.getName());
+                out.writeDouble(room.getArea());
+                out.writeDouble(room.getCube());
+                out.writeDouble(room.getHeating());
+                out.writeDouble(room.getLight());
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NO_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Odczytuje migawke. Poziomy odwzorowane z plikow pomieszczen sa ponownie odwzorowywane w pamieci.
+     *
+     * @param path sciezka pliku migawki
+     * @return odczytana migawka z niezamrozonymi budynkami
+     * @throws IOException jesli plik jest uszkodzony, ma nieobslugiwana wersje lub nie moze zostac odczytany
+     */
+    public static BinarySnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Input in = new Input(path, channel);
+            if (channel.size() < HEADER_SIZE || in.getInt() != MAGIC) {
+                throw new IOException("Not a building snapshot file: " + path);
+            }
+            int version = in.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format version " + version + " in " + path);
+            }
+            long walGeneration = in.getLong();
+            long bodyLength = in.getLong();
+            int checksum = in.getInt();
+            int buildingCount = in.getInt();
+            if (bodyLength != channel.size() - HEADER_SIZE) {
+                throw new IOException("Truncated snapshot file: " + path);
+            }
+            if (in.checksum(HEADER_SIZE, bodyLength) != checksum) {
+                throw new IOException("Snapshot checksum mismatch in " + path);
+            }
+
+            Map<String, MappedRoomFile> files = new HashMap<>();
+            List<Building> buildings = new ArrayList<>(buildingCount);
+            for (int i = 0; i < buildingCount; i++) {
+                buildings.add(readBuilding(in, files));
+            }
+            if (in.position() != channel.size()) {
+                throw new IOException("Unexpected data at the end of snapshot file: " + path);
+            }
+            return new BinarySnapshot(walGeneration, channel.size(), Collections.unmodifiableList(buildings));
+        }
+    }
+
+    private static Building readBuilding(Input in, Map<String, MappedRoomFile> files) throws IOException {
+        byte kind = in.getByte();
+        int id = in.getInt();
+        if (kind == MAPPED_BUILDING) {
+            return new MappedBuilding(mappedFile(in.getString(), id, files));
+        }
+        if (kind != HEAP_BUILDING) {
+            throw new IOException("Unknown building entry kind in snapshot: " + kind);
+        }
+        Building building = new Building(id, in.getString());
+        int levelCount = in.getInt();
+        MappedBuilding mapped = null;
+        for (int l = 0; l < levelCount; l++) {
+            byte levelKind = in.getByte();
+            if (levelKind == MAPPED_LEVEL) {
+                MappedRoomFile file = mappedFile(in.getString(), id, files);
+                if (mapped == null || mapped.file() != file) {
+                    mapped = new MappedBuilding(file);
+                }
+                int index = in.getInt();
+                if (index < 0 || index >= file.getLevelCount()) {
+                    throw new IOException("Level " + index + " does not exist in " + file.getPath());
+                }
+                building.add(mapped.getLevelsInBuilding().get(index));
+                continue;
+            }
+            if (levelKind != HEAP_LEVEL) {
+                throw new IOException("Unknown level entry kind in snapshot: " + levelKind);
+            }
+            Level level = new Level(in.getInt(), in.getString());
+            int roomCount = in.getInt();
+            for (int r = 0; r < roomCount; r++) {
+                int roomId = in.getInt();
+                String name = in.getString();
+                double area = in.getDouble();
+                double cube = in.getDouble();
+                double heating = in.getDouble();
+                double light = in.getDouble();
+                level.add(new Room(roomId, name, area, cube, heating, light));
+            }
+            building.add(level);
+        }
+        return building;
+    }
+
+    private static MappedRoomFile mappedFile(String path, int buildingId, Map<String, MappedRoomFile> files)
+            throws IOException {
+        MappedRoomFile file = files.get(path);
+        if (file == null) {
+            file = MappedRoomFile.open(Paths.get(path));
+            files.put(path, file);
+        }
+        if (file.getBuildingId() != buildingId) {
+            throw new IOException("Room storage file " + path + " belongs to building " + file.getBuildingId()
+                    + " instead of " + buildingId);
+        }
+        return file;
+    }
+
+    /**
+     * Sekwencyjny odczyt pliku przez kolejno odwzorowywane w pamieci okna.
+     */
+    private static final class Input {
+        private final Path path;
+        private final FileChannel channel;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        Input(Path path, FileChannel channel) throws IOException {
+            this.path = path;
+            this.channel = channel;
+            map(0, 0);
+        }
+
+        long position() {
+            return windowStart + window.position();
+        }
+
+        int checksum(long start, long length) throws IOException {
+            CRC32 crc = new CRC32();
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                int count = (int) Math.min(WINDOW_SIZE, end - position);
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, count));
+                position += count;
+            }
+            return (int) crc.getValue();
+        }
+
+        byte getByte() throws IOException {
+            ensure(1);
+            return window.get();
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return window.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(8);
+            return window.getLong();
+        }
+
+        double getDouble() throws IOException {
+            ensure(8);
+            return window.getDouble();
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            if (length == NO_STRING) {
+                return null;
+            }
+            if (length < 0) {
+                throw new IOException("Malformed string in snapshot file: " + path);
+            }
+            ensure(length);
+            byte[] bytes = new byte[length];
+            window.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void ensure(int count) throws IOException {
+            if (window.remaining() < count) {
+                map(position(), count);
+            }
+        }
+
+        private void map(long start, int count) throws IOException {
+            long size = channel.size();
+            if (start + count > size) {
+                throw new IOException("Truncated snapshot file: " + path);
+            }
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, Math.max(WINDOW_SIZE, count)));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package pl.put.poznan.buildingInfo.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+
+/**
+ * Strumieniowy czytnik tablicy budynkow w formacie JSON, oparty na {@link JsonParser}.
+ *
+ * Budynki sa odczytywane pojedynczo, bezposrednio z tokenow parsera, wiec zuzycie pamieci
+ * zalezy od rozmiaru najwiekszego budynku, a nie calego dokumentu. Format jest zgodny
+ * z serializacja {@link Building} przez Jackson; nieznane pola sa pomijane.
+ */
+public final class BuildingJsonReader implements Closeable {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private boolean started;
+    private long buildingsRead;
+    private long roomsRead;
+
+    /**
+     * @param input strumien z tablica budynkow; jest zamykany razem z czytnikiem
+     * @throws IOException jesli strumien nie moze zostac odczytany
+     */
+    public BuildingJsonReader(InputStream input) throws IOException {
+        this.parser = FACTORY.createParser(input);
+    }
+
+    /**
+     * Odczytuje kolejny budynek.
+     *
+     * @return niezamrozony budynek lub {@code null}, jesli tablica zostala odczytana w calosci
+     * @throws IOException jesli dokument nie jest poprawna tablica budynkow
+     */
+    public Building next() throws IOException {
+        if (!started) {
+            started = true;
+            expect(parser.nextToken(), JsonToken.START_ARRAY);
+        }
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY || token == null) {
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of building array");
+            }
+            return null;
+        }
+        expect(token, JsonToken.START_OBJECT);
+        Building building = readBuilding();
+        buildingsRead++;
+        return building;
+    }
+
+    /**
+     * @return liczba bajtow dokumentu przetworzonych do tej pory
+     */
+    public long getBytesRead() {
+        return parser.getCurrentLocation().getByteOffset();
+    }
+
+    public long getBuildingsRead() {
+        return buildingsRead;
+    }
+
+    public long getRoomsRead() {
+        return roomsRead;
+    }
+
+    /**
+     * @return opis biezacej pozycji w dokumencie, np. do komunikatow o bledach
+     */
+    public String getLocation() {
+        return "line " + parser.getCurrentLocation().getLineNr() + ", column " + parser.getCurrentLocation().getColumnNr();
+    }
+
+    private Building readBuilding() throws IOException {
+        int id = 0;
+        String name = "";
+        List<Level> levels = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = parser.getIntValue();
+                    break;
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "levelsInBuilding":
+                    readArray(value, () -> {
+                        expect(parser.currentToken(), JsonToken.START_OBJECT);
+                        levels.add(readLevel());
+                    });
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        Building building = new Building(id, name);
+        building.setLevelsInBuilding(levels);
+        return building;
+    }
+
+    private Level readLevel() throws IOException {
+        int id = 0;
+        String name = "";
+        List<Room> rooms = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = parser.getIntValue();
+                    break;
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "roomsOnLevel":
+                    readArray(value, () -> {
+                        expect(parser.currentToken(), JsonToken.START_OBJECT);
+                        rooms.add(readRoom());
+                        roomsRead++;
+                    });
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        Level level = new Level(id, name);
+        level.setRoomsOnLevel(rooms);
+        return level;
+    }
+
+    private Room readRoom() throws IOException {
+        int id = 0;
+        String name = "";
+        double area = 0;
+        double cube = 0;
+        double heating = 0;
+        double light = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = parser.getIntValue();
+                    break;
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "area":
+                    area = parser.getDoubleValue();
+                    break;
+                case "cube":
+                    cube = parser.getDoubleValue();
+                    break;
+                case "heating":
+                    heating = parser.getDoubleValue();
+                    break;
+                case "light":
+                    light = parser.getDoubleValue();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return new Room(id, name, area, cube, heating, light);
+    }
+
+    /**
+     * Czynnosc wykonywana dla kazdego elementu tablicy.
+     */
+    private interface ElementReader {
+        void read() throws IOException;
+    }
+
+    private void readArray(JsonToken token, ElementReader element) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(token, JsonToken.START_ARRAY);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            element.read();
+        }
+    }
+
+    private void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
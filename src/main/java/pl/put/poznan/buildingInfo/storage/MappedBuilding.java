@@ -0,0 +1,49 @@
+package pl.put.poznan.buildingInfo.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+
+/**
+ * Zamrozony budynek, ktorego pomieszczenia sa przechowywane w pliku {@link MappedRoomFile}.
+ *
+ * Udostepnia ten sam interfejs co budynek przechowywany na stercie, wiec moze byc
+ * odwiedzany i serializowany w ten sam sposob.
+ */
+public class MappedBuilding extends Building {
+
+    private final MappedRoomFile file;
+
+    /**
+     * Tworzy budynek na podstawie odwzorowanego pliku.
+     *
+     * @param file odwzorowany plik budynku
+     */
+    public MappedBuilding(MappedRoomFile file) {
+        super(file.getBuildingId(), file.getBuildingName());
+        this.file = file;
+        List<Level> levels = new ArrayList<>(file.getLevelCount());
+        for (int i = 0; i < file.getLevelCount(); i++) {
+            levels.add(new MappedLevel(this, file, i));
+        }
+        setLevelsInBuilding(levels);
+        freeze();
+    }
+
+    MappedRoomFile file() {
+        return file;
+    }
+
+    /**
+     * Wyszukuje poziom, na ktorym w pliku znajduje sie pomieszczenie.
+     *
+     * @param roomId identyfikator pomieszczenia
+     * @return poziom lub {@code null}, jesli pomieszczenie nie wystepuje w pliku
+     */
+    public MappedLevel findLevelOfRoom(int roomId) {
+        int record = file.findRecord(roomId);
+        return record < 0 ? null : (MappedLevel) getLevelsInBuilding().get(file.levelOf(record));
+    }
+}
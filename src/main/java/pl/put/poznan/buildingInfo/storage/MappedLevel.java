@@ -0,0 +1,99 @@
+package pl.put.poznan.buildingInfo.storage;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.locations.RoomColumns;
+
+/**
+ * Zamrozony poziom, ktorego pomieszczenia sa przechowywane w pliku {@link MappedRoomFile}.
+ *
+ * Obiekty {@link Room} sa tworzone dopiero przy odczycie listy pomieszczen, a obliczenia
+ * odwiedzajacych korzystaja bezposrednio z rekordow pliku przez {@link #getRoomColumns()}.
+ */
+public class MappedLevel extends Level {
+
+    private final MappedBuilding owner;
+    private final MappedRoomFile file;
+    private final int index;
+    private final List<Room> rooms;
+    private final RoomColumns columns;
+
+    MappedLevel(MappedBuilding owner, MappedRoomFile file, int index) {
+        super(file.levelId(index), file.levelName(index));
+        this.owner = owner;
+        this.file = file;
+        this.index = index;
+        this.rooms = new RoomList();
+        this.columns = new MappedRoomColumns(file, index, 1);
+        freeze();
+    }
+
+    /**
+     * Zwraca niemodyfikowalna liste pomieszczen poziomu, tworzonych przy odczycie z rekordow pliku.
+     *
+     * @return lista pomieszczen
+     */
+    @Override
+    public List<Room> getRoomsOnLevel() {
+        return rooms;
+    }
+
+    @Override
+    public RoomColumns getRoomColumns() {
+        return columns;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return true;
+    }
+
+    /**
+     * @return budynek odwzorowany z tego samego pliku co poziom
+     */
+    public MappedBuilding owner() {
+        return owner;
+    }
+
+    MappedRoomFile file() {
+        return file;
+    }
+
+    int fileLevelIndex() {
+        return index;
+    }
+
+    /**
+     * Wyszukuje pomieszczenie poziomu w posortowanym indeksie pliku.
+     *
+     * @param roomId identyfikator pomieszczenia
+     * @return pomieszczenie lub {@code null}, jesli nie wystepuje na tym poziomie
+     */
+    public Room findRoom(int roomId) {
+        int record = file.findRecord(roomId);
+        if (record < file.levelStart(index) || record >= file.levelEnd(index)) {
+            return null;
+        }
+        return file.room(record, getVersion());
+    }
+
+    private final class RoomList extends AbstractList<Room> implements RandomAccess {
+
+        @Override
+        public Room get(int i) {
+            if (i < 0 || i >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size());
+            }
+            return file.room(file.levelStart(index) + i, getVersion());
+        }
+
+        @Override
+        public int size() {
+            return file.levelEnd(index) - file.levelStart(index);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package pl.put.poznan.buildingInfo.storage;
+
+import pl.put.poznan.buildingInfo.logic.locations.RoomColumns;
+
+/**
+ * Kolumny pomieszczen odczytywane bezposrednio z rekordow pliku {@link MappedRoomFile}.
+ *
+ * Obejmuja ciagly zakres poziomow pliku: wszystkie poziomy budynku albo jeden poziom.
+ */
+final class MappedRoomColumns extends RoomColumns {
+
+    private final MappedRoomFile file;
+    private final int firstLevel;
+    private final int levelCount;
+    private final int firstRoom;
+    private final int roomCount;
+
+    MappedRoomColumns(MappedRoomFile file, int firstLevel, int levelCount) {
+        this.file = file;
+        this.firstLevel = firstLevel;
+        this.levelCount = levelCount;
+        this.firstRoom = levelCount == 0 ? 0 : file.levelStart(firstLevel);
+        this.roomCount = levelCount == 0 ? 0 : file.levelEnd(firstLevel + levelCount - 1) - firstRoom;
+    }
+
+    @Override
+    public int levelCount() {
+        return levelCount;
+    }
+
+    @Override
+    public int roomCount() {
+        return roomCount;
+    }
+
+    @Override
+    public int levelId(int level) {
+        return file.levelId(firstLevel + level);
+    }
+
+    @Override
+    public int levelStart(int level) {
+        return file.levelStart(firstLevel + level) - firstRoom;
+    }
+
+    @Override
+    public int levelEnd(int level) {
+        return file.levelEnd(firstLevel + level) - firstRoom;
+    }
+
+    @Override
+    public int roomId(int room) {
+        return file.roomId(firstRoom + room);
+    }
+
+    @Override
+    public double area(int room) {
+        return file.area(firstRoom + room);
+    }
+
+    @Override
+    public double cube(int room) {
+        return file.cube(firstRoom + room);
+    }
+
+    @Override
+    public double heating(int room) {
+        return file.heating(firstRoom + room);
+    }
+
+    @Override
+    public double light(int room) {
+        return file.light(firstRoom + room);
+    }
+}
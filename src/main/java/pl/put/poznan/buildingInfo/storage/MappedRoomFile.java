@@ -0,0 +1,382 @@
+package pl.put.poznan.buildingInfo.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+
+/**
+ * Plik z pomieszczeniami jednego budynku, odwzorowany w pamieci przez {@link MappedByteBuffer}.
+ *
+ * Dane pomieszczen znajduja sie poza sterta i sa wczytywane przez system operacyjny
+ * na zadanie, wiec liczba pomieszczen nie jest ograniczona rozmiarem sterty, a ponowne
+ * uruchomienie aplikacji sprowadza sie do ponownego odwzorowania pliku.
+ *
+ * Uklad pliku:
+ * <ul>
+ *     <li>naglowek (64 bajty): sygnatura, wersja formatu, identyfikator i nazwa budynku,
+ *     liczba poziomow i pomieszczen oraz polozenie kolejnych sekcji,</li>
+ *     <li>tablica poziomow (16 bajtow na poziom): identyfikator, nazwa, zakres pomieszczen,</li>
+ *     <li>rekordy pomieszczen o stalej szerokosci (40 bajtow): identyfikator, nazwa,
+ *     powierzchnia, kubatura, ogrzewanie, oswietlenie,</li>
+ *     <li>indeks pomieszczen posortowany po identyfikatorze (8 bajtow na pomieszczenie),</li>
+ *     <li>tablica napisow, do ktorej odwoluja sie nazwy budynku, poziomow i pomieszczen.</li>
+ * </ul>
+ *
+ * Pliki wieksze niz 2 GB sa odwzorowywane w kilku zachodzacych na siebie fragmentach,
+ * wiec zadna wartosc nie jest rozdzielona miedzy dwa bufory.
+ */
+public final class MappedRoomFile {
+
+    static final int MAGIC = 0x4249524D;
+    static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int LEVEL_SIZE = 16;
+    private static final int RECORD_SIZE = 40;
+    private static final int INDEX_ENTRY_SIZE = 8;
+    private static final int NO_STRING = -1;
+
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+    private static final int CHUNK_OVERLAP = 64;
+
+    private final Path path;
+    private final MappedByteBuffer[] chunks;
+    private final int buildingId;
+    private final String buildingName;
+    private final int levelCount;
+    private final int roomCount;
+    private final long recordsOffset;
+    private final long indexOffset;
+    private final long stringsOffset;
+
+    private MappedRoomFile(Path path, MappedByteBuffer[] chunks) throws IOException {
+        this.path = path;
+        this.chunks = chunks;
+        if (getInt(0) != MAGIC) {
+            throw new IOException("Not a room storage file: " + path);
+        }
+        if (getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported room storage format version " + getInt(4) + " in " + path);
+        }
+        this.buildingId = getInt(8);
+        this.levelCount = getInt(16);
+        this.roomCount = getInt(20);
+        this.recordsOffset = getLong(24);
+        this.indexOffset = getLong(32);
+        this.stringsOffset = getLong(40);
+        if (getLong(48) != size()) {
+            throw new IOException("Truncated room storage file: " + path);
+        }
+        this.buildingName = getString(getInt(12));
+    }
+
+    /**
+     * Odwzorowuje istniejacy plik w pamieci.
+     *
+     * @param path sciezka pliku
+     * @return odwzorowany plik
+     * @throws IOException jesli plik nie istnieje lub jest uszkodzony
+     */
+    public static MappedRoomFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Truncated room storage file: " + path);
+            }
+            int chunkCount = (int) ((size - 1) >>> CHUNK_SHIFT) + 1;
+            MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long start = (long) i << CHUNK_SHIFT;
+                long length = Math.min(size - start, (1L << CHUNK_SHIFT) + CHUNK_OVERLAP);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            return new MappedRoomFile(path, chunks);
+        }
+    }
+
+    /**
+     * Zapisuje pomieszczenia budynku do pliku. Plik jest zapisywany pod nazwa tymczasowa,
+     * utrwalany na dysku i dopiero wtedy przenoszony pod docelowa nazwe.
+     *
+     * @param building zapisywany budynek
+     * @param path sciezka pliku
+     * @throws IOException jesli zapis sie nie powiedzie
+     * @throws IllegalArgumentException jesli budynek zawiera zduplikowane identyfikatory pomieszczen
+     */
+    public static void write(Building building, Path path) throws IOException {
+        List<Level> levels = building.getLevelsInBuilding();
+        StringTable table = new StringTable();
+        int buildingNameRef = table.ref(building.getName());
+        int[] levelNameRefs = new int[levels.size()];
+        int roomCount = 0;
+        for (int l = 0; l < levels.size(); l++) {
+            levelNameRefs[l] = table.ref(levels.get(l).getName());
+            for (Room room : levels.get(l).getRoomsOnLevel()) {
+                table.ref(room.getName());
+                roomCount++;
+            }
+        }
+
+        long[] index = new long[roomCount];
+        int record = 0;
+        for (Level level : levels) {
+            for (Room room : level.getRoomsOnLevel()) {
+                index[record] = ((long) room.getId() << 32) | record;
+                record++;
+            }
+        }
+        Arrays.sort(index);
+        for (int i = 1; i < index.length; i++) {
+            if ((int) (index[i] >> 32) == (int) (index[i - 1] >> 32)) {
+                throw new IllegalArgumentException("Duplicate room ID: " + (int) (index[i] >> 32));
+            }
+        }
+
+        long recordsOffset = HEADER_SIZE + (long) LEVEL_SIZE * levels.size();
+        long indexOffset = recordsOffset + (long) RECORD_SIZE * roomCount;
+        long stringsOffset = indexOffset + (long) INDEX_ENTRY_SIZE * roomCount;
+        long fileSize = stringsOffset + table.size;
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(building.getId());
+            out.writeInt(buildingNameRef);
+            out.writeInt(levels.size());
+            out.writeInt(roomCount);
+            out.writeLong(recordsOffset);
+            out.writeLong(indexOffset);
+            out.writeLong(stringsOffset);
+            out.writeLong(fileSize);
+            out.write(new byte[HEADER_SIZE - 56]);
+
+            int start = 0;
+            for (int l = 0; l < levels.size(); l++) {
+                int end = start + levels.get(l).getRoomsOnLevel().size();
+                out.writeInt(levels.get(l).getId());
+                out.writeInt(levelNameRefs[l]);
+                out.writeInt(start);
+                out.writeInt(end);
+                start = end;
+            }
+            for (Level level : levels) {
+                for (Room room : level.getRoomsOnLevel()) {
+                    out.writeInt(room.getId());
+                    out.writeInt(table.ref(room.getName()));
+                    out.writeDouble(room.getArea());
+                    out.writeDouble(room.getCube());
+                    out.writeDouble(room.getHeating());
+                    out.writeDouble(room.getLight());
+                }
+            }
+            for (long entry : index) {
+                out.writeLong(entry);
+            }
+            for (String value : table.values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Tablica napisow zapisywanych w pliku; kazdy napis jest zapisywany tylko raz.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int size;
+
+        int ref(String value) {
+            if (value == null) {
+                return NO_STRING;
+            }
+            Integer ref = refs.get(value);
+            if (ref == null) {
+                ref = size;
+                refs.put(value, ref);
+                values.add(value);
+                size += 4 + value.getBytes(StandardCharsets.UTF_8).length;
+            }
+            return ref;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getBuildingId() {
+        return buildingId;
+    }
+
+    public String getBuildingName() {
+        return buildingName;
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    public int getRoomCount() {
+        return roomCount;
+    }
+
+    /**
+     * @return rozmiar pliku w bajtach
+     */
+    public long size() {
+        MappedByteBuffer last = chunks[chunks.length - 1];
+        return ((long) (chunks.length - 1) << CHUNK_SHIFT) + last.capacity();
+    }
+
+    int levelId(int level) {
+        return getInt(HEADER_SIZE + (long) LEVEL_SIZE * level);
+    }
+
+    String levelName(int level) {
+        return getString(getInt(HEADER_SIZE + (long) LEVEL_SIZE * level + 4));
+    }
+
+    int levelStart(int level) {
+        return getInt(HEADER_SIZE + (long) LEVEL_SIZE * level + 8);
+    }
+
+    int levelEnd(int level) {
+        return getInt(HEADER_SIZE + (long) LEVEL_SIZE * level + 12);
+    }
+
+    int roomId(int room) {
+        return getInt(recordsOffset + (long) RECORD_SIZE * room);
+    }
+
+    String roomName(int room) {
+        return getString(getInt(recordsOffset + (long) RECORD_SIZE * room + 4));
+    }
+
+    double area(int room) {
+        return getDouble(recordsOffset + (long) RECORD_SIZE * room + 8);
+    }
+
+    double cube(int room) {
+        return getDouble(recordsOffset + (long) RECORD_SIZE * room + 16);
+    }
+
+    double heating(int room) {
+        return getDouble(recordsOffset + (long) RECORD_SIZE * room + 24);
+    }
+
+    double light(int room) {
+        return getDouble(recordsOffset + (long) RECORD_SIZE * room + 32);
+    }
+
+    /**
+     * Tworzy zamrozony obiekt pomieszczenia na podstawie rekordu.
+     *
+     * @param room indeks rekordu
+     * @param version wersja pomieszczenia, taka sama przy kazdym odczycie rekordu
+     * @return pomieszczenie
+     */
+    Room room(int room, long version) {
+        Room result = new Room(roomId(room), roomName(room), area(room), cube(room), heating(room), light(room));
+        result.freeze(version);
+        return result;
+    }
+
+    /**
+     * Wyszukuje rekord pomieszczenia w posortowanym indeksie.
+     *
+     * @param roomId identyfikator pomieszczenia
+     * @return indeks rekordu lub -1, jesli pomieszczenie nie wystepuje w pliku
+     */
+    int findRecord(int roomId) {
+        int low = 0;
+        int high = roomCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long entry = getLong(indexOffset + (long) INDEX_ENTRY_SIZE * mid);
+            int id = (int) (entry >> 32);
+            if (id < roomId) {
+                low = mid + 1;
+            } else if (id > roomId) {
+                high = mid - 1;
+            } else {
+                return (int) entry;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Wyszukuje poziom, do ktorego nalezy rekord pomieszczenia.
+     *
+     * @param room indeks rekordu
+     * @return indeks poziomu
+     */
+    int levelOf(int room) {
+        int low = 0;
+        int high = levelCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (levelStart(mid) <= room) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        while (levelEnd(low) <= room) {
+            low++;
+        }
+        return low;
+    }
+
+    private int getInt(long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getInt((int) (position & CHUNK_MASK));
+    }
+
+    private long getLong(long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getLong((int) (position & CHUNK_MASK));
+    }
+
+    private double getDouble(long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getDouble((int) (position & CHUNK_MASK));
+    }
+
+    private String getString(int ref) {
+        if (ref == NO_STRING) {
+            return null;
+        }
+        long position = stringsOffset + ref;
+        byte[] bytes = new byte[getInt(position)];
+        for (int i = 0; i < bytes.length; i++) {
+            long p = position + 4 + i;
+            bytes[i] = chunks[(int) (p >>> CHUNK_SHIFT)].get((int) (p & CHUNK_MASK));
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,83 @@
+package pl.put.poznan.buildingInfo.storage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+
+/**
+ * Magazyn budynkow przechowywanych poza sterta w plikach odwzorowanych w pamieci.
+ *
+ * Kazdy budynek jest zapisywany w osobnym pliku {@code building-<id>.rooms} w katalogu
+ * wskazanym przez wlasciwosc {@code building-info.storage.mapped-dir}. Jesli wlasciwosc
+ * nie jest ustawiona, magazyn jest wylaczony i budynki sa przechowywane na stercie.
+ */
+@Component
+public class MappedRoomStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedRoomStorage.class);
+
+    private static final String FILE_PREFIX = "building-";
+    private static final String FILE_SUFFIX = ".rooms";
+
+    private final Path directory;
+
+    public MappedRoomStorage(@Value("${building-info.storage.mapped-dir:}") String directory) {
+        this.directory = directory.isEmpty() ? null : Paths.get(directory);
+    }
+
+    /**
+     * @return {@code true}, jesli budynki sa przechowywane w plikach odwzorowanych w pamieci
+     */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Odwzorowuje w pamieci wszystkie pliki budynkow z katalogu magazynu.
+     *
+     * @return budynki posortowane po identyfikatorze; pusta lista, jesli katalog nie zawiera plikow
+     * @throws IOException jesli ktorys z plikow nie moze zostac odczytany
+     */
+    public List<Building> openAll() throws IOException {
+        List<Building> buildings = new ArrayList<>();
+        if (!isEnabled() || !Files.isDirectory(directory)) {
+            return buildings;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                MappedRoomFile mapped = MappedRoomFile.open(file);
+                logger.debug("Mapped {} ({} levels, {} rooms, {} bytes)", file, mapped.getLevelCount(),
+                        mapped.getRoomCount(), mapped.size());
+                buildings.add(new MappedBuilding(mapped));
+            }
+        }
+        buildings.sort(Comparator.comparingInt(Building::getId));
+        return buildings;
+    }
+
+    /**
+     * Zapisuje budynek do pliku i zwraca jego wersje odwzorowana w pamieci.
+     *
+     * @param building zapisywany budynek
+     * @return budynek odczytywany z pliku
+     * @throws IOException jesli zapis lub odwzorowanie pliku sie nie powiedzie
+     */
+    public Building store(Building building) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(FILE_PREFIX + building.getId() + FILE_SUFFIX);
+        MappedRoomFile.write(building, file);
+        return new MappedBuilding(MappedRoomFile.open(file));
+    }
+}
@@ -0,0 +1,133 @@
+package pl.put.poznan.buildingInfo.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+
+/**
+ * Strumieniowy czytnik pomieszczen w formacie NDJSON (jeden obiekt JSON w wierszu), oparty na {@link JsonParser}.
+ *
+ * Format jest zgodny z zapisem {@link RoomNdjsonWriter}: obiekt zawiera identyfikatory budynku
+ * ({@code buildingId}) i poziomu ({@code levelId}) oraz pola pomieszczenia. Nieznane pola, np.
+ * obliczone parametry eksportu, sa pomijane. Pomieszczenia sa odczytywane pojedynczo, wiec
+ * zuzycie pamieci nie zalezy od rozmiaru strumienia.
+ */
+public final class RoomNdjsonReader implements Closeable {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private int buildingId;
+    private int levelId;
+    private long roomsRead;
+
+    /**
+     * @param input strumien pomieszczen; jest zamykany razem z czytnikiem
+     * @throws IOException jesli strumien nie moze zostac odczytany
+     */
+    public RoomNdjsonReader(InputStream input) throws IOException {
+        this.parser = FACTORY.createParser(input);
+    }
+
+    /**
+     * Odczytuje kolejne pomieszczenie.
+     *
+     * @return niezamrozone pomieszczenie lub {@code null}, jesli strumien zostal odczytany w calosci
+     * @throws IOException jesli wiersz nie jest poprawnym obiektem JSON
+     */
+    public Room next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected " + JsonToken.START_OBJECT + " but found " + token);
+        }
+        buildingId = 0;
+        levelId = 0;
+        int id = 0;
+        String name = "";
+        double area = 0;
+        double cube = 0;
+        double heating = 0;
+        double light = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "buildingId":
+                    buildingId = parser.getIntValue();
+                    break;
+                case "levelId":
+                    levelId = parser.getIntValue();
+                    break;
+                case "id":
+                    id = parser.getIntValue();
+                    break;
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "area":
+                    area = parser.getDoubleValue();
+                    break;
+                case "cube":
+                    cube = parser.getDoubleValue();
+                    break;
+                case "heating":
+                    heating = parser.getDoubleValue();
+                    break;
+                case "light":
+                    light = parser.getDoubleValue();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        roomsRead++;
+        return new Room(id, name, area, cube, heating, light);
+    }
+
+    /**
+     * @return identyfikator budynku ostatnio odczytanego pomieszczenia
+     */
+    public int getBuildingId() {
+        return buildingId;
+    }
+
+    /**
+     * @return identyfikator poziomu ostatnio odczytanego pomieszczenia
+     */
+    public int getLevelId() {
+        return levelId;
+    }
+
+    /**
+     * @return liczba bajtow strumienia przetworzonych do tej pory
+     */
+    public long getBytesRead() {
+        return parser.getCurrentLocation().getByteOffset();
+    }
+
+    public long getRoomsRead() {
+        return roomsRead;
+    }
+
+    /**
+     * @return opis biezacej pozycji w strumieniu, np. do komunikatow o bledach
+     */
+    public String getLocation() {
+        return "line " + parser.getCurrentLocation().getLineNr() + ", column " + parser.getCurrentLocation().getColumnNr();
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,88 @@
+package pl.put.poznan.buildingInfo.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+
+/**
+ * Strumieniowy zapis pomieszczen w formacie NDJSON (jeden obiekt JSON w wierszu), oparty na {@link JsonGenerator}.
+ *
+ * Kazdy wiersz opisuje jedno pomieszczenie: identyfikatory budynku, poziomu i pomieszczenia,
+ * nazwe, parametry oraz moc oswietlenia na jednostke powierzchni ({@code lightPower})
+ * i zuzycie energii na jednostke kubatury ({@code energy}), liczone tak jak w
+ * {@link pl.put.poznan.buildingInfo.logic.visitors.LightVisitor} i
+ * {@link pl.put.poznan.buildingInfo.logic.visitors.EnergyVisitor}. Pomieszczenia sa zapisywane
+ * bezposrednio do strumienia, bez tworzenia list, wiec zuzycie pamieci nie zalezy od ich liczby.
+ */
+public final class RoomNdjsonWriter implements Closeable {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+    private long buildingsWritten;
+    private long roomsWritten;
+
+    /**
+     * @param output strumien docelowy; nie jest zamykany razem z zapisem
+     * @throws IOException jesli strumien nie moze zostac zapisany
+     */
+    public RoomNdjsonWriter(OutputStream output) throws IOException {
+        this.generator = FACTORY.createGenerator(output);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(new SerializedString(""));
+    }
+
+    /**
+     * Zapisuje wszystkie pomieszczenia budynku i przekazuje je do strumienia docelowego.
+     *
+     * @param building budynek
+     * @throws IOException jesli strumien nie moze zostac zapisany
+     */
+    public void write(Building building) throws IOException {
+        for (Level level : building.getLevelsInBuilding()) {
+            for (Room room : level.getRoomsOnLevel()) {
+                write(building.getId(), level.getId(), room);
+            }
+        }
+        buildingsWritten++;
+        generator.flush();
+    }
+
+    private void write(int buildingId, int levelId, Room room) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("buildingId", buildingId);
+        generator.writeNumberField("levelId", levelId);
+        generator.writeNumberField("id", room.getId());
+        generator.writeStringField("name", room.getName());
+        generator.writeNumberField("area", room.getArea());
+        generator.writeNumberField("cube", room.getCube());
+        generator.writeNumberField("heating", room.getHeating());
+        generator.writeNumberField("light", room.getLight());
+        generator.writeNumberField("lightPower", room.getLight() / room.getArea());
+        generator.writeNumberField("energy", room.getHeating() / room.getCube());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        roomsWritten++;
+    }
+
+    public long getBuildingsWritten() {
+        return buildingsWritten;
+    }
+
+    public long getRoomsWritten() {
+        return roomsWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,145 @@
+package pl.put.poznan.buildingInfo.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Location;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+
+/**
+ * Pojedynczy wpis dziennika zapisow z wyprzedzeniem ({@link WriteAheadLog}), opisujacy
+ * jedna zakonczona sukcesem modyfikacje repozytorium budynkow.
+ *
+ * Wpis zawiera rodzaj operacji, identyfikatory modyfikowanych lokalizacji oraz, dla operacji
+ * dodania i aktualizacji, lokalizacje przekazana do repozytorium w postaci JSON.
+ */
+public final class WalRecord {
+
+    /**
+     * Rodzaj modyfikacji zapisanej w dzienniku.
+     */
+    public enum Operation {
+        ADD_BUILDING(Building.class),
+        UPDATE_BUILDING(Building.class),
+        REMOVE_BUILDING(null),
+        ADD_LEVEL(Level.class),
+        UPDATE_LEVEL(Level.class),
+        REMOVE_LEVEL(null),
+        ADD_ROOM(Room.class),
+        UPDATE_ROOM(Room.class),
+        REMOVE_ROOM(null);
+
+        private final Class<? extends Location> payloadType;
+
+        Operation(Class<? extends Location> payloadType) {
+            this.payloadType = payloadType;
+        }
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Operation operation;
+    private final int buildingId;
+    private final int levelId;
+    private final int roomId;
+    private final Location location;
+    private final byte[] payload;
+
+    private WalRecord(Operation operation, int buildingId, int levelId, int roomId, Location location, byte[] payload) {
+        this.operation = operation;
+        this.buildingId = buildingId;
+        this.levelId = levelId;
+        this.roomId = roomId;
+        this.location = location;
+        this.payload = payload;
+    }
+
+    /**
+     * Tworzy wpis modyfikacji. Lokalizacja jest serializowana dopiero przy dopisywaniu
+     * wpisu do dziennika, wiec musi byc zamrozona.
+     *
+     * @param operation rodzaj operacji
+     * @param buildingId identyfikator budynku
+     * @param levelId identyfikator poziomu lub 0
+     * @param roomId identyfikator pomieszczenia lub 0
+     * @param location lokalizacja przekazana do operacji lub {@code null} dla operacji usuniecia
+     * @return wpis dziennika
+     */
+    public static WalRecord of(Operation operation, int buildingId, int levelId, int roomId, Location location) {
+        return new WalRecord(operation, buildingId, levelId, roomId, location, null);
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public int getBuildingId() {
+        return buildingId;
+    }
+
+    public int getLevelId() {
+        return levelId;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * Odczytuje lokalizacje zapisana we wpisie.
+     *
+     * @param type oczekiwany typ lokalizacji
+     * @return nowa, niezamrozona lokalizacja
+     * @throws IOException jesli zapisany JSON jest niepoprawny
+     */
+    public <T extends Location> T getLocation(Class<T> type) throws IOException {
+        return MAPPER.readValue(payload, type);
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(operation.ordinal());
+            out.writeInt(buildingId);
+            out.writeInt(levelId);
+            out.writeInt(roomId);
+            out.flush();
+            if (location != null) {
+                MAPPER.writeValue(bytes, location);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot serialize location for the write-ahead log", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static WalRecord decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= Operation.values().length) {
+            throw new IOException("Unknown write-ahead log operation: " + ordinal);
+        }
+        Operation operation = Operation.values()[ordinal];
+        int buildingId = in.readInt();
+        int levelId = in.readInt();
+        int roomId = in.readInt();
+        byte[] payload = Arrays.copyOfRange(bytes, 13, bytes.length);
+        if ((operation.payloadType == null) != (payload.length == 0)) {
+            throw new IOException("Malformed write-ahead log record: " + operation);
+        }
+        return new WalRecord(operation, buildingId, levelId, roomId, null, payload);
+    }
+
+    @Override
+    public String toString() {
+        return operation + " " + buildingId + "/" + levelId + "/" + roomId;
+    }
+}
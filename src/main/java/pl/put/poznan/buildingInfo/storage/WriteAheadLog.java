@@ -0,0 +1,430 @@
+package pl.put.poznan.buildingInfo.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dziennik zapisow z wyprzedzeniem (write-ahead log) dla wszystkich modyfikacji repozytorium budynkow.
+ *
+ * Kazda zakonczona sukcesem modyfikacja jest dopisywana na koniec pliku dziennika jako wpis
+ * {@link WalRecord} poprzedzony dlugoscia i suma kontrolna CRC32. Po ponownym uruchomieniu
+ * aplikacji dziennik jest odtwarzany na danych poczatkowych, co odbudowuje stan repozytorium.
+ *
+ * Wpisy sa utrwalane grupowo (group commit): watek, ktory pierwszy czeka na utrwalenie swoich
+ * wpisow, zapisuje do pliku i wywoluje {@code fsync} dla wszystkich wpisow dopisanych do tej
+ * pory, a pozostale watki czekaja na zakonczenie tej operacji. Przy wielu rownoczesnych
+ * zapisach jeden {@code fsync} obejmuje wiele modyfikacji.
+ *
+ * Dziennik sklada sie z segmentow oznaczonych numerem generacji zapisanym w naglowku pliku.
+ * Biezacy segment ma nazwe wskazana przez wlasciwosc {@code building-info.storage.wal-file},
+ * a przy tworzeniu migawki ({@link #rotate()}) jest zamykany i przemianowywany na
+ * {@code <nazwa>.<generacja>}. Segmenty objete zapisana migawka sa usuwane.
+ *
+ * Blad zapisu do pliku trwale wylacza dziennik: kolejne modyfikacje koncza sie wyjatkiem,
+ * zamiast zostac potwierdzone bez utrwalenia.
+ */
+@Component
+public class WriteAheadLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final int MAGIC = 0x4257414C;
+    private static final int FORMAT_VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final Path path;
+    private final ThreadLocal<long[]> threadLsn = ThreadLocal.withInitial(() -> new long[1]);
+
+    private volatile FileChannel channel;
+    private long generation;
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appendedLsn;
+    private long durableLsn;
+    private boolean flushing;
+    private IOException failure;
+
+    public WriteAheadLog(@Value("${building-info.storage.wal-file:}") String path) {
+        this.path = path.isEmpty() ? null : Paths.get(path).toAbsolutePath();
+    }
+
+    /**
+     * @return {@code true}, jesli modyfikacje sa zapisywane w dzienniku
+     */
+    public boolean isEnabled() {
+        return path != null;
+    }
+
+    /**
+     * Odtwarza wpisy wszystkich segmentow o generacji nie mniejszej niz podana i otwiera
+     * dziennik do dopisywania. Starsze segmenty, objete juz migawka, sa usuwane.
+     *
+     * Jesli koniec segmentu zawiera niepelny lub uszkodzony wpis (np. po awarii w trakcie zapisu),
+     * segment jest obcinany do ostatniego poprawnego wpisu. Do czasu wywolania tej metody
+     * dopisywane wpisy sa pomijane, wiec ladowanie danych poczatkowych i odtwarzanie
+     * dziennika nie trafiaja ponownie do dziennika.
+     *
+     * @param fromGeneration najstarsza generacja, ktorej wpisy nie sa objete migawka
+     * @param apply operacja stosujaca kolejne wpisy
+     * @return liczba odtworzonych wpisow
+     * @throws IOException jesli dziennik nie moze zostac odczytany
+     */
+    public int recover(long fromGeneration, Consumer<WalRecord> apply) throws IOException {
+        return recover(fromGeneration, apply, () -> { });
+    }
+
+    /**
+     * Odtwarza wpisy jak {@link #recover(long, Consumer)}, a po ostatnim wpisie, jeszcze przed
+     * otwarciem dziennika do dopisywania, wykonuje podana operacje, np. stosujac wpisy
+     * zgromadzone w partii przez {@code apply}.
+     *
+     * @param fromGeneration najstarsza generacja, ktorej wpisy nie sa objete migawka
+     * @param apply operacja stosujaca kolejne wpisy
+     * @param completion operacja wykonywana po odtworzeniu wszystkich wpisow
+     * @return liczba odtworzonych wpisow
+     * @throws IOException jesli dziennik nie moze zostac odczytany
+     */
+    public int recover(long fromGeneration, Consumer<WalRecord> apply, Runnable completion) throws IOException {
+        if (!isEnabled()) {
+            completion.run();
+            return 0;
+        }
+        Files.createDirectories(path.getParent());
+        List<Path> segments = new ArrayList<>();
+        List<Long> generations = new ArrayList<>();
+        for (Path file : closedSegments()) {
+            long segmentGeneration = readGeneration(file);
+            int i = 0;
+            while (i < generations.size() && generations.get(i) < segmentGeneration) {
+                i++;
+            }
+            segments.add(i, file);
+            generations.add(i, segmentGeneration);
+        }
+        if (Files.exists(path) && Files.size(path) >= SEGMENT_HEADER_SIZE) {
+            segments.add(path);
+            generations.add(readGeneration(path));
+        }
+
+        int count = 0;
+        long next = fromGeneration;
+        FileChannel current = null;
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            long segmentGeneration = generations.get(i);
+            if (segmentGeneration < fromGeneration) {
+                logger.debug("Deleting write-ahead log segment {} covered by the snapshot", segment);
+                Files.delete(segment);
+                continue;
+            }
+            FileChannel file = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            count += replay(segment, file, apply);
+            if (segment.equals(path)) {
+                current = file;
+                next = segmentGeneration;
+            } else {
+                file.close();
+                next = Math.max(next, segmentGeneration + 1);
+            }
+        }
+        completion.run();
+        synchronized (this) {
+            this.generation = next;
+            this.channel = current != null ? current : createSegment(next);
+        }
+        return count;
+    }
+
+    private List<Path> closedSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        String prefix = path.getFileName() + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path.getParent(), prefix + "*")) {
+            for (Path file : files) {
+                if (file.getFileName().toString().substring(prefix.length()).matches("\\d+")) {
+                    segments.add(file);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private static long readGeneration(Path segment) throws IOException {
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+            while (header.hasRemaining() && file.read(header) >= 0) {
+                continue;
+            }
+            header.flip();
+            if (header.remaining() < SEGMENT_HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("Not a write-ahead log segment: " + segment);
+            }
+            if (header.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported write-ahead log format version in " + segment);
+            }
+            return header.getLong();
+        }
+    }
+
+    private int replay(Path segment, FileChannel file, Consumer<WalRecord> apply) throws IOException {
+        long size = file.size();
+        long position = SEGMENT_HEADER_SIZE;
+        int count = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER_SIZE <= size) {
+            header.clear();
+            file.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            file.read(body, position + RECORD_HEADER_SIZE);
+            crc.reset();
+            crc.update(body.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            apply.accept(WalRecord.decode(body.array()));
+            position += RECORD_HEADER_SIZE + length;
+            count++;
+        }
+        if (position < size) {
+            logger.warn("Truncating {} bytes of incomplete write-ahead log records at offset {} of {}",
+                    size - position, position, segment);
+            file.truncate(position);
+            file.force(true);
+        }
+        file.position(position);
+        return count;
+    }
+
+    private FileChannel createSegment(long segmentGeneration) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(segmentGeneration).flip();
+        while (header.hasRemaining()) {
+            file.write(header);
+        }
+        file.force(true);
+        return file;
+    }
+
+    /**
+     * Dopisuje wpis do bufora dziennika. Wpis jest utrwalany przy najblizszym wywolaniu
+     * {@link #sync()} przez ktorykolwiek watek.
+     *
+     * @param record wpis dziennika
+     * @throws IllegalStateException jesli dziennik zostal wylaczony po bledzie zapisu
+     */
+    public void append(WalRecord record) {
+        append(Collections.singletonList(record));
+    }
+
+    /**
+     * Dopisuje wpisy do bufora dziennika w calosci albo wcale: wszystkie wpisy sa serializowane
+     * przed dopisaniem pierwszego z nich, wiec blad serializacji nie pozostawia w buforze czesci wpisow.
+     *
+     * @param records wpisy dziennika
+     * @throws IllegalStateException jesli dziennik zostal wylaczony po bledzie zapisu
+     * @throws IllegalArgumentException jesli lokalizacja wpisu nie moze zostac zserializowana
+     */
+    public void append(List<WalRecord> records) {
+        if (channel == null || records.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try {
+            DataOutputStream out = new DataOutputStream(encoded);
+            for (WalRecord record : records) {
+                byte[] body = record.encode();
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                out.writeInt(body.length);
+                out.writeInt((int) crc.getValue());
+                out.write(body);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] bytes = encoded.toByteArray();
+        synchronized (this) {
+            if (channel == null) {
+                return;
+            }
+            checkFailure();
+            pending.write(bytes, 0, bytes.length);
+            appendedLsn += records.size();
+            threadLsn.get()[0] = appendedLsn;
+        }
+    }
+
+    /**
+     * Czeka, az wszystkie wpisy dopisane przez biezacy watek zostana utrwalone na dysku.
+     *
+     * @throws UncheckedIOException jesli zapis do pliku dziennika sie nie powiedzie
+     */
+    public void sync() {
+        long[] lsn = threadLsn.get();
+        if (lsn[0] == 0) {
+            return;
+        }
+        long target = lsn[0];
+        lsn[0] = 0;
+        while (true) {
+            byte[] batch;
+            long batchLsn;
+            FileChannel file;
+            synchronized (this) {
+                awaitFlush(target);
+                if (durableLsn >= target) {
+                    return;
+                }
+                checkFailure();
+                flushing = true;
+                batch = pending.toByteArray();
+                batchLsn = appendedLsn;
+                file = channel;
+                pending = new ByteArrayOutputStream();
+            }
+            IOException error = null;
+            try {
+                write(file, batch);
+            } catch (IOException e) {
+                error = e;
+                logger.error("Write-ahead log failed, rejecting further modifications", e);
+            }
+            synchronized (this) {
+                flushing = false;
+                if (error == null) {
+                    durableLsn = batchLsn;
+                } else {
+                    failure = error;
+                }
+                notifyAll();
+            }
+            if (error != null) {
+                throw new UncheckedIOException(error);
+            }
+        }
+    }
+
+    /**
+     * Zamyka biezacy segment i rozpoczyna nowy o kolejnej generacji.
+     *
+     * Wszystkie dopisane wpisy sa utrwalane w zamykanym segmencie. Wywolujacy musi zapewnic,
+     * ze w trakcie wywolania nie sa wykonywane modyfikacje, np. trzymajac wszystkie blokady
+     * repozytorium, aby stan repozytorium odpowiadal dokladnie wpisom zamknietych segmentow.
+     *
+     * @return generacja nowego segmentu; wpisy starszych generacji beda objete migawka
+     * @throws IOException jesli zapis lub utworzenie segmentu sie nie powiedzie
+     */
+    public synchronized long rotate() throws IOException {
+        if (channel == null) {
+            return generation;
+        }
+        awaitFlush(Long.MAX_VALUE);
+        checkFailure();
+        write(channel, pending.toByteArray());
+        pending = new ByteArrayOutputStream();
+        durableLsn = appendedLsn;
+        notifyAll();
+        channel.close();
+        Files.move(path, path.resolveSibling(path.getFileName() + "." + generation), StandardCopyOption.ATOMIC_MOVE);
+        generation++;
+        channel = createSegment(generation);
+        return generation;
+    }
+
+    /**
+     * Usuwa zamkniete segmenty o generacji mniejszej niz podana, objete juz zapisana migawka.
+     *
+     * @param fromGeneration najstarsza generacja, ktora nalezy zachowac
+     * @throws IOException jesli segment nie moze zostac usuniety
+     */
+    public void deleteSegmentsBefore(long fromGeneration) throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        for (Path segment : closedSegments()) {
+            if (readGeneration(segment) < fromGeneration) {
+                Files.delete(segment);
+            }
+        }
+    }
+
+    private void awaitFlush(long target) {
+        while (flushing && durableLsn < target) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the write-ahead log", e);
+            }
+        }
+    }
+
+    private static void write(FileChannel file, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            file.write(buffer);
+        }
+        file.force(false);
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Write-ahead log is unavailable after a write failure", failure);
+        }
+    }
+
+    /**
+     * Utrwala pozostale wpisy i zamyka plik dziennika.
+     *
+     * @throws IOException jesli zamkniecie pliku sie nie powiedzie
+     */
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        while (flushing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (failure == null && pending.size() > 0) {
+            write(channel, pending.toByteArray());
+        }
+        channel.close();
+        channel = null;
+    }
+}
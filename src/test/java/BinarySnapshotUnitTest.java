@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.visitors.AreaVisitor;
+import pl.put.poznan.buildingInfo.storage.BinarySnapshot;
+import pl.put.poznan.buildingInfo.storage.MappedBuilding;
+import pl.put.poznan.buildingInfo.storage.MappedLevel;
+import pl.put.poznan.buildingInfo.storage.MappedRoomFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinarySnapshotUnitTest {
+
+    @TempDir
+    Path directory;
+
+    private static Building building(int id) {
+        Building building = new Building(id, id % 2 == 0 ? "Building " + id : null);
+        for (int l = 0; l < 2; l++) {
+            Level level = new Level(10 * id + l, "Level " + l);
+            for (int r = 0; r < 3; r++) {
+                level.add(new Room(100 * id + 10 * l + r, "Room " + r, 10.5 + r, 25 + l, 3.5 * r, 2.25));
+            }
+            building.add(level);
+        }
+        return building;
+    }
+
+    @Test
+    void testBuildingsAreRestored() throws IOException {
+        Path file = directory.resolve("test.snapshot");
+        BinarySnapshot.write(file, 7, Arrays.asList(building(1), building(2)));
+
+        BinarySnapshot snapshot = BinarySnapshot.read(file);
+        assertEquals(7, snapshot.getWalGeneration());
+        assertEquals(2, snapshot.getBuildings().size());
+        Building restored = snapshot.getBuildings().get(0);
+        assertEquals(1, restored.getId());
+        assertNull(restored.getName());
+        Room room = restored.getLevelsInBuilding().get(1).getRoomsOnLevel().get(2);
+        assertEquals(112, room.getId());
+        assertEquals("Room 2", room.getName());
+        assertEquals(7.0, room.getHeating());
+        assertEquals(new AreaVisitor().visit(building(2)), new AreaVisitor().visit(snapshot.getBuildings().get(1)));
+    }
+
+    @Test
+    void testMappedLevelsAreReferenced() throws IOException {
+        Path rooms = directory.resolve("building-3.rooms");
+        MappedRoomFile.write(building(3), rooms);
+        MappedBuilding mapped = new MappedBuilding(MappedRoomFile.open(rooms));
+        Building modified = new Building(3, "Building 3");
+        modified.add(mapped.getLevelsInBuilding().get(1));
+        modified.add(new Level(99, "Level 99"));
+
+        Path file = directory.resolve("test.snapshot");
+        BinarySnapshot.write(file, 0, Arrays.asList(mapped, modified));
+        BinarySnapshot snapshot = BinarySnapshot.read(file);
+
+        assertTrue(snapshot.getBuildings().get(0) instanceof MappedBuilding);
+        Level level = snapshot.getBuildings().get(1).getLevelsInBuilding().get(0);
+        assertTrue(level instanceof MappedLevel);
+        assertEquals(31, level.getId());
+        assertEquals(311, ((MappedLevel) level).findRoom(311).getId());
+        assertEquals(99, snapshot.getBuildings().get(1).getLevelsInBuilding().get(1).getId());
+    }
+
+    @Test
+    void testCorruptedSnapshotIsRejected() throws IOException {
+        Path file = directory.resolve("test.snapshot");
+        BinarySnapshot.write(file, 0, Arrays.asList(building(1)));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x7F}), channel.size() - 5);
+        }
+
+        assertThrows(IOException.class, () -> BinarySnapshot.read(file));
+    }
+}
@@ -0,0 +1,56 @@
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.storage.BuildingJsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BuildingJsonReaderUnitTest {
+
+    private static BuildingJsonReader reader(String json) throws IOException {
+        return new BuildingJsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testBuildingsAreReadOneByOne() throws IOException {
+        String json = "[{\"id\":1,\"name\":\"A\",\"levelsInBuilding\":[{\"roomsOnLevel\":["
+                + "{\"id\":1001,\"area\":50.5,\"cube\":120,\"heating\":10.5,\"light\":20,\"extra\":{\"a\":[1]}}],"
+                + "\"id\":101,\"name\":\"Level 1\"}]},"
+                + "{\"id\":2,\"levelsInBuilding\":null}]";
+        try (BuildingJsonReader reader = reader(json)) {
+            Building first = reader.next();
+            assertEquals(1, first.getId());
+            assertEquals("A", first.getName());
+            Level level = first.getLevelsInBuilding().get(0);
+            assertEquals(101, level.getId());
+            Room room = level.getRoomsOnLevel().get(0);
+            assertEquals(1001, room.getId());
+            assertEquals("", room.getName());
+            assertEquals(120.0, room.getCube());
+
+            Building second = reader.next();
+            assertEquals(2, second.getId());
+            assertEquals(0, second.getLevelsInBuilding().size());
+            assertNull(reader.next());
+            assertEquals(2, reader.getBuildingsRead());
+            assertEquals(1, reader.getRoomsRead());
+        }
+    }
+
+    @Test
+    void testMalformedDocumentIsRejected() throws IOException {
+        try (BuildingJsonReader reader = reader("[{\"id\":1,\"levelsInBuilding\":[{\"id\":101,")) {
+            assertThrows(IOException.class, reader::next);
+        }
+        try (BuildingJsonReader reader = reader("{\"id\":1}")) {
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.EnergyDensityIndex;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.visitors.ExceedingHeatingVisitor;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+import pl.put.poznan.buildingInfo.storage.WriteAheadLog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EnergyDensityIndexUnitTest {
+
+    private static Building building(int id, long seed) {
+        Random random = new Random(seed);
+        Building building = new Building(id, "Building " + id);
+        for (int l = 0; l < 5; l++) {
+            Level level = new Level(id * 100 + l, "Level " + l);
+            for (int r = 0; r < 40; r++) {
+                level.add(new Room(id * 10000 + l * 100 + r, "Room", 20, 10 + random.nextInt(5), random.nextInt(20), 5));
+            }
+            building.add(level);
+        }
+        building.getLevelsInBuilding().get(0).add(new Room(id * 10000 + 99, "Empty", 0, 0, 0, 0));
+        building.freeze();
+        return building;
+    }
+
+    private static List<Room> visit(Building building, double energyLimit) {
+        ExceedingHeatingVisitor visitor = new ExceedingHeatingVisitor(energyLimit);
+        building.accept(visitor);
+        return visitor.getRoomsExceedingLimit();
+    }
+
+    @Test
+    void testIndexMatchesVisitor() {
+        Building building = building(1, 42);
+        EnergyDensityIndex index = building.getEnergyDensityIndex();
+
+        for (double energyLimit : new double[]{-1, 0, 0.5, 1, 1.5, 100}) {
+            List<Room> expected = visit(building, energyLimit);
+            assertEquals(expected, index.findExceeding(energyLimit, EnergyDensityIndex.Order.LOCATION, Integer.MAX_VALUE));
+            for (int maxRooms : new int[]{1, 3, 50}) {
+                assertEquals(expected.subList(0, Math.min(maxRooms, expected.size())),
+                        index.findExceeding(energyLimit, EnergyDensityIndex.Order.LOCATION, maxRooms));
+            }
+        }
+        assertEquals(200, index.size());
+    }
+
+    @Test
+    void testOrderAndLimit() {
+        Building building = building(1, 7);
+        List<Room> ascending = building.getEnergyDensityIndex().findExceeding(0.5, EnergyDensityIndex.Order.ASCENDING, Integer.MAX_VALUE);
+        List<Room> descending = building.getEnergyDensityIndex().findExceeding(0.5, EnergyDensityIndex.Order.DESCENDING, 5);
+
+        double[] densities = ascending.stream().mapToDouble(room -> room.getHeating() / room.getCube()).toArray();
+        double[] sorted = densities.clone();
+        Arrays.sort(sorted);
+        assertTrue(Arrays.equals(sorted, densities));
+        assertTrue(densities[0] > 0.5);
+        assertEquals(5, descending.size());
+        assertEquals(ascending.get(ascending.size() - 1).getHeating() / ascending.get(ascending.size() - 1).getCube(),
+                descending.get(0).getHeating() / descending.get(0).getCube());
+    }
+
+    @Test
+    void testPortfolioMergesBuildings() {
+        List<EnergyDensityIndex> indexes = new ArrayList<>();
+        List<Room> all = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            Building building = building(id, id);
+            indexes.add(building.getEnergyDensityIndex());
+            all.addAll(visit(building, 1));
+        }
+
+        assertEquals(all, EnergyDensityIndex.findExceeding(indexes, 1, EnergyDensityIndex.Order.LOCATION, Integer.MAX_VALUE));
+        List<Room> top = EnergyDensityIndex.findExceeding(indexes, 1, EnergyDensityIndex.Order.DESCENDING, 10);
+        all.sort((a, b) -> Double.compare(b.getHeating() / b.getCube(), a.getHeating() / a.getCube()));
+        assertEquals(10, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(all.get(i).getHeating() / all.get(i).getCube(), top.get(i).getHeating() / top.get(i).getCube());
+        }
+    }
+
+    @Test
+    void testUpdateReindexesChangedLevelOnly() {
+        BuildingRepository repository = new BuildingRepository(new WriteAheadLog(""));
+        repository.addBuilding(building(1, 3));
+        Building before = repository.findBuilding(1);
+        EnergyDensityIndex unchanged = before.getLevelsInBuilding().get(1).getEnergyDensityIndex();
+        EnergyDensityIndex changed = before.getLevelsInBuilding().get(0).getEnergyDensityIndex();
+        before.getEnergyDensityIndex();
+
+        Room hot = before.getLevelsInBuilding().get(0).getRoomsOnLevel().stream()
+                .filter(room -> room.getHeating() > 0).findFirst().get();
+        repository.updateRoom(1, 100, hot.getId(), new Room(hot.getId(), "Hot", 20, 0.001, 0, 0));
+        Building after = repository.findBuilding(1);
+
+        assertSame(unchanged, after.getLevelsInBuilding().get(1).getEnergyDensityIndex());
+        assertNotSame(changed, after.getLevelsInBuilding().get(0).getEnergyDensityIndex());
+        List<Room> hottest = after.getEnergyDensityIndex().findExceeding(100, EnergyDensityIndex.Order.DESCENDING, 1);
+        assertEquals(hot.getId(), hottest.get(0).getId());
+        assertEquals(visit(after, 0.5), after.getEnergyDensityIndex().findExceeding(0.5, EnergyDensityIndex.Order.LOCATION, Integer.MAX_VALUE));
+    }
+}
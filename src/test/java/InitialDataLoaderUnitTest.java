@@ -0,0 +1,50 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+import pl.put.poznan.buildingInfo.repository.InitialDataLoader;
+import pl.put.poznan.buildingInfo.storage.MappedRoomStorage;
+import pl.put.poznan.buildingInfo.storage.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class InitialDataLoaderUnitTest {
+
+    @TempDir
+    Path directory;
+
+    private static String building(int id, int roomId) {
+        return "{\"id\":" + id + ",\"name\":\"B" + id + "\",\"levelsInBuilding\":[{\"id\":" + (10 * id)
+                + ",\"roomsOnLevel\":[{\"id\":" + roomId + ",\"area\":10,\"cube\":30,\"heating\":5,\"light\":2}]}]}";
+    }
+
+    @Test
+    void testDataDirectoryIsMergedWithConflictDetection() throws IOException {
+        for (int site = 0; site < 8; site++) {
+            StringBuilder json = new StringBuilder("[");
+            for (int b = 0; b < 50; b++) {
+                int id = 1000 * site + b + 1;
+                json.append(b > 0 ? "," : "").append(building(id, 100 * id));
+            }
+            Files.write(directory.resolve("site-" + site + ".json"), json.append("]").toString().getBytes());
+        }
+        Files.write(directory.resolve("conflicts.json"),
+                ("[" + building(2, 999_999) + "," + building(99_999, 300) + "," + building(99_998, 999_998) + "]").getBytes());
+        Files.write(directory.resolve("broken.json"), ("[" + building(77_777, 777_777) + ",{\"id\":").getBytes());
+        Files.write(directory.resolve("ignored.txt"), "not json".getBytes());
+
+        BuildingRepository repository = new BuildingRepository(new WriteAheadLog(""));
+        InitialDataLoader loader = new InitialDataLoader(repository, new MappedRoomStorage(""), directory.toString(), 3);
+        loader.load();
+
+        assertEquals(8 * 50 + 2, repository.count());
+        assertNotNull(repository.findBuilding(2));
+        assertNotNull(repository.findRoomPath(300));
+        assertNotNull(repository.findBuilding(99_998));
+        assertNotNull(repository.findBuilding(77_777));
+    }
+}
@@ -0,0 +1,54 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.repository.IntObjectMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntObjectMapUnitTest {
+
+    private IntObjectMap<String> map;
+
+    @BeforeEach
+    void setUp() {
+        map = new IntObjectMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, "Value " + i);
+        }
+    }
+
+    @Test
+    void testGetAfterResize() {
+        assertEquals(1000, map.size());
+        assertEquals("Value 0", map.get(0));
+        assertEquals("Value 999", map.get(999));
+        assertNull(map.get(1000));
+    }
+
+    @Test
+    void testPutReplacesValue() {
+        assertEquals("Value 5", map.put(5, "Other"));
+        assertEquals("Other", map.get(5));
+        assertEquals(1000, map.size());
+    }
+
+    @Test
+    void testRemove() {
+        for (int i = 0; i < 1000; i += 2) {
+            assertEquals("Value " + i, map.remove(i));
+        }
+        assertEquals(500, map.size());
+        assertFalse(map.containsKey(0));
+        assertTrue(map.containsKey(1));
+        assertNull(map.remove(0));
+    }
+
+    @Test
+    void testNegativeKeys() {
+        map.put(-7, "Negative");
+        assertEquals("Negative", map.get(-7));
+        assertEquals(1001, map.values().size());
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+import pl.put.poznan.buildingInfo.repository.VersionConflictException;
+import pl.put.poznan.buildingInfo.rest.LocationEtags;
+import pl.put.poznan.buildingInfo.rest.LocationMediaTypes;
+import pl.put.poznan.buildingInfo.storage.WriteAheadLog;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LocationEtagsUnitTest {
+
+    private static BuildingRepository repository() {
+        BuildingRepository repository = new BuildingRepository(new WriteAheadLog(""));
+        Building building = new Building(1, "Building 1");
+        Level level = new Level(10, "Level 0");
+        level.add(new Room(100, "Room", 20, 50, 10, 5));
+        building.add(level);
+        building.add(new Level(11, "Level 1"));
+        repository.addBuilding(building);
+        return repository;
+    }
+
+    @Test
+    void testEtagChangesForModifiedLocationAndAncestorsOnly() {
+        BuildingRepository repository = repository();
+        String building = LocationEtags.etag(repository.findBuilding(1));
+        String level = LocationEtags.etag(repository.findLevel(1, 10));
+        String sibling = LocationEtags.etag(repository.findLevel(1, 11));
+
+        repository.updateRoom(1, 10, 100, new Room(100, "Renamed", 20, 50, 10, 5));
+
+        assertNotEquals(building, LocationEtags.etag(repository.findBuilding(1)));
+        assertNotEquals(level, LocationEtags.etag(repository.findLevel(1, 10)));
+        assertEquals(sibling, LocationEtags.etag(repository.findLevel(1, 11)));
+    }
+
+    @Test
+    void testIfMatchVersion() {
+        BuildingRepository repository = repository();
+        Room room = repository.findRoom(100);
+
+        assertEquals(room.getVersion(), LocationEtags.expectedVersion("W/\"x\", " + LocationEtags.etag(room)));
+        String smile = LocationEtags.etag(room).replaceFirst("\"$", "-smile.gzip\"");
+        assertEquals(room.getVersion(), LocationEtags.expectedVersion(smile));
+        assertEquals(BuildingRepository.ANY_VERSION, LocationEtags.expectedVersion(null));
+        assertEquals(BuildingRepository.ANY_VERSION, LocationEtags.expectedVersion("*"));
+        assertEquals(LocationEtags.NO_VERSION, LocationEtags.expectedVersion("\"0-1\""));
+    }
+
+    @Test
+    void testUpdateWithStaleVersionIsRejected() {
+        BuildingRepository repository = repository();
+        long version = repository.findRoom(100).getVersion();
+        Room updated = new Room(100, "Renamed", 20, 50, 10, 5);
+
+        repository.updateRoom(1, 10, 100, updated, version);
+
+        VersionConflictException e = assertThrows(VersionConflictException.class,
+                () -> repository.updateRoom(1, 10, 100, updated, version));
+        assertEquals(repository.findRoom(100).getVersion(), e.getCurrentVersion());
+        assertThrows(VersionConflictException.class,
+                () -> repository.updateLevel(1, 10, new Level(10, "Level"), LocationEtags.NO_VERSION));
+    }
+
+    private static MockHttpServletResponse get(LocationEtags etags, String ifNoneMatch, String accept, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/buildings/1");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Collections.singletonMap("buildingId", "1"));
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean proceed = etags.preHandle(request, response, null);
+        assertEquals(response.getStatus() != 304, proceed);
+        return response;
+    }
+
+    @Test
+    void testIfNoneMatchComparesRepresentation() {
+        BuildingRepository repository = repository();
+        LocationEtags etags = new LocationEtags(repository);
+        String json = LocationEtags.etag(repository.findBuilding(1));
+        String smile = json.replaceFirst("\"$", "-smile\"");
+        String gzip = json.replaceFirst("\"$", "-gzip\"");
+
+        assertEquals(json, get(etags, json, null, null).getHeader(HttpHeaders.ETAG));
+        assertEquals(200, get(etags, smile, LocationMediaTypes.JSON, null).getStatus());
+        assertEquals(smile, get(etags, smile, LocationMediaTypes.SMILE, "gzip").getHeader(HttpHeaders.ETAG));
+        assertEquals(200, get(etags, json, LocationMediaTypes.CBOR, null).getStatus());
+        assertEquals(200, get(etags, gzip, null, null).getStatus());
+        assertEquals(gzip, get(etags, gzip, null, "gzip").getHeader(HttpHeaders.ETAG));
+        assertEquals(json, get(etags, json, null, "gzip").getHeader(HttpHeaders.ETAG));
+        assertEquals(json, get(etags, "*", null, null).getHeader(HttpHeaders.ETAG));
+        assertEquals(200, get(etags, "*", "text/plain", null).getStatus());
+    }
+}
@@ -0,0 +1,167 @@
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.rest.LocationJsonCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocationJsonCacheUnitTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static Building building(int id, int rooms) {
+        Building building = new Building(id, "Building " + id);
+        Level level = new Level(id * 10, "Level");
+        for (int i = 0; i < rooms; i++) {
+            level.add(new Room(id * 1000 + i, "Room " + i, 20, 50, 10, 5));
+        }
+        building.add(level);
+        building.freeze();
+        return building;
+    }
+
+    @Test
+    void testEncodedBytesAreReused() throws IOException {
+        LocationJsonCache cache = new LocationJsonCache(mapper, 1 << 20, 1 << 20, true);
+        Building building = building(1, 3);
+
+        ResponseEntity<?> first = (ResponseEntity<?>) cache.respond(building, null, null);
+        ResponseEntity<?> second = (ResponseEntity<?>) cache.respond(building, null, "br");
+
+        assertArrayEquals(mapper.writeValueAsBytes(building), (byte[]) first.getBody());
+        assertSame(first.getBody(), second.getBody());
+        assertNull(first.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testBinaryFormatsBypassCache() {
+        LocationJsonCache cache = new LocationJsonCache(mapper, 1 << 20, 1 << 20, true);
+        Building building = building(1, 3);
+
+        assertSame(building, cache.respond(building, "application/x-jackson-smile", null));
+        assertSame(building, cache.respond(building, "application/cbor, application/json;q=0.5", "gzip"));
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void testGzipIsNegotiated() throws IOException {
+        LocationJsonCache cache = new LocationJsonCache(mapper, 1 << 20, 1 << 20, true);
+        Building building = building(1, 50);
+
+        ResponseEntity<?> response = (ResponseEntity<?>) cache.respond(building, null, "deflate, gzip;q=0.8");
+        ResponseEntity<?> refused = (ResponseEntity<?>) cache.respond(building, null, "gzip;q=0");
+
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        byte[] json;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream((byte[]) response.getBody()))) {
+            json = in.readAllBytes();
+        }
+        assertArrayEquals(mapper.writeValueAsBytes(building), json);
+        assertNull(refused.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void testLimits() {
+        LocationJsonCache cache = new LocationJsonCache(mapper, 4096, 2048, false);
+        Building large = building(1, 100);
+        assertSame(large, cache.respond(large, null, null));
+        assertSame(large, cache.respond(large, null, null));
+
+        for (int i = 2; i < 20; i++) {
+            cache.respond(building(i, 3), null, null);
+        }
+        assertTrue(cache.getBytes() <= 4096);
+        assertTrue(cache.respond(new Building(99, "Unfrozen"), null, null) instanceof Building);
+    }
+
+    @Test
+    void testTooLargeVersionsAreEvicted() {
+        LocationJsonCache cache = new LocationJsonCache(mapper, 1024, 512, false);
+        for (int i = 1; i <= 100; i++) {
+            Building large = building(i, 20);
+            assertSame(large, cache.respond(large, null, null));
+        }
+        assertTrue(cache.getBytes() > 0);
+        assertTrue(cache.getBytes() <= 1024);
+    }
+
+    @Test
+    void testFailedEncodingIsNotCached() throws IOException {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        ObjectMapper flaky = new ObjectMapper() {
+            @Override
+            public void writeValue(OutputStream out, Object value) throws IOException {
+                if (failing.getAndSet(false)) {
+                    throw new JsonMappingException(null, "Serialization failed");
+                }
+                super.writeValue(out, value);
+            }
+        };
+        LocationJsonCache cache = new LocationJsonCache(flaky, 1 << 20, 1 << 20, false);
+        Building building = building(1, 3);
+
+        assertSame(building, cache.respond(building, null, null));
+        ResponseEntity<?> response = (ResponseEntity<?>) cache.respond(building, null, null);
+        assertArrayEquals(mapper.writeValueAsBytes(building), (byte[]) response.getBody());
+    }
+
+    @Test
+    void testConcurrentReads() throws Exception {
+        LocationJsonCache cache = new LocationJsonCache(mapper, 16384, 4096, true);
+        List<Building> buildings = new ArrayList<>();
+        List<byte[]> expected = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            Building building = building(i, 1 + i % 7);
+            buildings.add(building);
+            expected.add(mapper.writeValueAsBytes(building));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        int index = (i * 7 + seed) % (i % 3 == 0 ? buildings.size() : 5);
+                        ResponseEntity<?> response = (ResponseEntity<?>) cache.respond(buildings.get(index), null, null);
+                        assertArrayEquals(expected.get(index), (byte[]) response.getBody());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(8 * 2000, cache.getHits() + cache.getMisses());
+        assertTrue(cache.getHits() > cache.getMisses());
+        cache.respond(building(99, 3), null, null);
+        assertTrue(cache.getBytes() <= 16384);
+    }
+}
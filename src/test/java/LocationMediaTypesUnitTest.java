@@ -0,0 +1,61 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.visitors.SummaryVisitor;
+import pl.put.poznan.buildingInfo.rest.LocationMediaTypes;
+import pl.put.poznan.buildingInfo.rest.LocationProjection;
+import pl.put.poznan.buildingInfo.rest.MetricResponse;
+import pl.put.poznan.buildingInfo.rest.SummaryResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocationMediaTypesUnitTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    private static Building building() {
+        Building building = new Building(1, "Building");
+        Level level = new Level(10, "Level");
+        level.add(new Room(100, "Room", 20, 50, 10, 5));
+        level.add(new Room(101, "Room 2", 30.5, 75, 12, 7));
+        building.add(level);
+        building.freeze();
+        return building;
+    }
+
+    @Test
+    void testBinaryFormatsEncodeSameModelAsJson() throws Exception {
+        Building building = building();
+        SummaryVisitor visitor = new SummaryVisitor(2, 3);
+        building.accept(visitor);
+        Object[] responses = {building, LocationProjection.of(building, "id,name,levelsInBuilding", 1),
+                MetricResponse.of(MetricResponse.LIGHT_COST, 1.5), SummaryResponse.of(building, visitor)};
+
+        for (ObjectMapper binary : new ObjectMapper[]{new ObjectMapper(new SmileFactory()), new ObjectMapper(new CBORFactory())}) {
+            for (Object response : responses) {
+                byte[] encoded = binary.writeValueAsBytes(response);
+                assertEquals(json.readTree(json.writeValueAsBytes(response)), binary.readTree(encoded));
+            }
+            JsonNode decoded = binary.readTree(binary.writeValueAsBytes(building));
+            Building copy = json.treeToValue(decoded, Building.class);
+            assertEquals(json.writeValueAsString(building), json.writeValueAsString(copy));
+        }
+    }
+
+    @Test
+    void testJsonPreference() {
+        assertTrue(LocationMediaTypes.prefersJson(null));
+        assertTrue(LocationMediaTypes.prefersJson("*/*"));
+        assertTrue(LocationMediaTypes.prefersJson("application/json, application/cbor;q=0.5"));
+        assertFalse(LocationMediaTypes.prefersJson(LocationMediaTypes.SMILE));
+        assertFalse(LocationMediaTypes.prefersJson("application/cbor, */*;q=0.1"));
+        assertFalse(LocationMediaTypes.prefersJson("text/plain"));
+    }
+}
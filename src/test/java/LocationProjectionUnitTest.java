@@ -0,0 +1,52 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.rest.LocationProjection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LocationProjectionUnitTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Building building;
+
+    @BeforeEach
+    void setUp() {
+        building = new Building(1, "B");
+        Level level = new Level(2, "L");
+        level.add(new Room(3, "R", 10, 30, 60, 5));
+        building.add(level);
+    }
+
+    @Test
+    void testFieldsApplyAtEveryDepth() throws Exception {
+        assertEquals("{\"id\":1,\"name\":\"B\",\"levelsInBuilding\":[{\"id\":2,\"name\":\"L\",\"roomsOnLevel\":[{\"id\":3,\"name\":\"R\"}]}]}",
+                mapper.writeValueAsString(LocationProjection.of(building, "id,name,levelsInBuilding,roomsOnLevel", null)));
+    }
+
+    @Test
+    void testDepthLimitsNestedLocations() throws Exception {
+        assertEquals("{\"id\":1,\"name\":\"B\"}",
+                mapper.writeValueAsString(LocationProjection.of(building, null, 0)));
+        assertEquals("{\"id\":1,\"name\":\"B\",\"levelsInBuilding\":[{\"id\":2,\"name\":\"L\"}]}",
+                mapper.writeValueAsString(LocationProjection.of(building, null, 1)));
+    }
+
+    @Test
+    void testRoomProperties() throws Exception {
+        Room room = building.getLevelsInBuilding().get(0).getRoomsOnLevel().get(0);
+        assertEquals("{\"id\":3,\"area\":10.0,\"heating\":60.0}",
+                mapper.writeValueAsString(LocationProjection.of(room, "heating, id,area", null)));
+    }
+
+    @Test
+    void testInvalidProjectionIsRejected() {
+        assertThrows(ResponseStatusException.class, () -> LocationProjection.of(building, "id,password", null));
+        assertThrows(ResponseStatusException.class, () -> LocationProjection.of(building, null, -1));
+    }
+}
@@ -0,0 +1,67 @@
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.LocationTotals;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.visitors.AreaVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.CubeVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.EnergyVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.LightVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class LocationTotalsUnitTest {
+
+    private static Building building() {
+        Building building = new Building(1, "Building 1");
+        for (int l = 0; l < 4; l++) {
+            Level level = new Level(10 + l, "Level " + l);
+            for (int r = 0; r < 25; r++) {
+                level.add(new Room(100 * l + r, "Room " + r, 10.1 + 0.3 * r, 27.7 + l, 1.9 * r + 0.1, 3.3 + 0.7 * l));
+            }
+            building.add(level);
+        }
+        return building;
+    }
+
+    @Test
+    void testTotalsMatchTraversal() {
+        Building mutable = building();
+        Building frozen = building();
+        frozen.freeze();
+
+        assertNull(mutable.getTotals());
+        LocationTotals totals = frozen.getTotals();
+        assertEquals(new AreaVisitor().visit(mutable), totals.getArea());
+        assertEquals(new CubeVisitor().visit(mutable), totals.getCube());
+        assertEquals(new LightVisitor().visit(mutable), totals.getLightPower());
+        assertEquals(new EnergyVisitor().visit(mutable), totals.getEnergy());
+        assertEquals(new EnergyVisitor().visit(mutable.getLevelsInBuilding().get(2)),
+                new EnergyVisitor().visit(frozen.getLevelsInBuilding().get(2)));
+        assertSame(totals, frozen.getTotals());
+    }
+
+    @Test
+    void testUnchangedLevelsKeepTheirTotals() {
+        Building original = building();
+        original.freeze();
+        original.getTotals();
+
+        Level changed = new Level(11, "Level 1");
+        changed.add(new Room(500, "Room 500", 20, 60, 5, 8));
+        List<Level> levels = new ArrayList<>(original.getLevelsInBuilding());
+        levels.set(1, changed);
+        Building copy = new Building(1, "Building 1");
+        copy.setLevelsInBuilding(levels);
+        copy.freeze();
+
+        assertSame(original.getLevelsInBuilding().get(0).getTotals(), copy.getLevelsInBuilding().get(0).getTotals());
+        assertEquals(original.getTotals().getArea() - original.getLevelsInBuilding().get(1).getTotals().getArea() + 20,
+                copy.getTotals().getArea(), 1e-9);
+    }
+}
@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.visitors.AreaVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.EnergyVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.LightVisitor;
+import pl.put.poznan.buildingInfo.storage.MappedBuilding;
+import pl.put.poznan.buildingInfo.storage.MappedLevel;
+import pl.put.poznan.buildingInfo.storage.MappedRoomFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedRoomFileUnitTest {
+
+    @TempDir
+    Path directory;
+
+    private Building building;
+
+    @BeforeEach
+    void setUp() {
+        building = new Building(7, "Building 7");
+        for (int l = 0; l < 3; l++) {
+            Level level = new Level(70 + l, "Level " + l);
+            for (int r = 0; r < 4 * l; r++) {
+                level.add(new Room(700 + 10 * l + r, r % 2 == 0 ? "Room " + r : "", 12.5 + r, 30 + l, 4.5 * r, 1.5 + l));
+            }
+            building.add(level);
+        }
+    }
+
+    @Test
+    void testRemappedBuildingMatchesOriginal() throws IOException {
+        Path file = directory.resolve("building-7.rooms");
+        MappedRoomFile.write(building, file);
+        MappedBuilding mapped = new MappedBuilding(MappedRoomFile.open(file));
+
+        assertEquals(building.getId(), mapped.getId());
+        assertEquals(building.getName(), mapped.getName());
+        assertEquals(3, mapped.getLevelsInBuilding().size());
+        assertTrue(mapped.isFrozen());
+        Room original = building.getLevelsInBuilding().get(2).getRoomsOnLevel().get(3);
+        Room copy = mapped.getLevelsInBuilding().get(2).getRoomsOnLevel().get(3);
+        assertEquals(original.getId(), copy.getId());
+        assertEquals(original.getName(), copy.getName());
+        assertEquals(original.getHeating(), copy.getHeating());
+
+        assertEquals(new AreaVisitor().visit(building), new AreaVisitor().visit(mapped));
+        assertEquals(new LightVisitor().visit(building), new LightVisitor().visit(mapped));
+        assertEquals(new EnergyVisitor().visit(building.getLevelsInBuilding().get(1)),
+                new EnergyVisitor().visit(mapped.getLevelsInBuilding().get(1)));
+    }
+
+    @Test
+    void testFindRoomUsesFileIndex() throws IOException {
+        Path file = directory.resolve("building-7.rooms");
+        MappedRoomFile.write(building, file);
+        MappedBuilding mapped = new MappedBuilding(MappedRoomFile.open(file));
+
+        MappedLevel level = mapped.findLevelOfRoom(721);
+        assertEquals(72, level.getId());
+        assertEquals(721, level.findRoom(721).getId());
+        assertNull(((MappedLevel) mapped.getLevelsInBuilding().get(1)).findRoom(721));
+        assertNull(mapped.findLevelOfRoom(999));
+    }
+
+    @Test
+    void testFrozenMappedBuildingRejectsChanges() throws IOException {
+        Path file = directory.resolve("building-7.rooms");
+        MappedRoomFile.write(building, file);
+        MappedBuilding mapped = new MappedBuilding(MappedRoomFile.open(file));
+
+        assertThrows(IllegalStateException.class, () -> mapped.add(new Level(80, "Level 80")));
+        assertThrows(UnsupportedOperationException.class,
+                () -> mapped.getLevelsInBuilding().get(1).getRoomsOnLevel().remove(0));
+    }
+}
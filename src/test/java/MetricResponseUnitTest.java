@@ -0,0 +1,52 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.visitors.SummaryVisitor;
+import pl.put.poznan.buildingInfo.rest.MetricResponse;
+import pl.put.poznan.buildingInfo.rest.SummaryResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MetricResponseUnitTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void testMetricKeepsPropertyName() throws Exception {
+        assertEquals("{\"light power:\":2.5}",
+                mapper.writeValueAsString(MetricResponse.of(MetricResponse.LIGHT_POWER, 2.5)));
+        assertEquals("{\"energyConsumption\":0.0}",
+                mapper.writeValueAsString(MetricResponse.of(MetricResponse.LEVEL_ENERGY_CONSUMPTION, 0)));
+        assertEquals("cost of energy", MetricResponse.of(MetricResponse.ENERGY_COST, 1).getName());
+    }
+
+    @Test
+    void testSummaryMatchesMapSerialization() throws Exception {
+        Building building = new Building(1, "B");
+        Level level = new Level(10, "L");
+        level.add(new Room(100, "R", 20, 50, 10, 5));
+        building.add(level);
+        SummaryVisitor visitor = new SummaryVisitor(2, 3);
+        building.accept(visitor);
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("id", 1);
+        expected.put("name", "B");
+        expected.put("area", visitor.getArea());
+        expected.put("cube", visitor.getCube());
+        expected.put("lightPower", visitor.getLightPower());
+        expected.put("energyConsumption", visitor.getEnergy());
+        expected.put("lightCost", visitor.getLightCost());
+        expected.put("energyCost", visitor.getEnergyCost());
+
+        assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(SummaryResponse.of(building, visitor)));
+        expected.remove("id");
+        expected.remove("name");
+        assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(SummaryResponse.of(visitor)));
+    }
+}
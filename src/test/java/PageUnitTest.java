@@ -0,0 +1,48 @@
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import pl.put.poznan.buildingInfo.rest.Page;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PageUnitTest {
+
+    private static Page<Integer> page(List<Integer> ids, String cursor, int limit) {
+        return Page.of(ids, Integer::intValue, id -> id, cursor, limit);
+    }
+
+    @Test
+    void testCursorWalksWholeList() {
+        List<Integer> ids = Arrays.asList(7, 3, 9, 1, 5);
+        Page<Integer> first = page(ids, null, 2);
+        Page<Integer> second = page(ids, first.getNextCursor(), 2);
+        Page<Integer> third = page(ids, second.getNextCursor(), 2);
+
+        assertEquals(Arrays.asList(7, 3), first.getItems());
+        assertEquals(Arrays.asList(9, 1), second.getItems());
+        assertEquals(Arrays.asList(5), third.getItems());
+        assertNull(third.getNextCursor());
+    }
+
+    @Test
+    void testCursorFollowsLastIdAfterRemoval() {
+        List<Integer> ids = new ArrayList<>(Arrays.asList(7, 3, 9, 1, 5));
+        Page<Integer> first = page(ids, null, 2);
+        ids.remove(Integer.valueOf(7));
+
+        assertEquals(Arrays.asList(9, 1), page(ids, first.getNextCursor(), 2).getItems());
+    }
+
+    @Test
+    void testInvalidCursorAndLimitAreRejected() {
+        List<Integer> ids = Arrays.asList(1, 2);
+        assertThrows(ResponseStatusException.class, () -> page(ids, "not a cursor", 2));
+        assertThrows(ResponseStatusException.class, () -> page(ids, null, 0));
+        assertThrows(ResponseStatusException.class, () -> page(ids, null, Page.MAX_LIMIT + 1));
+    }
+}
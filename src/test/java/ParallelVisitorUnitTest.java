@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.visitors.AreaVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.EnergyVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.ExceedingHeatingVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.ParallelVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.SummaryVisitor;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ParallelVisitorUnitTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterAll
+    static void shutdown() {
+        pool.shutdown();
+    }
+
+    private static Building building() {
+        Building building = new Building(1, "Building 1");
+        for (int l = 0; l < 6; l++) {
+            Level level = new Level(10 + l, "Level " + l);
+            for (int r = 0; r < 40 + 7 * l; r++) {
+                level.add(new Room(1000 * l + r, "Room " + r, 10.1 + 0.3 * r, 27.7 + l, 1.9 * r + 0.1, 3.3 + 0.7 * l + r));
+            }
+            building.add(level);
+        }
+        return building;
+    }
+
+    @Test
+    void testFrozenBuildingMatchesSequentialVisitors() {
+        Building frozen = building();
+        frozen.freeze();
+        ParallelVisitor<AreaVisitor> area = new ParallelVisitor<>(new AreaVisitor(), AreaVisitor::new, (a, b) -> { }, 10, pool);
+        ParallelVisitor<EnergyVisitor> energy = new ParallelVisitor<>(new EnergyVisitor(), EnergyVisitor::new, (a, b) -> { }, 10, pool);
+
+        assertEquals(new AreaVisitor().visit(building()), frozen.accept(area));
+        assertEquals(new EnergyVisitor().visit(building()), frozen.accept(energy));
+        assertEquals(new EnergyVisitor().visit(frozen), frozen.accept(energy));
+    }
+
+    @Test
+    void testSplitLevelsCollectRoomsInOrder() {
+        Building mutable = building();
+        ExceedingHeatingVisitor sequential = new ExceedingHeatingVisitor(0.5);
+        ExceedingHeatingVisitor target = new ExceedingHeatingVisitor(0.5);
+        ParallelVisitor<ExceedingHeatingVisitor> parallel = new ParallelVisitor<>(target,
+                () -> new ExceedingHeatingVisitor(0.5), ExceedingHeatingVisitor::merge, 8, pool);
+
+        double expected = mutable.accept(sequential);
+        assertEquals(expected, mutable.accept(parallel), 1e-9);
+        assertEquals(sequential.getRoomsExceedingLimit(), target.getRoomsExceedingLimit());
+    }
+
+    @Test
+    void testSummaryIsMergedIntoTarget() {
+        Building frozen = building();
+        frozen.freeze();
+        SummaryVisitor sequential = new SummaryVisitor(3, 5);
+        SummaryVisitor target = new SummaryVisitor(3, 5);
+        frozen.accept(sequential);
+        frozen.accept(new ParallelVisitor<>(target, () -> new SummaryVisitor(3, 5), SummaryVisitor::merge, 10, pool));
+
+        assertEquals(sequential.getArea(), target.getArea());
+        assertEquals(sequential.getCube(), target.getCube());
+        assertEquals(sequential.getEnergyCost(), target.getEnergyCost());
+    }
+
+    @Test
+    void testSmallBuildingIsVisitedSequentially() {
+        Building frozen = building();
+        frozen.freeze();
+        ParallelVisitor<AreaVisitor> area = new ParallelVisitor<>(new AreaVisitor(), AreaVisitor::new, (a, b) -> { }, 1_000_000, pool);
+
+        assertEquals(frozen.getTotals().getArea(), frozen.accept(area));
+    }
+}
@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+import pl.put.poznan.buildingInfo.repository.RoomImporter;
+import pl.put.poznan.buildingInfo.storage.WriteAheadLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RoomImporterUnitTest {
+
+    private static BuildingRepository repository() {
+        BuildingRepository repository = new BuildingRepository(new WriteAheadLog(""));
+        Building building = new Building(1, "Building 1");
+        Level level = new Level(10, "Level 0");
+        level.add(new Room(100, "Room", 20, 50, 10, 5));
+        building.add(level);
+        building.add(new Level(11, "Level 1"));
+        repository.addBuilding(building);
+        return repository;
+    }
+
+    private static ByteArrayInputStream input(String ndjson) {
+        return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRoomsAreAddedInBatchesAndConflictsRejected() throws IOException {
+        BuildingRepository repository = repository();
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            ndjson.append("{\"buildingId\":1,\"levelId\":").append(10 + i % 2).append(",\"id\":").append(200 + i)
+                    .append(",\"name\":\"Room ").append(i).append("\",\"area\":20,\"cube\":50,\"heating\":10,\"light\":5,\"energy\":0.2}\n");
+        }
+        ndjson.append("{\"buildingId\":1,\"levelId\":10,\"id\":100}\n");
+        ndjson.append("{\"buildingId\":1,\"levelId\":11,\"id\":201}\n");
+        ndjson.append("{\"buildingId\":1,\"levelId\":12,\"id\":300}\n");
+        ndjson.append("{\"buildingId\":2,\"levelId\":10,\"id\":301}\n");
+
+        RoomImporter.Result result = new RoomImporter(repository, 7).importRooms(input(ndjson.toString()));
+
+        assertEquals(25, result.getAccepted());
+        assertEquals(4, result.getRejected());
+        assertEquals(4, result.getErrors().size());
+        assertTrue(result.getErrors().contains("Room with ID: 100 rejected: room ID already exists"));
+        assertTrue(result.getErrors().contains("Room with ID: 300 rejected: level with ID: 12 not found in building 1"));
+        assertEquals(14, repository.findLevel(10).getRoomsOnLevel().size());
+        assertEquals(12, repository.findLevel(11).getRoomsOnLevel().size());
+        assertEquals("Room 24", repository.findRoom(224).getName());
+        assertNull(repository.findRoom(300));
+    }
+
+    @Test
+    void testEarlierBatchesStayAfterBrokenLine() {
+        BuildingRepository repository = repository();
+        String ndjson = "{\"buildingId\":1,\"levelId\":10,\"id\":200}\n{\"buildingId\":1,\"levelId\":10,\"id\":201}\n{\"broken";
+
+        assertThrows(IOException.class, () -> new RoomImporter(repository, 1).importRooms(input(ndjson)));
+        assertNotNull(repository.findRoom(201));
+    }
+}
@@ -0,0 +1,42 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.storage.RoomNdjsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RoomNdjsonWriterUnitTest {
+
+    @Test
+    void testOneLinePerRoom() throws Exception {
+        Building building = new Building(1, "Building 1");
+        for (int l = 0; l < 2; l++) {
+            Level level = new Level(10 + l, "Level " + l);
+            level.add(new Room(100 + 2 * l, "Room A", 20, 50, 10, 5));
+            level.add(new Room(101 + 2 * l, "Room \"B\"", 40, 80, 20, 8));
+            building.add(level);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (RoomNdjsonWriter writer = new RoomNdjsonWriter(output)) {
+            writer.write(building);
+            writer.write(building);
+            assertEquals(8, writer.getRoomsWritten());
+        }
+
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(8, lines.length);
+        JsonNode room = new ObjectMapper().readTree(lines[3]);
+        assertEquals(1, room.get("buildingId").asInt());
+        assertEquals(11, room.get("levelId").asInt());
+        assertEquals(103, room.get("id").asInt());
+        assertEquals("Room \"B\"", room.get("name").asText());
+        assertEquals(20.0 / 80, room.get("energy").asDouble());
+    }
+}
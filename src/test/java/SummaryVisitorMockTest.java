@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.visitors.EnergyCostVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.LightCostVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.SummaryVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SummaryVisitorMockTest {
+
+    private SummaryVisitor visitor;
+    private List<Room> rooms = new ArrayList<>();
+    private List<Level> levels = new ArrayList<>();
+
+    private Room mockRoom = mock(Room.class);
+    private Level mockLevel1 = mock(Level.class);
+    private Level mockLevel2 = mock(Level.class);
+    private Building mockBuilding = mock(Building.class);
+
+    @BeforeEach
+    void setUp() {
+        visitor = new SummaryVisitor(3, 5);
+
+        when(mockRoom.getArea()).thenReturn(10.0);
+        when(mockRoom.getCube()).thenReturn(20.0);
+        when(mockRoom.getLight()).thenReturn(100.0);
+        when(mockRoom.getHeating()).thenReturn(1000.0);
+
+        for (int i = 0; i < 5; i++) {
+            rooms.add(mockRoom);
+        }
+
+        when(mockLevel1.getRoomsOnLevel()).thenReturn(rooms);
+        when(mockLevel2.getRoomsOnLevel()).thenReturn(rooms);
+        levels.add(mockLevel1);
+        levels.add(mockLevel2);
+
+        when(mockBuilding.getLevelsInBuilding()).thenReturn(levels);
+    }
+
+    @Test
+    void testSummaryOfRoom() {
+        visitor.visit(mockRoom);
+        assertEquals(10.0, visitor.getArea());
+        assertEquals(20.0, visitor.getCube());
+        assertEquals(10.0, visitor.getLightPower());
+        assertEquals(50.0, visitor.getEnergy());
+        assertEquals(30.0, visitor.getLightCost());
+        assertEquals(250.0, visitor.getEnergyCost());
+    }
+
+    @Test
+    void testSummaryOfBuilding() {
+        visitor.visit(mockBuilding);
+        assertEquals(100.0, visitor.getArea());
+        assertEquals(200.0, visitor.getCube());
+        assertEquals(new LightCostVisitor(3).visit(mockBuilding), visitor.getLightCost());
+        assertEquals(new EnergyCostVisitor(5).visit(mockBuilding), visitor.getEnergyCost());
+    }
+
+    @Test
+    void testSummaryOfFrozenBuildingMatchesTraversal() {
+        Building frozen = building();
+        frozen.freeze();
+
+        visitor.visit(frozen);
+        assertEquals(new LightCostVisitor(3).visit(building()), visitor.getLightCost());
+        assertEquals(new EnergyCostVisitor(5).visit(building()), visitor.getEnergyCost());
+    }
+
+    private static Building building() {
+        Building building = new Building(1, "Building 1");
+        for (int l = 0; l < 3; l++) {
+            Level level = new Level(10 + l, "Level " + l);
+            level.add(new Room(100 + 2 * l, "Room 1", 12.3 + l, 31.7, 4.1, 7.9 + l));
+            level.add(new Room(101 + 2 * l, "Room 2", 15.1, 40.3 + l, 6.7 + l, 3.3));
+            building.add(level);
+        }
+        return building;
+    }
+}
@@ -0,0 +1,35 @@
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.logic.visitors.AreaVisitor;
+import pl.put.poznan.buildingInfo.logic.visitors.ParallelVisitor;
+import pl.put.poznan.buildingInfo.repository.VisitorExecutor;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VisitorExecutorUnitTest {
+
+    @Test
+    void testRequestOverridesGlobalMode() {
+        VisitorExecutor executor = new VisitorExecutor(false, 10, 2);
+        try {
+            assertTrue(executor.visitor(AreaVisitor::new, null) instanceof AreaVisitor);
+            assertTrue(executor.visitor(AreaVisitor::new, true) instanceof ParallelVisitor);
+        } finally {
+            executor.close();
+        }
+    }
+
+    @Test
+    void testMapKeepsItemOrder() {
+        VisitorExecutor executor = new VisitorExecutor(false, 10, 3);
+        try {
+            List<Integer> results = executor.map(Arrays.asList(5, 1, 4, 2, 3), id -> id * 10);
+            assertEquals(Arrays.asList(50, 10, 40, 20, 30), results);
+        } finally {
+            executor.close();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.Test;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.logic.visitors.EnergyCostVisitor;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+import pl.put.poznan.buildingInfo.repository.VisitorResultCache;
+import pl.put.poznan.buildingInfo.storage.WriteAheadLog;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class VisitorResultCacheUnitTest {
+
+    private static Building building() {
+        Building building = new Building(1, "Building 1");
+        for (int l = 0; l < 2; l++) {
+            Level level = new Level(10 + l, "Level " + l);
+            level.add(new Room(100 + l, "Room", 20, 50, 10, 5));
+            building.add(level);
+        }
+        return building;
+    }
+
+    @Test
+    void testRoomUpdateInvalidatesOnlyAncestors() {
+        BuildingRepository repository = new BuildingRepository(new WriteAheadLog(""));
+        repository.addBuilding(building());
+        VisitorResultCache cache = new VisitorResultCache(100);
+        AtomicInteger computations = new AtomicInteger();
+
+        Building before = repository.findBuilding(1);
+        Level untouched = repository.findLevel(11);
+        cache.compute(before, EnergyCostVisitor.class, 2, () -> computations.incrementAndGet());
+        cache.compute(before, EnergyCostVisitor.class, 2, () -> computations.incrementAndGet());
+        cache.compute(untouched, EnergyCostVisitor.class, 2, () -> computations.incrementAndGet());
+        assertEquals(2, computations.get());
+        assertEquals(1, cache.getHits());
+
+        repository.updateRoom(1, 10, 100, new Room(100, "Room", 20, 50, 40, 5));
+        Building after = repository.findBuilding(1);
+        assertNotEquals(before.getVersion(), after.getVersion());
+        assertEquals(untouched.getVersion(), repository.findLevel(11).getVersion());
+
+        cache.compute(repository.findLevel(11), EnergyCostVisitor.class, 2, () -> computations.incrementAndGet());
+        assertEquals(2, computations.get());
+        cache.compute(after, EnergyCostVisitor.class, 2, () -> computations.incrementAndGet());
+        cache.compute(after, EnergyCostVisitor.class, 3, () -> computations.incrementAndGet());
+        assertEquals(4, computations.get());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        VisitorResultCache cache = new VisitorResultCache(2);
+        Building first = building();
+        Building second = building();
+        Building third = building();
+        first.freeze();
+        second.freeze();
+        third.freeze();
+
+        cache.compute(first, EnergyCostVisitor.class, 1, () -> 1.0);
+        cache.compute(second, EnergyCostVisitor.class, 1, () -> 2.0);
+        cache.compute(first, EnergyCostVisitor.class, 1, () -> -1.0);
+        cache.compute(third, EnergyCostVisitor.class, 1, () -> 3.0);
+
+        assertEquals(2, cache.size());
+        assertEquals(1.0, (double) cache.compute(first, EnergyCostVisitor.class, 1, () -> -1.0));
+        assertEquals(-2.0, (double) cache.compute(second, EnergyCostVisitor.class, 1, () -> -2.0));
+    }
+}
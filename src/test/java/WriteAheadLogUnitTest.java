@@ -0,0 +1,157 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.put.poznan.buildingInfo.logic.locations.Building;
+import pl.put.poznan.buildingInfo.logic.locations.Level;
+import pl.put.poznan.buildingInfo.logic.locations.Room;
+import pl.put.poznan.buildingInfo.repository.BuildingRepository;
+import pl.put.poznan.buildingInfo.storage.WalRecord;
+import pl.put.poznan.buildingInfo.storage.WalRecord.Operation;
+import pl.put.poznan.buildingInfo.storage.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WriteAheadLogUnitTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordsAreReplayedAfterReopen() throws IOException {
+        Path file = directory.resolve("test.wal");
+        WriteAheadLog log = new WriteAheadLog(file.toString());
+        log.append(WalRecord.of(Operation.REMOVE_BUILDING, 1, 0, 0, null));
+        assertEquals(0, log.recover(0, record -> { }));
+        log.append(WalRecord.of(Operation.ADD_ROOM, 1, 101, 5, new Room(5, "Room 5", 10, 20, 30, 40)));
+        log.append(WalRecord.of(Operation.REMOVE_LEVEL, 1, 102, 0, null));
+        log.sync();
+        log.close();
+
+        List<WalRecord> replayed = new ArrayList<>();
+        WriteAheadLog reopened = new WriteAheadLog(file.toString());
+        assertEquals(2, reopened.recover(0, replayed::add));
+        assertEquals(Operation.ADD_ROOM, replayed.get(0).getOperation());
+        assertEquals(101, replayed.get(0).getLevelId());
+        assertEquals(30, replayed.get(0).getLocation(Room.class).getHeating());
+        assertEquals(Operation.REMOVE_LEVEL, replayed.get(1).getOperation());
+        reopened.close();
+    }
+
+    @Test
+    void testIncompleteTailIsTruncated() throws IOException {
+        Path file = directory.resolve("test.wal");
+        WriteAheadLog log = new WriteAheadLog(file.toString());
+        log.recover(0, record -> { });
+        log.append(WalRecord.of(Operation.REMOVE_ROOM, 1, 101, 5, null));
+        log.append(WalRecord.of(Operation.REMOVE_ROOM, 1, 101, 6, null));
+        log.sync();
+        log.close();
+
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            size = channel.size();
+            channel.truncate(size - 3);
+        }
+
+        List<WalRecord> replayed = new ArrayList<>();
+        WriteAheadLog reopened = new WriteAheadLog(file.toString());
+        assertEquals(1, reopened.recover(0, replayed::add));
+        assertEquals(5, replayed.get(0).getRoomId());
+        reopened.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertEquals(16 + (size - 16) / 2, channel.size());
+        }
+    }
+
+    @Test
+    void testSegmentsCoveredBySnapshotAreSkipped() throws IOException {
+        Path file = directory.resolve("test.wal");
+        WriteAheadLog log = new WriteAheadLog(file.toString());
+        log.recover(0, record -> { });
+        log.append(WalRecord.of(Operation.REMOVE_ROOM, 1, 101, 5, null));
+        log.sync();
+        assertEquals(1, log.rotate());
+        log.append(WalRecord.of(Operation.REMOVE_ROOM, 1, 101, 6, null));
+        log.sync();
+        log.close();
+
+        List<WalRecord> replayed = new ArrayList<>();
+        WriteAheadLog reopened = new WriteAheadLog(file.toString());
+        assertEquals(1, reopened.recover(1, replayed::add));
+        assertEquals(6, replayed.get(0).getRoomId());
+        assertFalse(Files.exists(directory.resolve("test.wal.0")));
+        reopened.close();
+    }
+
+    @Test
+    void testFailedSyncDoesNotPublishChange() {
+        FailingLog log = new FailingLog();
+        BuildingRepository repository = new BuildingRepository(log);
+        Building building = new Building(1, "Building");
+        Level level = new Level(10, "Level");
+        level.add(new Room(100, "Room", 20, 50, 10, 5));
+        building.add(level);
+        assertTrue(repository.addBuilding(building));
+        long modifications = repository.getModificationCount();
+
+        log.failing = true;
+        Level added = new Level(11, "Level 2");
+        added.add(new Room(110, "Room", 20, 50, 10, 5));
+        assertThrows(IllegalStateException.class, () -> repository.addLevel(1, added));
+        assertThrows(IllegalStateException.class, () -> repository.removeRoom(1, 10, 100));
+        assertThrows(IllegalStateException.class, () -> repository.addBuilding(new Building(2, "Building 2")));
+        assertThrows(IllegalStateException.class, () -> repository.addRooms(1,
+                Collections.singletonMap(10, Collections.singletonList(new Room(120, "Room", 20, 50, 10, 5)))));
+
+        assertEquals(1, repository.findBuilding(1).getLevelsInBuilding().size());
+        assertNull(repository.findLevelPath(11));
+        assertNull(repository.findRoomPath(110));
+        assertNull(repository.findRoomPath(120));
+        assertNotNull(repository.findRoom(100));
+        assertNull(repository.findBuilding(2));
+        assertEquals(1, repository.count());
+        assertFalse(added.isFrozen());
+
+        log.failing = false;
+        Level duplicate = new Level(12, "Level 3");
+        duplicate.add(new Room(100, "Room", 20, 50, 10, 5));
+        assertThrows(IllegalArgumentException.class, () -> repository.addLevel(1, duplicate));
+        assertFalse(duplicate.isFrozen());
+        assertFalse(duplicate.getRoomsOnLevel().get(0).isFrozen());
+        assertFalse(repository.addBuilding(new Building(1, "Duplicate")));
+        assertNull(repository.removeRoom(1, 10, 999));
+        assertEquals(modifications, repository.getModificationCount());
+        assertTrue(repository.addLevel(1, added));
+        assertNotNull(repository.findRoomPath(110));
+        assertTrue(repository.findLevel(11).isFrozen());
+        assertEquals(modifications + 1, repository.getModificationCount());
+    }
+
+    private static final class FailingLog extends WriteAheadLog {
+        volatile boolean failing;
+
+        FailingLog() {
+            super("");
+        }
+
+        @Override
+        public void sync() {
+            if (failing) {
+                throw new IllegalStateException("Write-ahead log is disabled");
+            }
+        }
+    }
+}